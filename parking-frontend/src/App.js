@@ -1,4 +1,4 @@
-import { useState } from "react";
+import { useEffect, useState } from "react";
 import { ThemeContextProvider } from "./contexts/ThemeContext";
 import LandingPage from "./components/LandingPage";
 import Dashboard from "./components/Dashboard";
@@ -65,6 +65,41 @@ function App() {
     severity: "info",
   });
 
+  // Live gate events: long-poll /notifications and show each new one in the NotificationBar
+  useEffect(() => {
+    if (!user) return undefined;
+    const controller = new AbortController();
+    const token = localStorage.getItem("authToken");
+    const headers = token ? { Authorization: `Bearer ${token}` } : {};
+    const severities = { entry: "info", exit: "success", slot: "info", user: "info" };
+
+    const poll = async () => {
+      let since = null;
+      while (!controller.signal.aborted) {
+        try {
+          const params = since === null ? { limit: 1 } : { since, wait: 25 };
+          const res = await API.get("/notifications", { params, headers, signal: controller.signal });
+          const list = res.data.notifications || [];
+          // The first call only finds the current position; older events are not replayed
+          if (since !== null && list.length > 0) {
+            const latest = list[list.length - 1];
+            setNotification({
+              open: true,
+              message: list.length > 1 ? `${latest.message} (+${list.length - 1} more)` : latest.message,
+              severity: severities[latest.type] || "info",
+            });
+          }
+          since = res.data.lastSequence;
+        } catch (err) {
+          if (controller.signal.aborted) return;
+          await new Promise((resolve) => setTimeout(resolve, 10000));
+        }
+      }
+    };
+    poll();
+    return () => controller.abort();
+  }, [user]);
+
   const handleLogin = (userData) => {
     setUser(userData);
     localStorage.setItem('parkingUser', JSON.stringify(userData));
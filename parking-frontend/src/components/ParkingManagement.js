@@ -32,6 +32,7 @@ import {
   Login,
 } from "@mui/icons-material";
 import QRCodeGen from "./QRCodeGen";
+import { subscribeSlots, applySlotEvent, slotStats } from "../utils/slotStream";
 
 const SlotCard = ({ slot, onBook, plateNumber, theme, disabled }) => {
   const isAvailable = slot.isAvailable;
@@ -154,12 +155,22 @@ export default function ParkingManagement({ api, onNotify }) {
 
   useEffect(() => {
     fetchSlots();
-    // Auto-refresh every 30 seconds
-    const interval = setInterval(fetchSlots, 30000);
-    return () => clearInterval(interval);
+    // Live updates from the slot stream; polls every 30 seconds only if streaming is unavailable
+    return subscribeSlots(api, {
+      onSnapshot: (snapshot) => {
+        setSlots(snapshot.slots || []);
+        setLoading(false);
+      },
+      onSlot: (event) => setSlots((prev) => applySlotEvent(prev, event)),
+      poll: fetchSlots,
+    });
     // eslint-disable-next-line
   }, []);
 
+  useEffect(() => {
+    setStats(slotStats(slots));
+  }, [slots]);
+
   const handleBook = async (slotId) => {
     if (!plateNumber.trim()) {
       onNotify?.({
@@ -31,6 +31,7 @@ import {
   Refresh,
 
 } from "@mui/icons-material";
+import { subscribeSlots, applySlotEvent, slotStats } from "../utils/slotStream";
 
 const SlotCard = ({ slot, onDelete, theme }) => {
   const isAvailable = slot.isAvailable;
@@ -157,12 +158,22 @@ export default function SlotManagement({ user, api, onNotify }) {
 
   useEffect(() => {
     fetchSlots();
-    // Auto-refresh every 30 seconds
-    const interval = setInterval(fetchSlots, 30000);
-    return () => clearInterval(interval);
+    // Live updates from the slot stream; polls every 30 seconds only if streaming is unavailable
+    return subscribeSlots(api, {
+      onSnapshot: (snapshot) => {
+        setSlots(snapshot.slots || []);
+        setLoading(false);
+      },
+      onSlot: (event) => setSlots((prev) => applySlotEvent(prev, event)),
+      poll: fetchSlots,
+    });
     // eslint-disable-next-line
   }, []);
 
+  useEffect(() => {
+    setStats(slotStats(slots));
+  }, [slots]);
+
   const handleAddSlot = async () => {
     if (!newSlot || isNaN(parseInt(newSlot))) {
       onNotify?.({
@@ -0,0 +1,57 @@
+// Live slot updates from GET /api/slots/stream
+// The server sends a "snapshot" event first, then one "slot" event per change.
+// EventSource reconnects on its own and resumes from the last event id; polling
+// is only used when the browser has no EventSource or the server refuses the stream.
+
+const POLL_INTERVAL = 30000;
+
+export const subscribeSlots = (api, { onSnapshot, onSlot, poll }) => {
+  let source = null;
+  let pollTimer = null;
+
+  const startPolling = () => {
+    if (!pollTimer) {
+      pollTimer = setInterval(poll, POLL_INTERVAL);
+    }
+  };
+
+  if (typeof window === "undefined" || !window.EventSource) {
+    startPolling();
+  } else {
+    source = new EventSource(`${api.defaults.baseURL}/slots/stream`);
+    source.addEventListener("snapshot", (e) => onSnapshot(JSON.parse(e.data)));
+    source.addEventListener("slot", (e) => onSlot(JSON.parse(e.data)));
+    source.onerror = () => {
+      // CLOSED means the browser gave up (e.g. 503 at the client limit)
+      if (source.readyState === EventSource.CLOSED) {
+        console.warn("Slot stream closed, falling back to polling");
+        startPolling();
+      }
+    };
+  }
+
+  return () => {
+    if (source) source.close();
+    if (pollTimer) clearInterval(pollTimer);
+  };
+};
+
+// Applies one "slot" event to a slots array as returned by GET /api/slots
+export const applySlotEvent = (slots, event) => {
+  const rest = slots.filter((s) => s.slotId !== event.slotId);
+  if (event.type === "removed") {
+    return rest;
+  }
+  const slot = {
+    slotId: event.slotId,
+    isAvailable: event.isAvailable,
+    plateNumber: event.plateNumber,
+    entryTime: event.entryTime,
+  };
+  return [...rest, slot].sort((a, b) => a.slotId - b.slotId);
+};
+
+export const slotStats = (slots) => {
+  const available = slots.filter((s) => s.isAvailable).length;
+  return { total: slots.length, available, occupied: slots.length - available };
+};
@@ -0,0 +1,80 @@
+package org.parking.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.parking.model.DatabaseManager;
+import org.parking.model.LoginBookkeeping;
+import org.parking.model.SlotDAO;
+import org.parking.model.TransactionArchive;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class DatabaseConfig {
+
+    @Value("${db.pool.max-size:8}")
+    private int maxSize;
+
+    @Value("${db.pool.min-idle:2}")
+    private int minIdle;
+
+    @Value("${db.pool.connection-timeout-ms:5000}")
+    private long connectionTimeoutMs;
+
+    @Value("${db.pool.idle-timeout-ms:300000}")
+    private long idleTimeoutMs;
+
+    @Value("${db.pool.leak-detection-threshold-ms:0}")
+    private long leakDetectionThresholdMs;
+
+    @Value("${db.busy-timeout-ms:5000}")
+    private int busyTimeoutMs;
+
+    @Value("${db.cache-size-kb:8192}")
+    private int cacheSizeKb;
+
+    @Value("${db.wal.enabled:true}")
+    private boolean walEnabled;
+
+    @Value("${db.writer.max-batch-size:64}")
+    private int writerMaxBatchSize;
+
+    @Value("${db.writer.queue-capacity:10000}")
+    private int writerQueueCapacity;
+
+    @Value("${parking.slots.capacity:1048576}")
+    private int slotCapacity;
+
+    @Value("${parking.archive.enabled:true}")
+    private boolean archiveEnabled;
+
+    @Value("${parking.archive.dir:archive}")
+    private String archiveDir;
+
+    @Value("${parking.archive.after-days:180}")
+    private int archiveAfterDays;
+
+    @Value("${parking.archive.interval-minutes:60}")
+    private long archiveIntervalMinutes;
+
+    @Value("${parking.auth.login-flush-seconds:5}")
+    private long loginFlushSeconds;
+
+    @PostConstruct
+    public void configure() {
+        DatabaseManager.configureStorage(walEnabled, writerMaxBatchSize, writerQueueCapacity);
+        DatabaseManager.configurePool(maxSize, minIdle, connectionTimeoutMs, idleTimeoutMs,
+            leakDetectionThresholdMs, busyTimeoutMs, cacheSizeKb);
+        SlotDAO.configureOccupancy(slotCapacity);
+        TransactionArchive.configure(archiveEnabled, archiveDir, archiveAfterDays, archiveIntervalMinutes);
+        LoginBookkeeping.configure(loginFlushSeconds);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        TransactionArchive.stop();
+        // Pending last_login and failed attempt counts go out before the writer stops
+        LoginBookkeeping.stop();
+        DatabaseManager.shutdown();
+    }
+}
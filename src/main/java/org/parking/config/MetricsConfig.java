@@ -0,0 +1,148 @@
+package org.parking.config;
+
+import controller.QRCodeCache;
+import controller.QRCodeScanner;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.parking.model.ConnectionPool;
+import org.parking.model.ActiveSessionIndex;
+import org.parking.model.DaoMetrics;
+import org.parking.model.DatabaseManager;
+import org.parking.model.GatePipeline;
+import org.parking.model.LiveStatistics;
+import org.parking.model.PasswordHasher;
+import org.parking.model.SlotDAO;
+import org.parking.model.WriteQueue;
+import org.parking.util.PassToken;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+// Publishes the in-process counters of the data layer at /actuator/metrics.
+// Suppliers look the pool up on every read because DatabaseConfig may rebuild it.
+@Component
+public class MetricsConfig implements MeterBinder {
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        DaoMetrics.bind(registry);
+        poolGauge(registry, "parking.db.pool.active", ConnectionPool::getActiveConnections);
+        poolGauge(registry, "parking.db.pool.idle", ConnectionPool::getIdleConnections);
+        poolGauge(registry, "parking.db.pool.total", ConnectionPool::getTotalConnections);
+        poolGauge(registry, "parking.db.pool.max", ConnectionPool::getMaxSize);
+        poolGauge(registry, "parking.db.pool.pending", ConnectionPool::getPendingThreads);
+        poolCounter(registry, "parking.db.pool.borrows", ConnectionPool::getBorrowCount);
+        poolCounter(registry, "parking.db.pool.timeouts", ConnectionPool::getTimeoutCount);
+        poolCounter(registry, "parking.db.pool.leaks", ConnectionPool::getLeakCount);
+        FunctionCounter.builder("parking.db.pool.wait", DatabaseManager.class,
+                m -> DatabaseManager.getPool().getWaitNanosTotal() / 1_000_000.0)
+            .baseUnit("milliseconds")
+            .description("Cumulative time spent waiting for a pooled connection")
+            .register(registry);
+
+        writerGauge(registry, "parking.db.writer.queue.depth", WriteQueue::getQueueDepth);
+        writerCounter(registry, "parking.db.writer.batches", WriteQueue::getBatchCount);
+        writerCounter(registry, "parking.db.writer.tasks", WriteQueue::getTaskCount);
+        writerCounter(registry, "parking.db.writer.failed", WriteQueue::getFailedTaskCount);
+        DistributionSummary batchSize = DistributionSummary.builder("parking.db.writer.batch.size")
+            .description("Writes committed together in one group commit")
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(registry);
+        DatabaseManager.setWriterBatchListener(batchSize::record);
+
+        Gauge.builder("parking.slots.total", SlotDAO.class, d -> SlotDAO.occupancy().getTotalCount()).register(registry);
+        Gauge.builder("parking.slots.free", SlotDAO.class, d -> SlotDAO.occupancy().getFreeCount()).register(registry);
+
+        for (GatePipeline.Status status : GatePipeline.Status.values()) {
+            FunctionCounter.builder("parking.gate.entries", GatePipeline.class, g -> GatePipeline.getEntryCount(status))
+                .tag("outcome", status.name().toLowerCase())
+                .register(registry);
+        }
+        FunctionTimer.builder("parking.gate.entry", GatePipeline.class,
+                g -> GatePipeline.getEntryAttempts(), g -> GatePipeline.getEntryNanosTotal(), TimeUnit.NANOSECONDS)
+            .description("Gate entry pipeline latency, lock wait included")
+            .register(registry);
+        for (GatePipeline.ExitStatus status : GatePipeline.ExitStatus.values()) {
+            FunctionCounter.builder("parking.gate.exits", GatePipeline.class, g -> GatePipeline.getExitCount(status))
+                .tag("outcome", status.name().toLowerCase())
+                .register(registry);
+        }
+        FunctionTimer.builder("parking.gate.exit", GatePipeline.class,
+                g -> GatePipeline.getExitAttempts(), g -> GatePipeline.getExitNanosTotal(), TimeUnit.NANOSECONDS)
+            .register(registry);
+
+        Gauge.builder("parking.today.vehicles", LiveStatistics.class, s -> LiveStatistics.getVehiclesToday()).register(registry);
+        Gauge.builder("parking.today.revenue", LiveStatistics.class, s -> LiveStatistics.getRevenueToday()).register(registry);
+
+        Gauge.builder("parking.sessions.active", ActiveSessionIndex.class, i -> ActiveSessionIndex.size()).register(registry);
+        FunctionCounter.builder("parking.sessions.lookups", ActiveSessionIndex.class, i -> ActiveSessionIndex.getHits())
+            .tag("result", "hit")
+            .register(registry);
+        FunctionCounter.builder("parking.sessions.lookups", ActiveSessionIndex.class, i -> ActiveSessionIndex.getMisses())
+            .tag("result", "miss")
+            .register(registry);
+
+        FunctionCounter.builder("parking.qr.cache.lookups", QRCodeCache.class, c -> QRCodeCache.getHits())
+            .tag("result", "hit")
+            .register(registry);
+        FunctionCounter.builder("parking.qr.cache.lookups", QRCodeCache.class, c -> QRCodeCache.getMisses())
+            .tag("result", "miss")
+            .register(registry);
+        FunctionCounter.builder("parking.qr.cache.evictions", QRCodeCache.class, c -> QRCodeCache.getEvictions()).register(registry);
+        FunctionTimer.builder("parking.gate.scan.decode", QRCodeScanner.class,
+                q -> QRCodeScanner.getDecodeCount(), q -> QRCodeScanner.getDecodeNanosTotal(), TimeUnit.NANOSECONDS)
+            .description("Time to read, downscale and decode one uploaded gate frame")
+            .register(registry);
+        FunctionCounter.builder("parking.gate.scan.decode.failures", QRCodeScanner.class, q -> QRCodeScanner.getDecodeFailures())
+            .register(registry);
+        FunctionTimer.builder("parking.gate.scan", QRCodeScanner.class,
+                q -> QRCodeScanner.getScanCount(), q -> QRCodeScanner.getScanNanosTotal(), TimeUnit.NANOSECONDS)
+            .description("End-to-end gate scan latency, upload to committed entry or exit")
+            .register(registry);
+        FunctionTimer.builder("parking.auth.hash", PasswordHasher.class,
+                h -> PasswordHasher.getHashCount(), h -> PasswordHasher.getHashNanosTotal(), TimeUnit.NANOSECONDS)
+            .description("BCrypt time per password hash or check")
+            .register(registry);
+        FunctionTimer.builder("parking.auth.hash.queue.wait", PasswordHasher.class,
+                h -> PasswordHasher.getHashCount(), h -> PasswordHasher.getQueueWaitNanosTotal(), TimeUnit.NANOSECONDS)
+            .description("Time a password hash waited for a hashing thread")
+            .register(registry);
+        FunctionCounter.builder("parking.auth.hash.rejections", PasswordHasher.class, h -> PasswordHasher.getRejections())
+            .register(registry);
+        Gauge.builder("parking.auth.hash.queued", PasswordHasher.class, h -> PasswordHasher.getQueueDepth()).register(registry);
+        FunctionTimer.builder("parking.gate.pass.verify", PassToken.class,
+                p -> PassToken.getVerifications(), p -> PassToken.getVerifyNanosTotal(), TimeUnit.NANOSECONDS)
+            .description("Signature and validity check of a scanned pass token")
+            .register(registry);
+        FunctionCounter.builder("parking.gate.pass.rejections", PassToken.class, p -> PassToken.getRejections()).register(registry);
+        Gauge.builder("parking.qr.cache.entries", QRCodeCache.class, c -> QRCodeCache.size()).register(registry);
+        Gauge.builder("parking.qr.cache.size", QRCodeCache.class, c -> QRCodeCache.getBytes())
+            .baseUnit("bytes")
+            .register(registry);
+    }
+
+    private static void poolGauge(MeterRegistry registry, String name, ToDoubleFunction<ConnectionPool> f) {
+        Gauge.builder(name, DatabaseManager.class, m -> f.applyAsDouble(DatabaseManager.getPool()))
+            .register(registry);
+    }
+
+    private static void poolCounter(MeterRegistry registry, String name, ToDoubleFunction<ConnectionPool> f) {
+        FunctionCounter.builder(name, DatabaseManager.class, m -> f.applyAsDouble(DatabaseManager.getPool()))
+            .register(registry);
+    }
+
+    private static void writerGauge(MeterRegistry registry, String name, ToDoubleFunction<WriteQueue> f) {
+        Gauge.builder(name, DatabaseManager.class, m -> f.applyAsDouble(DatabaseManager.getWriteQueue()))
+            .register(registry);
+    }
+
+    private static void writerCounter(MeterRegistry registry, String name, ToDoubleFunction<WriteQueue> f) {
+        FunctionCounter.builder(name, DatabaseManager.class, m -> f.applyAsDouble(DatabaseManager.getWriteQueue()))
+            .register(registry);
+    }
+}
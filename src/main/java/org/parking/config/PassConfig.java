@@ -0,0 +1,26 @@
+package org.parking.config;
+
+import jakarta.annotation.PostConstruct;
+import org.parking.util.PassToken;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+// Signing keys for the pass tokens printed into QR codes. There is no built-in key:
+// without parking.pass.keys passes are disabled, and startup fails if they are required.
+@Configuration
+public class PassConfig {
+
+    @Value("${parking.pass.keys:}")
+    private String keys;
+
+    @Value("${parking.pass.current-key-id:1}")
+    private int currentKeyId;
+
+    @Value("${parking.pass.required:false}")
+    private boolean required;
+
+    @PostConstruct
+    public void configure() {
+        PassToken.configure(keys, currentKeyId, required);
+    }
+}
@@ -0,0 +1,28 @@
+package org.parking.config;
+
+import controller.QRCodeScanner;
+import jakarta.annotation.PostConstruct;
+import org.parking.model.GatePipeline;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+// Limits for the gate camera frames decoded by QRCodeScanner, and how long repeat
+// frames of one plate are held off
+@Configuration
+public class ScannerConfig {
+
+    @Value("${parking.gate.scan.max-pixels:40000000}")
+    private long maxPixels;
+
+    @Value("${parking.gate.scan.threads:0}")
+    private int threads;
+
+    @Value("${parking.gate.scan.hold-off-seconds:5}")
+    private long holdOffSeconds;
+
+    @PostConstruct
+    public void configure() {
+        QRCodeScanner.configure(maxPixels, threads);
+        GatePipeline.configureHoldOff(holdOffSeconds * 1000);
+    }
+}
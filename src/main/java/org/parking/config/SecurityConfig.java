@@ -1,5 +1,8 @@
 package org.parking.config;
 
+import jakarta.annotation.PostConstruct;
+import org.parking.model.PasswordHasher;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -13,6 +16,8 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import org.parking.util.JwtAuthenticationFilter;
+import org.parking.util.RateLimitFilter;
+import org.parking.util.RateLimiter;
 
 import java.util.Arrays;
 
@@ -20,6 +25,44 @@ import java.util.Arrays;
 @EnableWebSecurity
 public class SecurityConfig {
 
+    // 0 means half the cores, leaving the rest for the gate endpoints
+    @Value("${parking.auth.hash-threads:0}")
+    private int hashThreads;
+
+    @Value("${parking.auth.hash-queue:64}")
+    private int hashQueue;
+
+    // Limits per client per endpoint group; 0 turns a limit off
+    @Value("${rate.limit.requests-per-minute:60}")
+    private int apiPerMinute;
+
+    @Value("${rate.limit.requests-per-hour:1000}")
+    private int apiPerHour;
+
+    @Value("${rate.limit.gate.requests-per-minute:600}")
+    private int gatePerMinute;
+
+    @Value("${rate.limit.gate.requests-per-hour:20000}")
+    private int gatePerHour;
+
+    @Value("${rate.limit.auth.requests-per-minute:10}")
+    private int authPerMinute;
+
+    @Value("${rate.limit.auth.requests-per-hour:100}")
+    private int authPerHour;
+
+    @Value("${rate.limit.debug.requests-per-minute:10}")
+    private int debugPerMinute;
+
+    @Value("${rate.limit.debug.requests-per-hour:100}")
+    private int debugPerHour;
+
+    @PostConstruct
+    public void configureHashing() {
+        int threads = hashThreads > 0 ? hashThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        PasswordHasher.configure(threads, hashQueue);
+    }
+
     @Bean
     public PasswordEncoder passwordEncoder() {
         return new BCryptPasswordEncoder(12); // Stronger hashing
@@ -30,6 +73,15 @@ public class SecurityConfig {
         return new JwtAuthenticationFilter();
     }
 
+    @Bean
+    public RateLimitFilter rateLimitFilter() {
+        return new RateLimitFilter(
+            new RateLimiter(gatePerMinute, gatePerHour),
+            new RateLimiter(authPerMinute, authPerHour),
+            new RateLimiter(debugPerMinute, debugPerHour),
+            new RateLimiter(apiPerMinute, apiPerHour));
+    }
+
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http
@@ -39,16 +91,18 @@ public class SecurityConfig {
             .authorizeHttpRequests(authz -> authz
                 .requestMatchers("/api/register", "/api/login", "/api/health").permitAll()
                 .requestMatchers("/api/slots", "/api/slots/**").permitAll() // Allow public access to slots (GET, POST, DELETE)
-                .requestMatchers("/api/book", "/api/release").permitAll() // Allow public access to book/release (temporary)
+                .requestMatchers("/api/book", "/api/book/auto", "/api/release", "/api/gate/scan", "/api/gate/scan/multi").permitAll() // Allow public access to book/release (temporary)
                 .requestMatchers("/api/transactions", "/api/history/**", "/api/analytics").permitAll() // Allow public access to transaction data
                 .requestMatchers("/api/dashboard/**").permitAll() // Allow public access to dashboard stats
                 .requestMatchers("/api/vehicle/**", "/api/debug/**").permitAll() // Allow public access to vehicle status and debug
                 .requestMatchers("/api/profile", "/api/settings").permitAll() // Allow public access to profile and settings
                 .requestMatchers("/actuator/health").permitAll()
                 .requestMatchers("/api/admin/**").hasRole("ADMIN")
+                .requestMatchers("/api/qr/pass/**").hasRole("ADMIN") // Passes open gates; only admins issue them
                 .anyRequest().authenticated()
             )
-            .addFilterBefore(jwtAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class);
+            .addFilterBefore(jwtAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class)
+            .addFilterAfter(rateLimitFilter(), JwtAuthenticationFilter.class);
 
         return http.build();
     }
@@ -1,10 +1,14 @@
 package org.parking.controller;
 
+import org.parking.dto.AutoBookingRequest;
 import org.parking.dto.BookingRequest;
+import org.parking.dto.BulkQrRequest;
 import org.parking.dto.LoginRequest;
 import org.parking.dto.RegisterRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -13,18 +17,23 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.parking.util.JwtUtil;
+import org.parking.util.PlateCodec;
 
-import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @RestController
+@DependsOn("databaseConfig")
 @RequestMapping("/api")
 @CrossOrigin(origins = {"http://localhost:3000", "http://localhost:3001"})
 public class ApiController {
@@ -32,6 +41,12 @@ public class ApiController {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private SlotEventStream slotEventStream;
+
+    @Autowired
+    private org.parking.util.RateLimitFilter rateLimitFilter;
+
     // Initialize DB on startup
     public ApiController() {
         org.parking.model.DatabaseManager.initialize();
@@ -69,6 +84,22 @@ public class ApiController {
         } catch (Exception e) {
             res.put("database", "Error: " + e.getMessage());
         }
+        res.put("connectionPool", org.parking.model.DatabaseManager.getPoolStats());
+        if (org.parking.model.DatabaseManager.isWalEnabled()) {
+            res.put("writer", org.parking.model.DatabaseManager.getWriterStats());
+        }
+        res.put("gate", org.parking.model.GatePipeline.getStats());
+        res.put("sessionIndex", org.parking.model.ActiveSessionIndex.getStats());
+        res.put("archive", org.parking.model.TransactionArchive.getStats());
+        res.put("slotStream", slotEventStream.getStats());
+        res.put("notifications", org.parking.model.NotificationFeed.getStats());
+        res.put("qrCache", controller.QRCodeCache.getStats());
+        res.put("scanner", controller.QRCodeScanner.getStats());
+        res.put("passTokens", org.parking.util.PassToken.getStats());
+        res.put("authCache", jwtUtil.getStats());
+        res.put("passwordHashing", org.parking.model.PasswordHasher.getStats());
+        res.put("loginBookkeeping", org.parking.model.LoginBookkeeping.getStats());
+        res.put("rateLimits", rateLimitFilter.getStats());
         
         return ResponseEntity.ok(res);
     }
@@ -78,7 +109,6 @@ public class ApiController {
         syncSlotAvailability();
         
         // Then check if we need to add default slots
-        List<Integer> existing = org.parking.model.SlotDAO.getAvailableSlots();
         int totalSlots = org.parking.model.SlotDAO.getTotalSlots();
         
         if (totalSlots == 0) {
@@ -91,20 +121,32 @@ public class ApiController {
     
     private void syncSlotAvailability() {
         // Reset all slots to available, then mark occupied ones based on active transactions
-        try (Connection conn = org.parking.model.DatabaseManager.getConnection()) {
-            // First, mark all slots as available
-            PreparedStatement resetPs = conn.prepareStatement("UPDATE slots SET isAvailable = 1");
-            resetPs.executeUpdate();
-            
-            // Then mark slots with active transactions as unavailable
-            PreparedStatement occupyPs = conn.prepareStatement(
-                "UPDATE slots SET isAvailable = 0 WHERE slotId IN " +
-                "(SELECT DISTINCT slotId FROM transactions WHERE exitTime IS NULL)"
-            );
-            occupyPs.executeUpdate();
+        try {
+            org.parking.model.DatabaseManager.write(conn -> {
+                // First, mark all slots as available
+                PreparedStatement resetPs = conn.prepareStatement("UPDATE slots SET isAvailable = 1");
+                resetPs.executeUpdate();
+                
+                // Then mark slots with active transactions as unavailable
+                PreparedStatement occupyPs = conn.prepareStatement(
+                    "UPDATE slots SET isAvailable = 0 WHERE slotId IN " +
+                    "(SELECT DISTINCT slotId FROM transactions WHERE exitTime IS NULL)"
+                );
+                return occupyPs.executeUpdate();
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
+        
+        // Finish an archive run that a crash interrupted before reading any totals
+        org.parking.model.TransactionArchive.recover();
+        
+        // Build the in-memory occupancy, session index and counters from the reconciled tables
+        org.parking.model.SlotDAO.loadOccupancy();
+        org.parking.model.ActiveSessionIndex.load();
+        // Rollups first: today's exit totals are read from them
+        org.parking.model.RollupDAO.ensureBuilt();
+        org.parking.model.LiveStatistics.load();
     }
 
     // Register user
@@ -128,10 +170,13 @@ public class ApiController {
             if (ok) {
                 res.put("success", true);
                 res.put("message", "User registered successfully");
+                org.parking.model.NotificationFeed.publish("user", "New user " + request.getUsername() + " registered");
             } else {
                 res.put("success", false);
                 res.put("message", "Username or email already exists");
             }
+        } catch (org.parking.model.PasswordHasher.Busy e) {
+            return hashingBusy(e);
         } catch (Exception e) {
             res.put("success", false);
             res.put("message", "Registration failed: " + e.getMessage());
@@ -158,9 +203,8 @@ public class ApiController {
         }
 
         try {
-            boolean valid = org.parking.model.UserDAO.validateLogin(request.getUsername(), request.getPassword());
-            if (valid) {
-                String role = org.parking.model.UserDAO.getUserRole(request.getUsername());
+            String role = org.parking.model.UserDAO.authenticate(request.getUsername(), request.getPassword());
+            if (role != null) {
                 String token = jwtUtil.generateToken(request.getUsername(), role);
                 
                 res.put("success", true);
@@ -174,6 +218,8 @@ public class ApiController {
                 res.put("success", false);
                 res.put("message", "Invalid username or password");
             }
+        } catch (org.parking.model.PasswordHasher.Busy e) {
+            return hashingBusy(e);
         } catch (Exception e) {
             e.printStackTrace(); // Log the full stack trace
             res.put("success", false);
@@ -185,6 +231,16 @@ public class ApiController {
         return ResponseEntity.ok(res);
     }
     
+    // Password hashing is saturated: ask the client to come back rather than queue
+    private ResponseEntity<Map<String, Object>> hashingBusy(org.parking.model.PasswordHasher.Busy e) {
+        Map<String, Object> res = new HashMap<>();
+        res.put("success", false);
+        res.put("message", e.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+            .body(res);
+    }
+
     // Simple login test endpoint (for debugging)
     @PostMapping("/login-test")
     public ResponseEntity<Map<String, Object>> loginTest(@RequestBody Map<String, Object> body) {
@@ -200,9 +256,8 @@ public class ApiController {
                 return ResponseEntity.badRequest().body(res);
             }
             
-            boolean valid = org.parking.model.UserDAO.validateLogin(username, password);
-            if (valid) {
-                String role = org.parking.model.UserDAO.getUserRole(username);
+            String role = org.parking.model.UserDAO.authenticate(username, password);
+            if (role != null) {
                 String token = jwtUtil.generateToken(username, role);
                 
                 res.put("success", true);
@@ -216,6 +271,8 @@ public class ApiController {
                 res.put("success", false);
                 res.put("message", "Invalid username or password");
             }
+        } catch (org.parking.model.PasswordHasher.Busy e) {
+            return hashingBusy(e);
         } catch (Exception e) {
             e.printStackTrace();
             res.put("success", false);
@@ -239,6 +296,32 @@ public class ApiController {
         return ResponseEntity.ok(res);
     }
 
+    // Live slot occupancy as Server-Sent Events: a "snapshot" event shaped like GET /slots
+    // (plus its version), then one "slot" event per change. Reconnecting browsers send
+    // Last-Event-ID and get only what they missed; ?since= does the same by hand.
+    @GetMapping(value = "/slots/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamSlots(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                                                  @RequestParam(required = false) Long since) {
+        Long lastVersion = since;
+        if (lastVersion == null && lastEventId != null) {
+            try {
+                lastVersion = Long.parseLong(lastEventId.trim());
+            } catch (NumberFormatException e) {
+                // Not one of ours; start from a snapshot
+            }
+        }
+        SseEmitter emitter = slotEventStream.subscribe(lastVersion);
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "30")
+                .build();
+        }
+        return ResponseEntity.ok()
+            .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+            .header("X-Accel-Buffering", "no")
+            .body(emitter);
+    }
+
     // Add a slot
     @PostMapping("/slots")
     public ResponseEntity<Map<String, Object>> addSlot(@RequestBody Map<String, Object> body) {
@@ -251,7 +334,19 @@ public class ApiController {
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(res);
             }
             int id = idn.intValue();
-            org.parking.model.SlotDAO.addSlot(id);
+            Object slotType = body.get("slotType");
+            boolean added;
+            if (slotType instanceof String && !((String) slotType).isBlank()) {
+                added = org.parking.model.SlotDAO.addSlot(id, ((String) slotType).trim().toLowerCase());
+            } else {
+                added = org.parking.model.SlotDAO.addSlot(id);
+            }
+            if (!added) {
+                res.put("success", false);
+                res.put("message", "Slot " + id + " was not added - it already exists, is out of range, or a database error occurred");
+                return ResponseEntity.ok(res);
+            }
+            org.parking.model.NotificationFeed.publish("slot", "Slot " + id + " added", null, id);
             res.put("success", true);
             return ResponseEntity.ok(res);
         } catch (ClassCastException e) {
@@ -288,6 +383,7 @@ public class ApiController {
             if (deleted) {
                 res.put("success", true);
                 res.put("message", "Slot " + id + " deleted successfully");
+                org.parking.model.NotificationFeed.publish("slot", "Slot " + id + " deleted", null, id);
             } else {
                 res.put("success", false);
                 res.put("message", "Failed to delete slot " + id + " - database error occurred");
@@ -318,24 +414,41 @@ public class ApiController {
         }
 
         try {
-            // Check if vehicle is already parked
-            if (org.parking.model.TransactionDAO.isVehicleCurrentlyParked(request.getPlate())) {
-                res.put("success", false);
-                res.put("message", "Vehicle " + request.getPlate() + " is already parked");
-                return ResponseEntity.ok(res);
-            }
+            // Parked check, slot claim and entry row commit together
+            org.parking.model.GatePipeline.EntryResult result =
+                org.parking.model.GatePipeline.enter(request.getPlate(), request.getSlotId(), null);
+            describeEntry(res, result, request.getPlate(), null);
+        } catch (Exception e) {
+            res.put("success", false);
+            res.put("message", "Booking failed: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(res);
+        }
+        
+        return ResponseEntity.ok(res);
+    }
 
-            boolean booked = org.parking.model.SlotDAO.bookSlot(request.getSlotId(), request.getPlate());
-            if (booked) {
-                org.parking.model.TransactionDAO.logEntry(request.getPlate(), request.getSlotId());
-                res.put("success", true);
-                res.put("message", "Slot " + request.getSlotId() + " booked successfully for " + request.getPlate());
-                res.put("slotId", request.getSlotId());
-                res.put("plateNumber", request.getPlate());
-            } else {
-                res.put("success", false);
-                res.put("message", "Slot " + request.getSlotId() + " is not available");
-            }
+    // Book the first free slot (entry), optionally of a given slot type
+    @PostMapping("/book/auto")
+    public ResponseEntity<Map<String, Object>> bookAnySlot(@Valid @RequestBody AutoBookingRequest request,
+                                                          BindingResult bindingResult) {
+        Map<String, Object> res = new HashMap<>();
+        
+        if (bindingResult.hasErrors()) {
+            List<String> errors = bindingResult.getFieldErrors().stream()
+                    .map(error -> error.getDefaultMessage())
+                    .collect(Collectors.toList());
+            res.put("success", false);
+            res.put("message", "Validation failed");
+            res.put("errors", errors);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(res);
+        }
+        
+        String slotType = request.getSlotType() == null || request.getSlotType().isBlank() ? null : request.getSlotType();
+        
+        try {
+            org.parking.model.GatePipeline.EntryResult result =
+                org.parking.model.GatePipeline.enter(request.getPlate(), null, slotType);
+            describeEntry(res, result, request.getPlate(), slotType);
         } catch (Exception e) {
             res.put("success", false);
             res.put("message", "Booking failed: " + e.getMessage());
@@ -345,11 +458,41 @@ public class ApiController {
         return ResponseEntity.ok(res);
     }
 
+    private void describeEntry(Map<String, Object> res, org.parking.model.GatePipeline.EntryResult result,
+                               String plate, String slotType) {
+        int slotId = result.getSlotId();
+        res.put("success", result.isSuccess());
+        switch (result.getStatus()) {
+            case ENTERED:
+                res.put("message", "Slot " + slotId + " booked successfully for " + plate);
+                res.put("slotId", slotId);
+                res.put("plateNumber", plate);
+                org.parking.model.NotificationFeed.publish("entry", "Vehicle " + PlateCodec.normalize(plate) + " entered slot " + slotId,
+                    PlateCodec.normalize(plate), slotId);
+                break;
+            case ALREADY_PARKED:
+                res.put("message", "Vehicle " + plate + " is already parked");
+                break;
+            case SLOT_UNAVAILABLE:
+                res.put("message", "Slot " + slotId + " is not available");
+                break;
+            case NO_FREE_SLOT:
+                res.put("message", slotType != null ? "No free " + slotType + " slots available" : "No free slots available");
+                break;
+            case INVALID_PLATE:
+                res.put("message", "Plate number must be 1-" + PlateCodec.MAX_LENGTH + " letters and numbers");
+                break;
+            default:
+                res.put("message", "Booking failed: database error");
+                break;
+        }
+    }
+
     // Debug endpoint to check database state for a vehicle
     @GetMapping("/debug/vehicle/{plate}")
     public ResponseEntity<Map<String, Object>> debugVehicle(@PathVariable String plate) {
         Map<String, Object> res = new HashMap<>();
-        plate = plate.toUpperCase().trim();
+        plate = PlateCodec.normalize(plate);
         
         try (Connection conn = org.parking.model.DatabaseManager.getConnection()) {
             // Get all transactions for this vehicle
@@ -386,29 +529,17 @@ public class ApiController {
     @GetMapping("/vehicle/{plate}/status")
     public ResponseEntity<Map<String, Object>> getVehicleStatus(@PathVariable String plate) {
         Map<String, Object> res = new HashMap<>();
-        plate = plate.toUpperCase().trim();
+        plate = PlateCodec.normalize(plate);
         
-        boolean isParked = org.parking.model.TransactionDAO.isVehicleCurrentlyParked(plate);
+        // Answered from the active-session index, no query
+        org.parking.model.ActiveSessionIndex.ActiveSession session = org.parking.model.ActiveSessionIndex.lookup(plate);
         res.put("plateNumber", plate);
-        res.put("isCurrentlyParked", isParked);
+        res.put("isCurrentlyParked", session != null);
         
-        if (isParked) {
-            // Get current parking details
-            try (Connection conn = org.parking.model.DatabaseManager.getConnection()) {
-                PreparedStatement ps = conn.prepareStatement(
-                    "SELECT slotId, entryTime FROM transactions WHERE plateNumber=? AND exitTime IS NULL ORDER BY entryTime DESC LIMIT 1"
-                );
-                ps.setString(1, plate);
-                ResultSet rs = ps.executeQuery();
-                
-                if (rs.next()) {
-                    res.put("slotId", rs.getInt("slotId"));
-                    res.put("entryTime", rs.getString("entryTime"));
-                    res.put("message", "Vehicle is currently parked in slot " + rs.getInt("slotId"));
-                }
-            } catch (SQLException e) {
-                res.put("message", "Error retrieving parking details");
-            }
+        if (session != null) {
+            res.put("slotId", session.getSlotId());
+            res.put("entryTime", session.getEntryTime());
+            res.put("message", "Vehicle is currently parked in slot " + session.getSlotId());
         } else {
             res.put("message", "Vehicle is not currently parked");
         }
@@ -487,21 +618,27 @@ public class ApiController {
     public ResponseEntity<Map<String, Object>> resetAllData() {
         Map<String, Object> res = new HashMap<>();
         
-        try (Connection conn = org.parking.model.DatabaseManager.getConnection()) {
-            // Clear all transactions
-            PreparedStatement clearTransactions = conn.prepareStatement("DELETE FROM transactions");
-            int deletedTransactions = clearTransactions.executeUpdate();
-            
-            // Reset all slots to available
-            PreparedStatement resetSlotsPs = conn.prepareStatement("UPDATE slots SET isAvailable = 1");
-            int resetSlotsCount = resetSlotsPs.executeUpdate();
+        try {
+            // Archived transactions go too, or totals and history would still count them
+            int[] counts = org.parking.model.TransactionArchive.clear(() -> org.parking.model.GatePipeline.repairAll(conn -> {
+                // Clear all transactions
+                PreparedStatement clearTransactions = conn.prepareStatement("DELETE FROM transactions");
+                int deleted = clearTransactions.executeUpdate();
+                org.parking.model.RollupDAO.clear(conn);
+                
+                // Reset all slots to available
+                PreparedStatement resetSlotsPs = conn.prepareStatement("UPDATE slots SET isAvailable = 1");
+                return new int[] {deleted, resetSlotsPs.executeUpdate()};
+            }));
+            int deletedTransactions = counts[0];
+            int resetSlotsCount = counts[1];
             
             res.put("success", true);
             res.put("message", "All data reset successfully");
             res.put("deletedTransactions", deletedTransactions);
             res.put("resetSlots", resetSlotsCount);
             
-        } catch (SQLException e) {
+        } catch (SQLException | java.io.IOException e) {
             res.put("success", false);
             res.put("message", "Error during reset: " + e.getMessage());
         }
@@ -509,39 +646,89 @@ public class ApiController {
         return ResponseEntity.ok(res);
     }
 
+    // Archive eligible closed transactions now instead of waiting for the next run (admin function)
+    @PostMapping("/debug/archive-now")
+    public ResponseEntity<Map<String, Object>> archiveNow() {
+        Map<String, Object> res = new HashMap<>();
+        
+        try {
+            int archived = org.parking.model.TransactionArchive.archive();
+            res.put("success", true);
+            res.put("message", "Archived " + archived + " closed transactions");
+            res.put("archive", org.parking.model.TransactionArchive.getStats());
+        } catch (SQLException | java.io.IOException e) {
+            res.put("success", false);
+            res.put("message", "Error archiving transactions: " + e.getMessage());
+        }
+        
+        return ResponseEntity.ok(res);
+    }
+
+    // Recompute the hourly and daily rollups from raw transactions (admin function)
+    @PostMapping("/admin/rebuild-rollups")
+    public ResponseEntity<Map<String, Object>> rebuildRollups() {
+        Map<String, Object> res = new HashMap<>();
+        
+        try {
+            int transactions = org.parking.model.RollupDAO.rebuild();
+            res.put("success", true);
+            res.put("message", "Rollups rebuilt from " + transactions + " transactions");
+        } catch (SQLException e) {
+            res.put("success", false);
+            res.put("message", "Error rebuilding rollups: " + e.getMessage());
+        }
+        
+        return ResponseEntity.ok(res);
+    }
+
     // Force release specific vehicle (admin function)
     @PostMapping("/debug/force-release/{plate}")
     public ResponseEntity<Map<String, Object>> forceReleaseVehicle(@PathVariable String plate) {
         Map<String, Object> res = new HashMap<>();
-        plate = plate.toUpperCase().trim();
+        plate = PlateCodec.normalize(plate);
         
-        try (Connection conn = org.parking.model.DatabaseManager.getConnection()) {
-            // Find all active transactions for this vehicle
-            PreparedStatement findPs = conn.prepareStatement(
-                "SELECT id, slotId FROM transactions WHERE plateNumber = ? AND exitTime IS NULL"
-            );
-            findPs.setString(1, plate);
-            ResultSet rs = findPs.executeQuery();
-            
-            int releasedSlots = 0;
-            while (rs.next()) {
-                int transactionId = rs.getInt("id");
-                int slotId = rs.getInt("slotId");
-                
-                // Close the transaction
-                PreparedStatement closePs = conn.prepareStatement(
-                    "UPDATE transactions SET exitTime = ?, payment_status = 'completed' WHERE id = ?"
+        try {
+            final String plateNumber = plate;
+            List<org.parking.model.TransactionDAO.ExitDetails> exits = new ArrayList<>();
+            List<Integer> released = org.parking.model.GatePipeline.repairPlate(plateNumber, conn -> {
+                // Find all active transactions for this vehicle
+                PreparedStatement findPs = conn.prepareStatement(
+                    "SELECT id, slotId, entryTime FROM transactions WHERE plateNumber = ? AND exitTime IS NULL"
                 );
-                closePs.setString(1, java.time.LocalDateTime.now().toString());
-                closePs.setInt(2, transactionId);
-                closePs.executeUpdate();
-                
-                // Release the slot
-                PreparedStatement releasePs = conn.prepareStatement("UPDATE slots SET isAvailable = 1 WHERE slotId = ?");
-                releasePs.setInt(1, slotId);
-                releasePs.executeUpdate();
+                findPs.setString(1, plateNumber);
+                ResultSet rs = findPs.executeQuery();
                 
-                releasedSlots++;
+                List<Integer> slotIds = new ArrayList<>();
+                while (rs.next()) {
+                    int transactionId = rs.getInt("id");
+                    int slotId = rs.getInt("slotId");
+                    
+                    // Close the transaction
+                    String exitTime = java.time.LocalDateTime.now().toString();
+                    PreparedStatement closePs = conn.prepareStatement(
+                        "UPDATE transactions SET exitTime = ?, payment_status = 'completed' WHERE id = ?"
+                    );
+                    closePs.setString(1, exitTime);
+                    closePs.setInt(2, transactionId);
+                    closePs.executeUpdate();
+                    exits.add(org.parking.model.RollupDAO.recordRepairedExit(conn, rs.getString("entryTime"), exitTime, null, null));
+                    
+                    // Release the slot
+                    PreparedStatement releasePs = conn.prepareStatement("UPDATE slots SET isAvailable = 1 WHERE slotId = ?");
+                    releasePs.setInt(1, slotId);
+                    releasePs.executeUpdate();
+                    
+                    slotIds.add(slotId);
+                }
+                return slotIds;
+            });
+            int releasedSlots = released.size();
+            if (releasedSlots > 0) {
+                // Only the freed slots change; the rest of the bitmap stays live
+                for (int slotId : released) {
+                    org.parking.model.SlotDAO.onSlotReleased(slotId);
+                }
+                exits.forEach(org.parking.model.LiveStatistics::recordExit);
             }
             
             if (releasedSlots > 0) {
@@ -565,7 +752,7 @@ public class ApiController {
     @PostMapping("/debug/fix-vehicle/{plate}")
     public ResponseEntity<Map<String, Object>> fixVehicleInconsistency(@PathVariable String plate) {
         Map<String, Object> res = new HashMap<>();
-        plate = plate.toUpperCase().trim();
+        plate = PlateCodec.normalize(plate);
         
         try (Connection conn = org.parking.model.DatabaseManager.getConnection()) {
             // Get all active transactions for this vehicle
@@ -586,21 +773,36 @@ public class ApiController {
             
             if (activeTransactions.size() > 1) {
                 // Keep the most recent transaction, close the others
-                for (int i = 1; i < activeTransactions.size(); i++) {
-                    int transactionId = (Integer) activeTransactions.get(i).get("id");
-                    int slotId = (Integer) activeTransactions.get(i).get("slotId");
-                    
-                    // Close the older transaction
-                    PreparedStatement updatePs = conn.prepareStatement(
-                        "UPDATE transactions SET exitTime = ?, duration_minutes = 0, cost = 0, payment_status = 'cancelled' WHERE id = ?"
-                    );
-                    updatePs.setString(1, java.time.LocalDateTime.now().toString());
-                    updatePs.setInt(2, transactionId);
-                    updatePs.executeUpdate();
-                    
-                    // Release the slot
-                    org.parking.model.SlotDAO.releaseSlot(slotId);
+                List<org.parking.model.TransactionDAO.ExitDetails> exits = new ArrayList<>();
+                List<Integer> released = org.parking.model.GatePipeline.repairPlate(plate, writeConn -> {
+                    List<Integer> slotIds = new ArrayList<>();
+                    for (int i = 1; i < activeTransactions.size(); i++) {
+                        int transactionId = (Integer) activeTransactions.get(i).get("id");
+                        int slotId = (Integer) activeTransactions.get(i).get("slotId");
+                        
+                        // Close the older transaction
+                        String exitTime = java.time.LocalDateTime.now().toString();
+                        PreparedStatement updatePs = writeConn.prepareStatement(
+                            "UPDATE transactions SET exitTime = ?, duration_minutes = 0, cost = 0, payment_status = 'cancelled' WHERE id = ?"
+                        );
+                        updatePs.setString(1, exitTime);
+                        updatePs.setInt(2, transactionId);
+                        updatePs.executeUpdate();
+                        exits.add(org.parking.model.RollupDAO.recordRepairedExit(writeConn,
+                            (String) activeTransactions.get(i).get("entryTime"), exitTime, 0L, 0.0));
+                        
+                        // Release the slot
+                        PreparedStatement releasePs = writeConn.prepareStatement("UPDATE slots SET isAvailable = 1 WHERE slotId = ?");
+                        releasePs.setInt(1, slotId);
+                        releasePs.executeUpdate();
+                        slotIds.add(slotId);
+                    }
+                    return slotIds;
+                });
+                for (int slotId : released) {
+                    org.parking.model.SlotDAO.onSlotReleased(slotId);
                 }
+                exits.forEach(org.parking.model.LiveStatistics::recordExit);
                 
                 res.put("success", true);
                 res.put("message", "Fixed inconsistency for " + plate + ". Kept most recent session, closed " + (activeTransactions.size() - 1) + " duplicate sessions.");
@@ -634,111 +836,272 @@ public class ApiController {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(res);
         }
         
-        plate = plate.toUpperCase().trim();
+        plate = PlateCodec.normalize(plate);
         
         try {
-            // Direct database approach to handle the release
-            try (Connection conn = org.parking.model.DatabaseManager.getConnection()) {
-                // Find active transactions for this vehicle
-                PreparedStatement findPs = conn.prepareStatement(
-                    "SELECT id, slotId FROM transactions WHERE plateNumber = ? AND exitTime IS NULL"
-                );
-                findPs.setString(1, plate);
-                ResultSet rs = findPs.executeQuery();
-                
-                if (!rs.next()) {
-                    res.put("success", false);
-                    res.put("message", "No active parking session found for " + plate + ". Vehicle needs to be checked in first.");
-                    return ResponseEntity.ok(res);
-                }
-                
-                // Get the first active transaction
-                int transactionId = rs.getInt("id");
-                int slotId = rs.getInt("slotId");
-                
-                // Close the transaction
-                PreparedStatement updatePs = conn.prepareStatement(
-                    "UPDATE transactions SET exitTime = ?, duration_minutes = 0, cost = 0, payment_status = 'completed' WHERE id = ?"
-                );
-                updatePs.setString(1, java.time.LocalDateTime.now().toString());
-                updatePs.setInt(2, transactionId);
-                updatePs.executeUpdate();
-                
-                // Release the slot
-                PreparedStatement releasePs = conn.prepareStatement("UPDATE slots SET isAvailable = 1 WHERE slotId = ?");
-                releasePs.setInt(1, slotId);
-                releasePs.executeUpdate();
-                
+            // Close the session and free its slot in one write
+            org.parking.model.GatePipeline.ExitResult result = org.parking.model.GatePipeline.exit(plate);
+            if (!describeExit(res, result, plate)) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(res);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            res.put("success", false);
+            res.put("message", "Error processing exit: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(res);
+        }
+        
+        return ResponseEntity.ok(res);
+    }
+
+    // Returns false for failures that should be reported as a server error
+    private boolean describeExit(Map<String, Object> res, org.parking.model.GatePipeline.ExitResult result, String plate) {
+        switch (result.getStatus()) {
+            case EXITED:
                 res.put("success", true);
-                res.put("message", "Vehicle " + plate + " released from slot " + slotId + " successfully");
-                res.put("slotId", slotId);
-                return ResponseEntity.ok(res);
-            } catch (SQLException e) {
-                // If direct approach fails, fall back to original method
-                e.printStackTrace();
+                res.put("message", "Vehicle " + plate + " released from slot " + result.getSlotId() + " successfully");
+                res.put("slotId", result.getSlotId());
+                res.put("durationMinutes", result.getDetails().getDurationMinutes());
+                res.put("cost", result.getDetails().getCost());
+                org.parking.model.NotificationFeed.publish("exit", "Vehicle " + plate + " left slot " + result.getSlotId(),
+                    plate, result.getSlotId());
+                return true;
+            case NOT_PARKED:
+                res.put("success", false);
+                res.put("message", "No active parking session found for " + plate + ". Vehicle needs to be checked in first.");
+                return true;
+            default:
+                res.put("success", false);
+                res.put("message", "Error processing exit for " + plate);
+                return false;
+        }
+    }
+
+    // Gate camera scan: decodes the QR code in an uploaded frame and then exits the plate
+    // if it is parked, or parks it in the first free slot if not, as one atomic step
+    @PostMapping(value = "/gate/scan", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<Map<String, Object>> scanGate(@RequestParam("frame") MultipartFile frame) {
+        long start = System.nanoTime();
+        Map<String, Object> res = new HashMap<>();
+        HttpStatus status = HttpStatus.OK;
+        try {
+            long decodeStart = System.nanoTime();
+            String decoded;
+            try (java.io.InputStream in = frame.getInputStream()) {
+                decoded = controller.QRCodeScanner.decode(in);
             }
-            
-            // Fallback to original method
-            boolean exitLogged = org.parking.model.TransactionDAO.logExit(plate);
-            
-            if (exitLogged) {
-                // Find and release the slot
-                try (Connection conn = org.parking.model.DatabaseManager.getConnection()) {
-                    PreparedStatement ps = conn.prepareStatement(
-                        "SELECT slotId FROM transactions WHERE plateNumber=? AND exitTime IS NOT NULL ORDER BY exitTime DESC LIMIT 1"
-                    );
-                    ps.setString(1, plate);
-                    ResultSet rs = ps.executeQuery();
-                    
-                    if (rs.next()) {
-                        int slotId = rs.getInt("slotId");
-                        boolean released = org.parking.model.SlotDAO.releaseSlot(slotId);
-                        
-                        if (released) {
-                            res.put("success", true);
-                            res.put("message", "Vehicle " + plate + " released from slot " + slotId + " successfully");
-                            res.put("slotId", slotId);
-                        } else {
-                            res.put("success", false);
-                            res.put("message", "Failed to release slot " + slotId);
-                        }
-                    } else {
-                        res.put("success", true);
-                        res.put("message", "Vehicle " + plate + " exit logged successfully");
+            res.put("decodeMicros", (System.nanoTime() - decodeStart) / 1000);
+            String plate = decoded == null || decoded.isBlank() ? null : scannedPlate(decoded, res);
+            if (decoded == null || decoded.isBlank()) {
+                res.put("success", false);
+                res.put("message", "No QR code found in frame");
+                status = HttpStatus.UNPROCESSABLE_ENTITY;
+            } else if (plate == null) {
+                status = HttpStatus.FORBIDDEN;
+            } else {
+                res.put("plateNumber", plate);
+                org.parking.model.GatePipeline.ScanResult result = org.parking.model.GatePipeline.toggle(plate);
+                if (result.isEntry()) {
+                    res.put("action", "entry");
+                    describeEntry(res, result.getEntry(), plate, null);
+                } else {
+                    res.put("action", "exit");
+                    if (!describeExit(res, result.getExit(), plate)) {
+                        status = HttpStatus.INTERNAL_SERVER_ERROR;
                     }
                 }
-            } else {
+            }
+        } catch (IllegalArgumentException e) {
+            res.put("success", false);
+            res.put("message", e.getMessage());
+            status = HttpStatus.BAD_REQUEST;
+        } catch (Exception e) {
+            e.printStackTrace();
+            res.put("success", false);
+            res.put("message", "Error processing scan: " + e.getMessage());
+            status = HttpStatus.INTERNAL_SERVER_ERROR;
+        }
+        long elapsed = System.nanoTime() - start;
+        controller.QRCodeScanner.recordScan(elapsed);
+        res.put("totalMicros", elapsed / 1000);
+        return ResponseEntity.status(status).body(res);
+    }
+
+    // The plate a scanned QR code admits. Signed pass tokens are checked in memory, with no
+    // database lookup, and their pass details added to res; bare plates are accepted
+    // unless parking.pass.required is set. Returns null, with the refusal in res, when the
+    // code must not open the gate.
+    private String scannedPlate(String decoded, Map<String, Object> res) {
+        if (!org.parking.util.PassToken.looksLikeToken(decoded)) {
+            if (org.parking.util.PassToken.isRequired()) {
                 res.put("success", false);
-                res.put("message", "No active parking session found for " + plate);
+                res.put("passStatus", "MISSING");
+                res.put("message", "This gate only accepts signed passes");
+                return null;
+            }
+            return PlateCodec.normalize(decoded);
+        }
+        org.parking.util.PassToken.Pass pass = org.parking.util.PassToken.verify(decoded);
+        res.put("passStatus", pass.getStatus().name());
+        if (!pass.isValid()) {
+            res.put("success", false);
+            if (pass.getStatus() == org.parking.util.PassToken.Status.EXPIRED) {
+                res.put("message", "Pass for " + pass.getPlateNumber() + " has expired");
+            } else if (pass.getStatus() == org.parking.util.PassToken.Status.NOT_YET_VALID) {
+                res.put("message", "Pass for " + pass.getPlateNumber() + " is not valid yet");
+            } else {
+                res.put("message", "Invalid pass");
             }
+            return null;
+        }
+        res.put("passType", pass.getType().name());
+        res.put("passValidUntil", java.time.Instant.ofEpochSecond(pass.getValidUntil()).toString());
+        return pass.getPlateNumber();
+    }
+
+    // Multi-lane gate scan: every QR code in one frame is decoded and toggled, so a
+    // camera covering several lanes needs one upload per frame rather than one per car.
+    // Each result carries the code's bounding box in frame pixels for lane matching.
+    @PostMapping(value = "/gate/scan/multi", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<Map<String, Object>> scanGateMulti(@RequestParam("frame") MultipartFile frame) {
+        long start = System.nanoTime();
+        Map<String, Object> res = new HashMap<>();
+        HttpStatus status = HttpStatus.OK;
+        try {
+            controller.QRCodeScanner.Frame decoded;
+            try (java.io.InputStream in = frame.getInputStream()) {
+                decoded = controller.QRCodeScanner.decodeAll(in);
+            }
+            res.put("decodeMicros", decoded.getDecodeNanos() / 1000);
+            res.put("regions", decoded.getRegions());
+
+            List<Map<String, Object>> results = new ArrayList<>();
+            Set<String> plates = new HashSet<>();
+            for (controller.QRCodeScanner.Found code : decoded.getCodes()) {
+                if (code.getText().isBlank()) {
+                    continue;
+                }
+                Map<String, Object> item = new HashMap<>();
+                item.put("box", Map.of("x", code.getX(), "y", code.getY(),
+                    "width", code.getWidth(), "height", code.getHeight()));
+                String plate = scannedPlate(code.getText(), item);
+                if (plate == null) {
+                    results.add(item);
+                    continue;
+                }
+                if (!plates.add(plate)) {
+                    continue; // Same plate printed twice in view; toggling again would undo it
+                }
+                item.put("plateNumber", plate);
+                try {
+                    org.parking.model.GatePipeline.ScanResult result = org.parking.model.GatePipeline.toggle(plate);
+                    if (result.isEntry()) {
+                        item.put("action", "entry");
+                        describeEntry(item, result.getEntry(), plate, null);
+                    } else {
+                        item.put("action", "exit");
+                        describeExit(item, result.getExit(), plate);
+                    }
+                } catch (Exception e) {
+                    // One lane failing must not lose the others in the same frame
+                    e.printStackTrace();
+                    item.put("success", false);
+                    item.put("message", "Error processing scan for " + plate);
+                }
+                results.add(item);
+            }
+            res.put("results", results);
+            res.put("count", results.size());
+            res.put("success", !results.isEmpty());
+            if (results.isEmpty()) {
+                res.put("message", "No QR code found in frame");
+                status = HttpStatus.UNPROCESSABLE_ENTITY;
+            }
+        } catch (IllegalArgumentException e) {
+            res.put("success", false);
+            res.put("message", e.getMessage());
+            status = HttpStatus.BAD_REQUEST;
         } catch (Exception e) {
             e.printStackTrace();
             res.put("success", false);
-            res.put("message", "Error processing exit: " + e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(res);
+            res.put("message", "Error processing scan: " + e.getMessage());
+            status = HttpStatus.INTERNAL_SERVER_ERROR;
         }
-        
-        return ResponseEntity.ok(res);
+        long elapsed = System.nanoTime() - start;
+        controller.QRCodeScanner.recordScan(elapsed);
+        res.put("totalMicros", elapsed / 1000);
+        return ResponseEntity.status(status).body(res);
     }
 
     // Get transaction history for plate
     @GetMapping("/history/{plate}")
-    public ResponseEntity<Map<String, Object>> getHistory(@PathVariable String plate) {
-        Map<String, Object> res = new HashMap<>();
-        var hist = org.parking.model.TransactionDAO.getHistory(plate);
-        res.put("history", hist);
-        res.put("count", hist.size());
-        return ResponseEntity.ok(res);
+    public ResponseEntity<Map<String, Object>> getHistory(@PathVariable String plate,
+                                                          @RequestParam(required = false) String cursor,
+                                                          @RequestParam(defaultValue = "100") int limit) {
+        try {
+            return ResponseEntity.ok(describePage("history",
+                org.parking.model.TransactionDAO.getHistory(plate, cursor, limit)));
+        } catch (IllegalArgumentException e) {
+            return invalidCursor();
+        }
     }
 
-    // Get all transactions
+    // Get all transactions, newest first; pass nextCursor back to page further
     @GetMapping("/transactions")
-    public ResponseEntity<Map<String, Object>> getAllTransactions() {
+    public ResponseEntity<Map<String, Object>> getAllTransactions(@RequestParam(required = false) String cursor,
+                                                                  @RequestParam(defaultValue = "100") int limit) {
+        try {
+            return ResponseEntity.ok(describePage("transactions",
+                org.parking.model.TransactionDAO.getAllTransactions(cursor, limit)));
+        } catch (IllegalArgumentException e) {
+            return invalidCursor();
+        }
+    }
+
+    // Stream all matching transactions as CSV or NDJSON, optionally gzipped
+    @GetMapping("/transactions/export")
+    public ResponseEntity<?> exportTransactions(@RequestParam(defaultValue = "csv") String format,
+                                                @RequestParam(required = false) String from,
+                                                @RequestParam(required = false) String to,
+                                                @RequestParam(required = false) Integer slotId,
+                                                @RequestParam(defaultValue = "false") boolean gzip) {
+        org.parking.model.TransactionExport export;
+        try {
+            export = new org.parking.model.TransactionExport(format, from, to, slotId, gzip);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> res = new HashMap<>();
+            res.put("success", false);
+            res.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(res);
+        }
+        
+        StreamingResponseBody body = out -> {
+            try {
+                export.writeTo(out);
+            } catch (SQLException e) {
+                throw new java.io.IOException("Export failed", e);
+            }
+        };
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(export.getContentType()))
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + export.getFileName() + "\"")
+            .body(body);
+    }
+
+    private Map<String, Object> describePage(String key, org.parking.model.TransactionDAO.Page page) {
         Map<String, Object> res = new HashMap<>();
-        var transactions = org.parking.model.TransactionDAO.getAllTransactions();
-        res.put("transactions", transactions);
-        res.put("count", transactions.size());
-        return ResponseEntity.ok(res);
+        res.put(key, page.getTransactions());
+        res.put("count", page.getTransactions().size());
+        res.put("nextCursor", page.getNextCursor());
+        res.put("hasMore", page.getNextCursor() != null);
+        return res;
+    }
+
+    private ResponseEntity<Map<String, Object>> invalidCursor() {
+        Map<String, Object> res = new HashMap<>();
+        res.put("success", false);
+        res.put("message", "Invalid cursor");
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(res);
     }
 
     // Get user profile
@@ -781,35 +1144,118 @@ public class ApiController {
     }
 
     // Download QR for a plate (returns image bytes)
+    // Rendered in memory and cached; the same plate and size always give the same bytes,
+    // so browsers may keep the image a day and revalidate with If-None-Match (304)
     @GetMapping(value = "/qr/{plate}", produces = MediaType.IMAGE_PNG_VALUE)
-    public ResponseEntity<byte[]> getQr(@PathVariable String plate) {
+    public ResponseEntity<byte[]> getQr(@PathVariable String plate,
+                                        @RequestParam(defaultValue = "300") int size) {
         try {
-            // generate QR to temp file
-            String tmp = System.getProperty("java.io.tmpdir") + "/" + plate + "_qr.png";
-            controller.QRCodeGenerator.generateQRCode(plate, tmp, 300, 300);
-            byte[] bytes = Files.readAllBytes(Paths.get(tmp));
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.IMAGE_PNG);
-            headers.setContentLength(bytes.length);
-            return new ResponseEntity<>(bytes, headers, HttpStatus.OK);
+            int pixels = Math.max(64, Math.min(size, 1024));
+            controller.QRCodeCache.Image image = controller.QRCodeCache.get(plate, pixels, "PNG");
+            return ResponseEntity.ok()
+                .contentType(MediaType.IMAGE_PNG)
+                .contentLength(image.getBytes().length)
+                .cacheControl(CacheControl.maxAge(1, TimeUnit.DAYS).cachePublic())
+                .eTag(image.getEtag())
+                .body(image.getBytes());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
+    // Signed pass QR for a plate, valid from now for the given number of days. Each call
+    // issues a new token, so responses are not cacheable.
+    @GetMapping(value = "/qr/pass/{plate}", produces = MediaType.IMAGE_PNG_VALUE)
+    public ResponseEntity<byte[]> getPassQr(@PathVariable String plate,
+                                            @RequestParam(defaultValue = "MONTHLY") String type,
+                                            @RequestParam(defaultValue = "30") int days,
+                                            @RequestParam(defaultValue = "300") int size) {
+        try {
+            org.parking.util.PassToken.PassType passType =
+                org.parking.util.PassToken.PassType.valueOf(type.trim().toUpperCase());
+            if (days < 1 || days > 366) {
+                return ResponseEntity.badRequest().build();
+            }
+            long validFrom = System.currentTimeMillis() / 1000;
+            long validUntil = validFrom + TimeUnit.DAYS.toSeconds(days);
+            int pixels = Math.max(64, Math.min(size, 1024));
+            byte[] png = controller.QRCodeGenerator.generatePassQRCode(plate, passType, validFrom, validUntil, pixels, "PNG");
+            return ResponseEntity.ok()
+                .contentType(MediaType.IMAGE_PNG)
+                .contentLength(png.length)
+                .cacheControl(CacheControl.noStore())
+                .header("X-Pass-Valid-Until", java.time.Instant.ofEpochSecond(validUntil).toString())
+                .body(png);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            // No pass keys configured
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    // Bulk QR codes as one ZIP of <plate>.png files, for printing permits. Takes a list of
+    // plates, or a from/to range of vehicle registrations when no plates are given.
+    @PostMapping(value = "/qr/bulk", produces = "application/zip")
+    public ResponseEntity<?> getQrBulk(@Valid @RequestBody BulkQrRequest request, BindingResult bindingResult) {
+        Map<String, Object> res = new HashMap<>();
+        if (bindingResult.hasErrors()) {
+            List<String> errors = bindingResult.getFieldErrors().stream()
+                    .map(error -> error.getDefaultMessage())
+                    .collect(Collectors.toList());
+            res.put("success", false);
+            res.put("message", "Validation failed");
+            res.put("errors", errors);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).contentType(MediaType.APPLICATION_JSON).body(res);
+        }
+
+        Set<String> plates = new LinkedHashSet<>();
+        try {
+            if (request.getPlates() != null && !request.getPlates().isEmpty()) {
+                for (String plate : request.getPlates()) {
+                    if (plate != null && !plate.isBlank()) {
+                        plates.add(PlateCodec.normalize(plate));
+                    }
+                }
+            } else if (request.getFrom() != null || request.getTo() != null) {
+                plates.addAll(org.parking.model.VehicleDAO.getRegisteredPlates(request.getFrom(), request.getTo(), 5000));
+            }
+        } catch (IllegalArgumentException | SQLException e) {
+            res.put("success", false);
+            res.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).contentType(MediaType.APPLICATION_JSON).body(res);
+        }
+        if (plates.isEmpty()) {
+            res.put("success", false);
+            res.put("message", "No plates given or registered in that range");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).contentType(MediaType.APPLICATION_JSON).body(res);
+        }
+
+        int size = request.getSize() != null ? Math.max(64, Math.min(request.getSize(), 1024)) : 300;
+        controller.QRCodeBatch batch = new controller.QRCodeBatch(new ArrayList<>(plates), size);
+        StreamingResponseBody body = batch::writeTo;
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType("application/zip"))
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"qr-codes.zip\"")
+            .body(body);
+    }
+
     // Get analytics data
     @GetMapping("/analytics")
     public ResponseEntity<Map<String, Object>> getAnalytics() {
         Map<String, Object> res = new HashMap<>();
         List<Map<String, Object>> stats = new ArrayList<>();
         
-        // Get real statistics from database
-        List<Integer> availableSlots = org.parking.model.SlotDAO.getAvailableSlots();
+        // Slot counts come from the in-memory occupancy, the rest from the live counters
+        int availableSlots = org.parking.model.SlotDAO.getAvailableSlotCount();
         int totalSlots = org.parking.model.SlotDAO.getTotalSlots();
-        int occupiedSlots = totalSlots - availableSlots.size();
+        int occupiedSlots = totalSlots - availableSlots;
         Map<String, Object> analyticsData = org.parking.model.TransactionDAO.getAnalyticsData();
         
-        stats.add(Map.of("label", "Available Slots", "value", availableSlots.size()));
+        stats.add(Map.of("label", "Available Slots", "value", availableSlots));
         stats.add(Map.of("label", "Total Slots", "value", totalSlots));
         stats.add(Map.of("label", "Occupied Slots", "value", occupiedSlots));
         stats.add(Map.of("label", "Total Vehicles Today", "value", analyticsData.get("todayVehicles")));
@@ -864,15 +1310,15 @@ public class ApiController {
     @GetMapping("/dashboard/stats")
     public ResponseEntity<Map<String, Object>> getDashboardStats() {
         Map<String, Object> res = new HashMap<>();
-        List<Integer> availableSlots = org.parking.model.SlotDAO.getAvailableSlots();
+        int availableSlots = org.parking.model.SlotDAO.getAvailableSlotCount();
         int totalSlots = org.parking.model.SlotDAO.getTotalSlots();
-        int occupiedSlots = totalSlots - availableSlots.size();
+        int occupiedSlots = totalSlots - availableSlots;
         
-        // Calculate real statistics
+        // Live counters, maintained on each entry and exit
         Map<String, Object> todayStats = org.parking.model.TransactionDAO.getTodayStatistics();
         
         res.put("totalSlots", totalSlots);
-        res.put("availableSlots", availableSlots.size());
+        res.put("availableSlots", availableSlots);
         res.put("occupiedSlots", occupiedSlots);
         res.put("occupancyRate", totalSlots > 0 ? (double) occupiedSlots / totalSlots * 100 : 0);
         res.put("todayRevenue", todayStats.get("revenue"));
@@ -884,15 +1330,33 @@ public class ApiController {
     }
 
     // Notifications
+    // Recent gate and admin events, oldest first. With since=N only events after N come
+    // back; with wait=S as well, an empty result is held open up to S seconds (max 60)
+    // until something is published. Clients pass the returned lastSequence as since.
     @GetMapping("/notifications")
-    public ResponseEntity<Map<String, Object>> getNotifications() {
-        Map<String, Object> res = new HashMap<>();
-        List<Map<String, Object>> notifications = List.of(
-            Map.of("id", 1, "message", "Vehicle ABC123 entered", "time", "2 minutes ago", "type", "entry"),
-            Map.of("id", 2, "message", "Slot 5 released", "time", "5 minutes ago", "type", "exit"),
-            Map.of("id", 3, "message", "New user registered", "time", "10 minutes ago", "type", "user")
-        );
-        res.put("notifications", notifications);
-        return ResponseEntity.ok(res);
+    public DeferredResult<ResponseEntity<Map<String, Object>>> getNotifications(@RequestParam(required = false) Long since,
+                                                                                @RequestParam(defaultValue = "50") int limit,
+                                                                                @RequestParam(defaultValue = "0") int wait) {
+        int pageSize = Math.max(1, Math.min(limit, 500));
+        long waitSeconds = Math.max(0, Math.min(wait, 60));
+        // On timeout the reply is whatever arrived by then, usually nothing
+        DeferredResult<ResponseEntity<Map<String, Object>>> result = new DeferredResult<>(
+            TimeUnit.SECONDS.toMillis(Math.max(waitSeconds, 1)),
+            () -> ResponseEntity.ok(org.parking.model.NotificationFeed.since(since, pageSize)));
+
+        Map<String, Object> res = org.parking.model.NotificationFeed.since(since, pageSize);
+        if (since == null || waitSeconds == 0 || !((List<?>) res.get("notifications")).isEmpty()) {
+            result.setResult(ResponseEntity.ok(res));
+            return result;
+        }
+
+        Runnable waiter = () -> result.setResult(ResponseEntity.ok(org.parking.model.NotificationFeed.since(since, pageSize)));
+        result.onCompletion(() -> org.parking.model.NotificationFeed.removeWaiter(waiter));
+        org.parking.model.NotificationFeed.addWaiter(waiter);
+        // Published between the read above and the waiter going in
+        if (org.parking.model.NotificationFeed.getLastSequence() > (Long) res.get("lastSequence")) {
+            waiter.run();
+        }
+        return result;
     }
 }
@@ -0,0 +1,136 @@
+package controller;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+// Renders many QR codes in parallel and streams them into a ZIP as each one finishes.
+// All batches share one ForkJoin pool sized to the machine's cores, so total render
+// throughput scales with cores while concurrent batches cannot oversubscribe them.
+// Each batch keeps at most WINDOW_PER_CORE renders per core in flight, so peak memory
+// is a few images per core however many plates are asked for. PNGs are already
+// deflated, so entries are STORED rather than compressed a second time.
+public class QRCodeBatch {
+    private static final int WINDOW_PER_CORE = 2;
+    private static final ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    private final List<String> plates;
+    private final int size;
+
+    public QRCodeBatch(List<String> plates, int size) {
+        this.plates = plates;
+        this.size = size;
+    }
+
+    private static final class Rendered {
+        final String plate;
+        final byte[] png;
+        final String error;
+
+        Rendered(String plate, byte[] png, String error) {
+            this.plate = plate;
+            this.png = png;
+            this.error = error;
+        }
+    }
+
+    // Returns the number of images written. Plates that fail to encode are listed in
+    // errors.txt at the end of the archive instead of failing the whole batch.
+    public int writeTo(OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out);
+        CompletionService<Rendered> renders = new ExecutorCompletionService<>(pool);
+        Queue<Future<Rendered>> inFlight = new ArrayDeque<>();
+        Iterator<String> pending = plates.iterator();
+        int window = pool.getParallelism() * WINDOW_PER_CORE;
+        List<String> errors = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        int written = 0;
+
+        try {
+            while (inFlight.size() < window && pending.hasNext()) {
+                inFlight.add(submit(renders, pending.next()));
+            }
+            while (!inFlight.isEmpty()) {
+                Future<Rendered> done = renders.take();
+                inFlight.remove(done);
+                if (pending.hasNext()) {
+                    inFlight.add(submit(renders, pending.next()));
+                }
+                Rendered rendered = done.get();
+                if (rendered.png == null) {
+                    errors.add(rendered.plate + ": " + rendered.error);
+                    continue;
+                }
+                writeStored(zip, entryName(rendered.plate, names) + ".png", rendered.png);
+                written++;
+            }
+            if (!errors.isEmpty()) {
+                writeStored(zip, "errors.txt", (String.join("\n", errors) + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+            zip.finish();
+            zip.flush();
+            return written;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("QR batch interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("QR batch failed", e.getCause());
+        } finally {
+            // Client gone or failure: stop rendering images nobody will read
+            for (Future<Rendered> future : inFlight) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private Future<Rendered> submit(CompletionService<Rendered> renders, String plate) {
+        return renders.submit(() -> {
+            try {
+                return new Rendered(plate, QRCodeGenerator.generateQRCode(plate, size, size, "PNG"), null);
+            } catch (Exception e) {
+                return new Rendered(plate, null, e.getMessage());
+            }
+        });
+    }
+
+    private static void writeStored(ZipOutputStream zip, String name, byte[] bytes) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        ZipEntry entry = new ZipEntry(name);
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(bytes.length);
+        entry.setCompressedSize(bytes.length);
+        entry.setCrc(crc.getValue());
+        zip.putNextEntry(entry);
+        zip.write(bytes);
+        zip.closeEntry();
+        // Each image goes to the client as soon as it is ready
+        zip.flush();
+    }
+
+    // Plates are user input; keep entry names to safe file-name characters, and unique
+    // when two plates differ only in characters that were replaced
+    private static String entryName(String plate, Set<String> names) {
+        String base = plate.replaceAll("[^A-Za-z0-9_-]", "_");
+        String name = base;
+        for (int n = 2; !names.add(name); n++) {
+            name = base + "-" + n;
+        }
+        return name;
+    }
+}
@@ -0,0 +1,120 @@
+package controller;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Rendered QR images, least recently used first out once the cache holds more than
+// MAX_BYTES of image data or MAX_ENTRIES images. Keyed by content, size and format,
+// which fully determine the output, so entries never go stale. Rendering happens
+// outside the lock; two first requests for the same key may both render, and the
+// second simply keeps the first's bytes.
+public class QRCodeCache {
+    public static final class Image {
+        private final byte[] bytes;
+        private final String etag;
+
+        Image(byte[] bytes, String etag) {
+            this.bytes = bytes;
+            this.etag = etag;
+        }
+
+        public byte[] getBytes() { return bytes; }
+        // Quoted, ready for the ETag header
+        public String getEtag() { return etag; }
+    }
+
+    private static final long MAX_BYTES = 16L * 1024 * 1024;
+    private static final int MAX_ENTRIES = 10_000;
+
+    private static final LinkedHashMap<String, Image> images = new LinkedHashMap<>(256, 0.75f, true);
+    private static long totalBytes;
+
+    // Metrics
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+    private static final LongAdder evictions = new LongAdder();
+
+    public static Image get(String content, int size, String format) throws Exception {
+        String key = format + ':' + size + ':' + content;
+        synchronized (images) {
+            Image cached = images.get(key);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+        }
+        misses.increment();
+
+        byte[] bytes = QRCodeGenerator.generateQRCode(content, size, size, format);
+        Image image = new Image(bytes, etag(bytes));
+        synchronized (images) {
+            Image raced = images.putIfAbsent(key, image);
+            if (raced != null) {
+                return raced;
+            }
+            totalBytes += bytes.length;
+            Iterator<Image> eldest = images.values().iterator();
+            while ((totalBytes > MAX_BYTES || images.size() > MAX_ENTRIES) && eldest.hasNext()) {
+                Image evicted = eldest.next();
+                if (evicted == image) {
+                    break; // Never evict what we are about to return
+                }
+                totalBytes -= evicted.bytes.length;
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+        return image;
+    }
+
+    private static String etag(byte[] bytes) throws NoSuchAlgorithmException {
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+        StringBuilder tag = new StringBuilder(34).append('"');
+        for (int i = 0; i < 16; i++) {
+            tag.append(Character.forDigit((digest[i] >> 4) & 0xF, 16)).append(Character.forDigit(digest[i] & 0xF, 16));
+        }
+        return tag.append('"').toString();
+    }
+
+    public static long getHits() {
+        return hits.sum();
+    }
+
+    public static long getMisses() {
+        return misses.sum();
+    }
+
+    public static long getEvictions() {
+        return evictions.sum();
+    }
+
+    public static int size() {
+        synchronized (images) {
+            return images.size();
+        }
+    }
+
+    public static long getBytes() {
+        synchronized (images) {
+            return totalBytes;
+        }
+    }
+
+    public static Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        long hitCount = hits.sum();
+        long lookups = hitCount + misses.sum();
+        stats.put("entries", size());
+        stats.put("bytes", getBytes());
+        stats.put("hits", hitCount);
+        stats.put("misses", misses.sum());
+        stats.put("evictions", evictions.sum());
+        stats.put("hitRate", lookups > 0 ? Math.round(hitCount * 1000.0 / lookups) / 1000.0 : 0);
+        return stats;
+    }
+}
@@ -27,6 +27,25 @@ public class QRCodeGenerator {
         }
     }
 
+    // Render straight to encoded image bytes, for responses that never touch disk
+    public static byte[] generateQRCode(String data, int width, int height, String format) throws Exception {
+        try {
+            BitMatrix matrix = new MultiFormatWriter().encode(data, BarcodeFormat.QR_CODE, width, height);
+            java.io.ByteArrayOutputStream out = new java.io.ByteArrayOutputStream(1024);
+            MatrixToImageWriter.writeToStream(matrix, format, out);
+            return out.toByteArray();
+        } catch (Exception e) {
+            throw new Exception("Failed to generate QR code: " + e.getMessage(), e);
+        }
+    }
+
+    // A signed pass for the plate rather than the bare plate, so gates can check it
+    // offline; validFrom and validUntil are epoch seconds
+    public static byte[] generatePassQRCode(String plateNumber, org.parking.util.PassToken.PassType type,
+                                            long validFrom, long validUntil, int size, String format) throws Exception {
+        return generateQRCode(org.parking.util.PassToken.issue(plateNumber, type, validFrom, validUntil), size, size, format);
+    }
+
     // Overload for default size
     public static void generateQRCode(String data, String filePath) throws Exception {
         generateQRCode(data, filePath, 200, 200);
@@ -0,0 +1,372 @@
+package controller;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.ReaderException;
+import com.google.zxing.Result;
+import com.google.zxing.ResultPoint;
+import com.google.zxing.client.j2se.BufferedImageLuminanceSource;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.multi.qrcode.QRCodeMultiReader;
+import com.google.zxing.qrcode.QRCodeReader;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Server-side decoding of gate camera frames. Frames are shrunk to at most MAX_SIDE
+// pixels on the long side and converted to grayscale in one draw, which is all the
+// binarizer looks at anyway. The centre of the frame, where a presented code almost
+// always is, is tried first with the fast path; only a miss pays for the whole frame
+// with TRY_HARDER. QRCodeReader keeps decoder state and is not thread-safe, so
+// readers are pooled rather than created per frame or shared.
+// Uploads are sized from their image header before any pixels are decoded: frames
+// over the configured pixel limit are refused, and large ones are subsampled while
+// they are read, so the full-resolution raster is never allocated.
+// Multi-lane regions run on the scanner's own small pool, apart from bulk QR printing,
+// so a large print job cannot hold up a car at the gate. When that pool is saturated
+// the request thread decodes its regions itself rather than queueing behind others.
+public class QRCodeScanner {
+    private static final int MAX_SIDE = 800;
+    // Multi-lane frames keep more resolution, since each code covers less of the frame
+    private static final int MULTI_MAX_SIDE = 1600;
+    private static final double TILE_OVERLAP = 0.25;
+    private static final double CENTRE_FRACTION = 0.7;
+    // The smallest QR code is 21 modules across, so a smaller centre cannot hold one
+    private static final int MIN_CENTRE_SIDE = 21;
+    private static volatile long maxFramePixels = 40_000_000L;
+    private static volatile ThreadPoolExecutor regionPool =
+        createRegionPool(Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+    private static final BlockingQueue<QRCodeReader> readers =
+        new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors() * 2);
+    private static final BlockingQueue<QRCodeMultiReader> multiReaders =
+        new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors() * 2);
+
+    // One code found in a frame; the box is in original frame pixels and spans the
+    // code's finder patterns
+    public static final class Found {
+        private final String text;
+        private final int x;
+        private final int y;
+        private final int width;
+        private final int height;
+
+        Found(String text, int x, int y, int width, int height) {
+            this.text = text;
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+        }
+
+        public String getText() { return text; }
+        public int getX() { return x; }
+        public int getY() { return y; }
+        public int getWidth() { return width; }
+        public int getHeight() { return height; }
+    }
+
+    public static final class Frame {
+        private final List<Found> codes;
+        private final int regions;
+        private final long decodeNanos;
+
+        Frame(List<Found> codes, int regions, long decodeNanos) {
+            this.codes = codes;
+            this.regions = regions;
+            this.decodeNanos = decodeNanos;
+        }
+
+        // Left to right across the frame
+        public List<Found> getCodes() { return codes; }
+        public int getRegions() { return regions; }
+        public long getDecodeNanos() { return decodeNanos; }
+    }
+
+    private static final Map<DecodeHintType, Object> FAST_HINTS = new EnumMap<>(DecodeHintType.class);
+    private static final Map<DecodeHintType, Object> HARD_HINTS = new EnumMap<>(DecodeHintType.class);
+
+    static {
+        FAST_HINTS.put(DecodeHintType.POSSIBLE_FORMATS, List.of(BarcodeFormat.QR_CODE));
+        HARD_HINTS.putAll(FAST_HINTS);
+        HARD_HINTS.put(DecodeHintType.TRY_HARDER, Boolean.TRUE);
+    }
+
+    // Metrics
+    private static final LongAdder decodes = new LongAdder();
+    private static final LongAdder decodeFailures = new LongAdder();
+    private static final LongAdder decodeNanosTotal = new LongAdder();
+    private static final LongAdder scans = new LongAdder();
+    private static final LongAdder scanNanosTotal = new LongAdder();
+    private static final LongAdder oversizedFrames = new LongAdder();
+
+    // regionThreads of 0 or less uses half the cores
+    public static synchronized void configure(long maxPixels, int regionThreads) {
+        maxFramePixels = Math.max(1, maxPixels);
+        int threads = regionThreads > 0 ? regionThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        // The old pool is left to time its threads out: shut down, it would silently drop
+        // regions a scan in flight hands it through CallerRunsPolicy
+        regionPool = createRegionPool(threads);
+    }
+
+    private static ThreadPoolExecutor createRegionPool(int threads) {
+        AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(threads * 4), r -> {
+                Thread t = new Thread(r, "qr-scan-" + count.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }, new ThreadPoolExecutor.CallerRunsPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    // Returns the decoded text, or null when the frame holds no readable QR code.
+    // Throws IllegalArgumentException when the bytes are not an image ImageIO knows, or
+    // the frame is over the pixel limit.
+    public static String decode(InputStream frame) throws IOException {
+        long start = System.nanoTime();
+        try {
+            BufferedImage gray = prepare(read(frame, MAX_SIDE).image, MAX_SIDE);
+
+            int side = (int) (Math.min(gray.getWidth(), gray.getHeight()) * CENTRE_FRACTION);
+            String text = null;
+            if (side >= MIN_CENTRE_SIDE) {
+                BufferedImage centre = gray.getSubimage((gray.getWidth() - side) / 2, (gray.getHeight() - side) / 2, side, side);
+                text = tryDecode(centre, FAST_HINTS);
+            }
+            if (text == null) {
+                text = tryDecode(gray, HARD_HINTS);
+            }
+            if (text == null) {
+                decodeFailures.increment();
+            }
+            return text;
+        } finally {
+            decodes.increment();
+            decodeNanosTotal.add(System.nanoTime() - start);
+        }
+    }
+
+    // Every code in the frame. The whole frame and a grid of overlapping tiles are each
+    // searched with QRCodeMultiReader in parallel; tiles find codes too small to survive
+    // the whole-frame pass, the whole frame finds codes cut by tile edges. A code seen
+    // by several regions is reported once.
+    public static Frame decodeAll(InputStream frame) throws IOException {
+        long start = System.nanoTime();
+        try {
+            Upload upload = read(frame, MULTI_MAX_SIDE);
+            BufferedImage gray = prepare(upload.image, MULTI_MAX_SIDE);
+            // Boxes are reported in the uploaded frame's pixels, not the subsampled ones
+            double scale = (double) upload.width / gray.getWidth();
+
+            List<int[]> regions = new ArrayList<>();
+            regions.add(new int[] {0, 0, gray.getWidth(), gray.getHeight()});
+            int cols = gray.getWidth() >= gray.getHeight() ? 3 : 2;
+            int rows = gray.getWidth() >= gray.getHeight() ? 2 : 3;
+            int tileWidth = Math.min(gray.getWidth(), (int) Math.ceil(gray.getWidth() / (double) cols * (1 + TILE_OVERLAP)));
+            int tileHeight = Math.min(gray.getHeight(), (int) Math.ceil(gray.getHeight() / (double) rows * (1 + TILE_OVERLAP)));
+            for (int row = 0; row < rows; row++) {
+                for (int col = 0; col < cols; col++) {
+                    int left = cols == 1 ? 0 : (gray.getWidth() - tileWidth) * col / (cols - 1);
+                    int top = rows == 1 ? 0 : (gray.getHeight() - tileHeight) * row / (rows - 1);
+                    regions.add(new int[] {left, top, tileWidth, tileHeight});
+                }
+            }
+
+            List<Callable<List<Found>>> tasks = new ArrayList<>(regions.size());
+            for (int[] region : regions) {
+                tasks.add(() -> decodeRegion(gray, region, scale));
+            }
+            Map<String, Found> found = new LinkedHashMap<>();
+            for (Future<List<Found>> result : regionPool.invokeAll(tasks)) {
+                for (Found code : result.get()) {
+                    found.putIfAbsent(code.getText(), code);
+                }
+            }
+            List<Found> codes = new ArrayList<>(found.values());
+            codes.sort(Comparator.comparingInt(Found::getX));
+            if (codes.isEmpty()) {
+                decodeFailures.increment();
+            }
+            return new Frame(codes, regions.size(), System.nanoTime() - start);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Decode interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Decode failed", e.getCause());
+        } finally {
+            decodes.increment();
+            decodeNanosTotal.add(System.nanoTime() - start);
+        }
+    }
+
+    private static List<Found> decodeRegion(BufferedImage gray, int[] region, double scale) {
+        QRCodeMultiReader reader = multiReaders.poll();
+        if (reader == null) {
+            reader = new QRCodeMultiReader();
+        }
+        List<Found> codes = new ArrayList<>();
+        try {
+            LuminanceSource source = new BufferedImageLuminanceSource(gray, region[0], region[1], region[2], region[3]);
+            for (Result result : reader.decodeMultiple(new BinaryBitmap(new HybridBinarizer(source)), HARD_HINTS)) {
+                float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, maxX = 0, maxY = 0;
+                for (ResultPoint point : result.getResultPoints()) {
+                    minX = Math.min(minX, point.getX());
+                    minY = Math.min(minY, point.getY());
+                    maxX = Math.max(maxX, point.getX());
+                    maxY = Math.max(maxY, point.getY());
+                }
+                codes.add(new Found(result.getText(),
+                    (int) Math.round((region[0] + minX) * scale), (int) Math.round((region[1] + minY) * scale),
+                    (int) Math.round((maxX - minX) * scale), (int) Math.round((maxY - minY) * scale)));
+            }
+        } catch (ReaderException e) {
+            // Nothing in this region
+        } finally {
+            reader.reset();
+            multiReaders.offer(reader);
+        }
+        return codes;
+    }
+
+    // A decoded upload and the size of the frame it came from
+    private static final class Upload {
+        final BufferedImage image;
+        final int width;
+
+        Upload(BufferedImage image, int width) {
+            this.image = image;
+            this.width = width;
+        }
+    }
+
+    // Reads the frame at no less than maxSide on the long side, skipping rows and
+    // columns beyond that while decoding. Throws IllegalArgumentException when the bytes
+    // are not an image ImageIO knows or the header declares more than maxFramePixels.
+    private static Upload read(InputStream frame, int maxSide) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(frame)) {
+            Iterator<ImageReader> candidates = input != null ? ImageIO.getImageReaders(input) : null;
+            if (candidates == null || !candidates.hasNext()) {
+                throw new IllegalArgumentException("Unsupported image format");
+            }
+            ImageReader reader = candidates.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if (width <= 0 || height <= 0 || (long) width * height > maxFramePixels) {
+                    oversizedFrames.increment();
+                    throw new IllegalArgumentException("Frame of " + width + "x" + height
+                        + " exceeds the limit of " + maxFramePixels + " pixels");
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, Math.max(width, height) / maxSide);
+                if (step > 1) {
+                    param.setSourceSubsampling(step, step, 0, 0);
+                }
+                return new Upload(reader.read(0, param), width);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage prepare(BufferedImage image, int maxSide) {
+        double scale = Math.min(1.0, (double) maxSide / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+        if (scale == 1.0 && image.getType() == BufferedImage.TYPE_BYTE_GRAY) {
+            return image;
+        }
+        BufferedImage gray = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D g = gray.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return gray;
+    }
+
+    private static String tryDecode(BufferedImage image, Map<DecodeHintType, Object> hints) {
+        QRCodeReader reader = readers.poll();
+        if (reader == null) {
+            reader = new QRCodeReader();
+        }
+        try {
+            BinaryBitmap bitmap = new BinaryBitmap(new HybridBinarizer(new BufferedImageLuminanceSource(image)));
+            return reader.decode(bitmap, hints).getText();
+        } catch (ReaderException e) {
+            return null;
+        } finally {
+            reader.reset();
+            readers.offer(reader);
+        }
+    }
+
+    // End-to-end time of one scan request: upload read, decode and gate operation
+    public static void recordScan(long nanos) {
+        scans.increment();
+        scanNanosTotal.add(nanos);
+    }
+
+    public static long getDecodeCount() {
+        return decodes.sum();
+    }
+
+    public static long getDecodeFailures() {
+        return decodeFailures.sum();
+    }
+
+    public static long getDecodeNanosTotal() {
+        return decodeNanosTotal.sum();
+    }
+
+    public static long getScanCount() {
+        return scans.sum();
+    }
+
+    public static long getScanNanosTotal() {
+        return scanNanosTotal.sum();
+    }
+
+    public static Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        long decodeCount = decodes.sum();
+        long scanCount = scans.sum();
+        stats.put("decodes", decodeCount);
+        stats.put("decodeFailures", decodeFailures.sum());
+        stats.put("oversizedFrames", oversizedFrames.sum());
+        stats.put("avgDecodeMicros", decodeCount > 0 ? decodeNanosTotal.sum() / decodeCount / 1000 : 0);
+        stats.put("scans", scanCount);
+        stats.put("avgScanMicros", scanCount > 0 ? scanNanosTotal.sum() / scanCount / 1000 : 0);
+        return stats;
+    }
+}
@@ -0,0 +1,297 @@
+package org.parking.controller;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.parking.model.SlotEvents;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Server-Sent Events fan-out of SlotEvents. Clients hold no queue of their own: each
+// only remembers the last version it was sent, and a small sender pool drains it from
+// the shared ring whenever a new event is published. A client that falls further
+// behind than the ring (slow link, stalled tab) gets one snapshot instead of the
+// backlog, so memory per client is constant and a slow reader never holds up a gate.
+// At most one send per client is in flight at a time. An idle client costs only a
+// heartbeat comment every interval and no thread.
+//
+// A send blocks its sender thread until the client's socket takes the bytes. A send
+// still in flight after send-timeout-ms marks the client stalled: it is dropped from
+// the stream and the pool gets one extra thread until that send returns, so a client
+// that stopped reading costs a thread of its own and never the other clients' senders.
+@Component
+public class SlotEventStream {
+    private static final int BATCH_SIZE = 256;
+    private static final int IDLE = 0;
+    private static final int SENDING = 1;
+    private static final int STALLED = 2;
+
+    private static final class Client {
+        final SseEmitter emitter;
+        final AtomicLong sentVersion;
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        final AtomicInteger sendState = new AtomicInteger(IDLE);
+        volatile boolean closed;
+        volatile long sendStartedMillis;
+        volatile long lastSendMillis = System.currentTimeMillis();
+
+        Client(SseEmitter emitter, long sentVersion) {
+            this.emitter = emitter;
+            this.sentVersion = new AtomicLong(sentVersion);
+        }
+    }
+
+    @Value("${parking.stream.heartbeat-seconds:15}")
+    private long heartbeatSeconds;
+
+    @Value("${parking.stream.timeout-minutes:30}")
+    private long timeoutMinutes;
+
+    @Value("${parking.stream.max-clients:1000}")
+    private int maxClients;
+
+    @Value("${parking.stream.sender-threads:4}")
+    private int senderThreads;
+
+    @Value("${parking.stream.send-timeout-ms:5000}")
+    private long sendTimeoutMillis;
+
+    private final Set<Client> clients = ConcurrentHashMap.newKeySet();
+    private final Runnable onPublish = this::dispatchAll;
+    private ThreadPoolExecutor senders;
+    private ScheduledExecutorService heartbeat;
+
+    // Metrics
+    private final AtomicLong eventsSent = new AtomicLong();
+    private final AtomicLong snapshotsSent = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong stalledSends = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadCount = new AtomicInteger();
+        senders = new ThreadPoolExecutor(senderThreads, senderThreads, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), r -> {
+                Thread t = new Thread(r, "slot-stream-" + threadCount.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "slot-stream-heartbeat");
+            t.setDaemon(true);
+            return t;
+        });
+        heartbeat.scheduleAtFixedRate(this::heartbeatAll, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+        long checkMillis = Math.max(100, sendTimeoutMillis / 2);
+        heartbeat.scheduleAtFixedRate(this::checkStalled, checkMillis, checkMillis, TimeUnit.MILLISECONDS);
+        SlotEvents.addListener(onPublish);
+    }
+
+    @PreDestroy
+    public void stop() {
+        SlotEvents.removeListener(onPublish);
+        heartbeat.shutdownNow();
+        senders.shutdownNow();
+        for (Client client : clients) {
+            close(client);
+            client.emitter.complete();
+        }
+    }
+
+    // lastVersion is the client's Last-Event-ID or ?since=; null starts with a snapshot.
+    // Returns null when the server is at its client limit.
+    public SseEmitter subscribe(Long lastVersion) {
+        if (clients.size() >= maxClients) {
+            return null;
+        }
+        SseEmitter emitter = new SseEmitter(TimeUnit.MINUTES.toMillis(timeoutMinutes));
+        // -1 can never be served from the ring, so the first drain sends a snapshot; so
+        // does an id from the future, which can only come from another server's clock
+        boolean resumable = lastVersion != null && lastVersion <= SlotEvents.getVersion();
+        Client client = new Client(emitter, resumable ? lastVersion : -1);
+        emitter.onCompletion(() -> close(client));
+        emitter.onTimeout(() -> close(client));
+        emitter.onError(e -> close(client));
+        clients.add(client);
+        dispatch(client);
+        return emitter;
+    }
+
+    private void dispatchAll() {
+        for (Client client : clients) {
+            dispatch(client);
+        }
+    }
+
+    private void dispatch(Client client) {
+        if (!client.closed && client.scheduled.compareAndSet(false, true)) {
+            try {
+                senders.execute(() -> drain(client));
+            } catch (RuntimeException e) {
+                client.scheduled.set(false);
+            }
+        }
+    }
+
+    private void drain(Client client) {
+        try {
+            while (!client.closed && client.sentVersion.get() < SlotEvents.getVersion()) {
+                List<SlotEvents.Event> events = SlotEvents.since(client.sentVersion.get(), BATCH_SIZE);
+                if (events == null) {
+                    Map<String, Object> snapshot = SlotEvents.snapshot();
+                    long version = (Long) snapshot.get("version");
+                    send(client, SseEmitter.event().id(Long.toString(version)).name("snapshot")
+                        .reconnectTime(3000).data(snapshot));
+                    client.sentVersion.set(version);
+                    snapshotsSent.incrementAndGet();
+                    continue;
+                }
+                for (SlotEvents.Event event : events) {
+                    send(client, SseEmitter.event().id(Long.toString(event.getVersion())).name("slot").data(event.toMap()));
+                    client.sentVersion.set(event.getVersion());
+                }
+                eventsSent.addAndGet(events.size());
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Client went away mid-send
+            drop(client);
+        } finally {
+            client.scheduled.set(false);
+        }
+        redispatchIfBehind(client);
+    }
+
+    // An event published while a send was in flight found the client scheduled and
+    // skipped it; without this it would wait for the next publish
+    private void redispatchIfBehind(Client client) {
+        if (!client.closed && client.sentVersion.get() < SlotEvents.getVersion()) {
+            dispatch(client);
+        }
+    }
+
+    private void heartbeatAll() {
+        // Anything sent in the last half interval keeps proxies from timing the client out
+        long idleBefore = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(heartbeatSeconds) / 2;
+        for (Client client : clients) {
+            if (client.lastSendMillis > idleBefore || !client.scheduled.compareAndSet(false, true)) {
+                continue;
+            }
+            try {
+                senders.execute(() -> {
+                    try {
+                        send(client, SseEmitter.event().comment("heartbeat"));
+                    } catch (IOException | IllegalStateException e) {
+                        drop(client);
+                    } finally {
+                        client.scheduled.set(false);
+                    }
+                    redispatchIfBehind(client);
+                });
+            } catch (RuntimeException e) {
+                client.scheduled.set(false);
+            }
+        }
+    }
+
+    private void send(Client client, SseEmitter.SseEventBuilder event) throws IOException {
+        client.sendStartedMillis = System.currentTimeMillis();
+        client.sendState.set(SENDING);
+        try {
+            client.emitter.send(event);
+        } finally {
+            if (!client.sendState.compareAndSet(SENDING, IDLE)) {
+                // checkStalled lent the pool a thread for this send; hand it back
+                client.sendState.set(IDLE);
+                resizeSenders(-1);
+            }
+        }
+        if (client.closed) {
+            // Dropped while the send was in flight; the caller completes the emitter
+            throw new IOException("Slot stream client dropped");
+        }
+        client.lastSendMillis = System.currentTimeMillis();
+    }
+
+    // Runs on the heartbeat thread. The emitter is left for the stuck sender to complete:
+    // SseEmitter serializes send and complete, so completing it here would block too.
+    private void checkStalled() {
+        long stalledBefore = System.currentTimeMillis() - sendTimeoutMillis;
+        for (Client client : clients) {
+            // State first: send() stamps the start before it sets SENDING
+            if (client.sendState.get() == SENDING && client.sendStartedMillis < stalledBefore
+                    && client.sendState.compareAndSet(SENDING, STALLED)) {
+                stalledSends.incrementAndGet();
+                close(client);
+                resizeSenders(1);
+            }
+        }
+    }
+
+    // Raising the core size starts a thread at once for any drain already queued; the
+    // maximum has to stay at or above the core size in both directions
+    private synchronized void resizeSenders(int delta) {
+        if (delta > 0) {
+            senders.setMaximumPoolSize(senders.getMaximumPoolSize() + delta);
+            senders.setCorePoolSize(senders.getCorePoolSize() + delta);
+        } else {
+            senders.setCorePoolSize(senders.getCorePoolSize() + delta);
+            senders.setMaximumPoolSize(senders.getMaximumPoolSize() + delta);
+        }
+    }
+
+    private void drop(Client client) {
+        if (!client.closed) {
+            dropped.incrementAndGet();
+        }
+        close(client);
+        client.emitter.completeWithError(new IOException("Slot stream client disconnected"));
+    }
+
+    private void close(Client client) {
+        client.closed = true;
+        clients.remove(client);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("clients", clients.size());
+        stats.put("version", SlotEvents.getVersion());
+        stats.put("eventsSent", eventsSent.get());
+        stats.put("snapshotsSent", snapshotsSent.get());
+        stats.put("dropped", dropped.get());
+        stats.put("stalledSends", stalledSends.get());
+        stats.put("senderThreads", senders.getPoolSize());
+        return stats;
+    }
+
+    public int getClientCount() {
+        return clients.size();
+    }
+
+    public long getEventsSent() {
+        return eventsSent.get();
+    }
+
+    public long getSnapshotsSent() {
+        return snapshotsSent.get();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+}
@@ -0,0 +1,29 @@
+package org.parking.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+
+public class AutoBookingRequest {
+    @NotBlank(message = "Plate number is required")
+    @Pattern(regexp = "^[A-Z0-9]{2,10}$", message = "Plate number must be 2-10 characters, uppercase letters and numbers only")
+    private String plate;
+
+    // Optional; any slot type when omitted
+    @Size(max = 30, message = "Slot type must be at most 30 characters")
+    private String slotType;
+
+    // Constructors
+    public AutoBookingRequest() {}
+
+    public AutoBookingRequest(String plate, String slotType) {
+        this.plate = plate;
+        this.slotType = slotType;
+    }
+
+    // Getters and setters
+    public String getPlate() { return plate; }
+    public void setPlate(String plate) { this.plate = plate; }
+    public String getSlotType() { return slotType; }
+    public void setSlotType(String slotType) { this.slotType = slotType; }
+}
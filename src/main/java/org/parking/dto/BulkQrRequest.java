@@ -0,0 +1,38 @@
+package org.parking.dto;
+
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public class BulkQrRequest {
+    // Either plates, or a from/to range of vehicle registrations (ISO dates, to exclusive)
+    @Size(max = 5000, message = "At most 5000 plates per request")
+    private List<String> plates;
+
+    private String from;
+
+    private String to;
+
+    // Optional; image width and height in pixels, 300 when omitted
+    private Integer size;
+
+    // Constructors
+    public BulkQrRequest() {}
+
+    public BulkQrRequest(List<String> plates, String from, String to, Integer size) {
+        this.plates = plates;
+        this.from = from;
+        this.to = to;
+        this.size = size;
+    }
+
+    // Getters and setters
+    public List<String> getPlates() { return plates; }
+    public void setPlates(List<String> plates) { this.plates = plates; }
+    public String getFrom() { return from; }
+    public void setFrom(String from) { this.from = from; }
+    public String getTo() { return to; }
+    public void setTo(String to) { this.to = to; }
+    public Integer getSize() { return size; }
+    public void setSize(Integer size) { this.size = size; }
+}
@@ -0,0 +1,255 @@
+package org.parking.model;
+
+import org.parking.util.LongObjectMap;
+import org.parking.util.PlateCodec;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+// Open parking sessions (transactions with no exitTime) keyed by plate. Rebuilt from
+// the table at startup and kept current by every entry and exit, so "is this plate
+// parked / where" never needs a query. Plates are keyed by their PlateCodec code in
+// segmented primitive maps; the few stored plates that do not fit the codec (older
+// rows with spaces or dashes) fall back to a String-keyed map.
+public class ActiveSessionIndex {
+    public static final class ActiveSession {
+        private final long transactionId;
+        private final String plateNumber;
+        private final long plateCode;
+        private final int slotId;
+        private final String entryTime;
+
+        public ActiveSession(long transactionId, String plateNumber, int slotId, String entryTime) {
+            this.transactionId = transactionId;
+            this.plateNumber = plateNumber;
+            this.plateCode = PlateCodec.encode(plateNumber);
+            this.slotId = slotId;
+            this.entryTime = entryTime;
+        }
+
+        public long getTransactionId() { return transactionId; }
+        public String getPlateNumber() { return plateNumber; }
+        public long getPlateCode() { return plateCode; }
+        public int getSlotId() { return slotId; }
+        public String getEntryTime() { return entryTime; }
+    }
+
+    private static final class Sessions {
+        final LongObjectMap<ActiveSession>[] segments;
+        final Map<String, ActiveSession> uncoded = new ConcurrentHashMap<>();
+
+        @SuppressWarnings("unchecked")
+        Sessions() {
+            segments = new LongObjectMap[SEGMENTS];
+            for (int i = 0; i < SEGMENTS; i++) {
+                segments[i] = new LongObjectMap<>();
+            }
+        }
+
+        LongObjectMap<ActiveSession> segment(long code) {
+            return segments[(int) (code ^ (code >>> 17)) & (SEGMENTS - 1)];
+        }
+
+        ActiveSession get(long code) {
+            LongObjectMap<ActiveSession> segment = segment(code);
+            synchronized (segment) {
+                return segment.get(code);
+            }
+        }
+
+        void put(long code, ActiveSession session) {
+            LongObjectMap<ActiveSession> segment = segment(code);
+            synchronized (segment) {
+                segment.put(code, session);
+            }
+        }
+
+        void remove(long code, ActiveSession session) {
+            LongObjectMap<ActiveSession> segment = segment(code);
+            synchronized (segment) {
+                segment.remove(code, session);
+            }
+        }
+
+        void forEach(Consumer<ActiveSession> action) {
+            for (LongObjectMap<ActiveSession> segment : segments) {
+                synchronized (segment) {
+                    segment.forEachValue(action);
+                }
+            }
+            uncoded.values().forEach(action);
+        }
+
+        int size() {
+            int total = uncoded.size();
+            for (LongObjectMap<ActiveSession> segment : segments) {
+                synchronized (segment) {
+                    total += segment.size();
+                }
+            }
+            return total;
+        }
+    }
+
+    private static final int SEGMENTS = 16;
+
+    private static volatile Sessions sessions;
+
+    // Metrics
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+
+    private static Sessions sessions() {
+        Sessions current = sessions;
+        if (current == null) {
+            synchronized (ActiveSessionIndex.class) {
+                current = sessions;
+                if (current == null) {
+                    load();
+                    current = sessions;
+                }
+            }
+        }
+        return current;
+    }
+
+    public static synchronized void load() {
+        Sessions loaded = new Sessions();
+        int count = 0;
+        try (Connection conn = DatabaseManager.getConnection()) {
+            // Oldest first, so a plate with duplicate open sessions ends up on its latest one
+            PreparedStatement ps = conn.prepareStatement(
+                "SELECT id, plateNumber, slotId, entryTime FROM transactions WHERE exitTime IS NULL ORDER BY entryTime"
+            );
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                String plate = rs.getString("plateNumber");
+                ActiveSession session = new ActiveSession(rs.getLong("id"), plate, rs.getInt("slotId"), rs.getString("entryTime"));
+                if (session.getPlateCode() != PlateCodec.INVALID) {
+                    loaded.put(session.getPlateCode(), session);
+                } else {
+                    loaded.uncoded.put(plate, session);
+                }
+                count++;
+            }
+            System.out.println("Loaded " + count + " active parking sessions");
+        } catch (SQLException e) {
+            System.err.println("Error loading active sessions: " + e.getMessage());
+            e.printStackTrace();
+        }
+        sessions = loaded;
+    }
+
+    // Resyncs one plate with the table after a repair closed some of its sessions. The
+    // caller holds the plate's lock, so no gate event can change the plate meanwhile;
+    // every other plate keeps its live entry.
+    static void reload(String plateNumber) {
+        String plate = PlateCodec.normalize(plateNumber);
+        ActiveSession latest = null;
+        try (Connection conn = DatabaseManager.getConnection()) {
+            PreparedStatement ps = conn.prepareStatement(
+                "SELECT id, plateNumber, slotId, entryTime FROM transactions " +
+                "WHERE plateNumber = ? AND exitTime IS NULL ORDER BY entryTime DESC LIMIT 1"
+            );
+            ps.setString(1, plate);
+            ResultSet rs = ps.executeQuery();
+            if (rs.next()) {
+                latest = new ActiveSession(rs.getLong("id"), rs.getString("plateNumber"), rs.getInt("slotId"), rs.getString("entryTime"));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error reloading active session for " + plate + ": " + e.getMessage());
+            e.printStackTrace();
+            return;
+        }
+        long code = PlateCodec.encode(plate);
+        ActiveSession current = code != PlateCodec.INVALID ? sessions().get(code) : sessions().uncoded.get(plate);
+        if (current != null) {
+            remove(current);
+        }
+        if (latest != null) {
+            put(latest);
+        }
+    }
+
+    public static ActiveSession lookup(long plateCode) {
+        return count(sessions().get(plateCode));
+    }
+
+    // Accepts any case and surrounding whitespace
+    public static ActiveSession lookup(String plateNumber) {
+        long code = PlateCodec.encode(plateNumber);
+        if (code != PlateCodec.INVALID) {
+            return lookup(code);
+        }
+        return count(sessions().uncoded.get(PlateCodec.normalize(plateNumber)));
+    }
+
+    public static boolean isParked(long plateCode) {
+        return lookup(plateCode) != null;
+    }
+
+    public static boolean isParked(String plateNumber) {
+        return lookup(plateNumber) != null;
+    }
+
+    private static ActiveSession count(ActiveSession session) {
+        if (session != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return session;
+    }
+
+    static void put(ActiveSession session) {
+        if (session.getPlateCode() != PlateCodec.INVALID) {
+            sessions().put(session.getPlateCode(), session);
+        } else {
+            sessions().uncoded.put(session.getPlateNumber(), session);
+        }
+    }
+
+    static void remove(ActiveSession session) {
+        if (session.getPlateCode() != PlateCodec.INVALID) {
+            sessions().remove(session.getPlateCode(), session);
+        } else {
+            sessions().uncoded.remove(session.getPlateNumber(), session);
+        }
+    }
+
+    // Open sessions keyed by slot, for building whole-lot views without the LEFT JOIN
+    public static Map<Integer, ActiveSession> bySlot() {
+        Map<Integer, ActiveSession> bySlot = new HashMap<>();
+        sessions().forEach(session -> bySlot.put(session.getSlotId(), session));
+        return bySlot;
+    }
+
+    public static int size() {
+        return sessions().size();
+    }
+
+    public static long getHits() {
+        return hits.sum();
+    }
+
+    public static long getMisses() {
+        return misses.sum();
+    }
+
+    public static Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        Sessions current = sessions();
+        stats.put("activeSessions", current.size());
+        stats.put("uncodedPlates", current.uncoded.size());
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        return stats;
+    }
+}
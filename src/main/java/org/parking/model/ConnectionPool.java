@@ -0,0 +1,328 @@
+package org.parking.model;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Bounded pool of SQLite connections handed out by DatabaseManager.getConnection().
+// Callers keep using try-with-resources: close() on a pooled connection closes any
+// statements it created and returns the physical connection to the pool. Leak
+// detection captures the borrower's stack on every borrow and is off unless a
+// threshold is configured.
+public class ConnectionPool {
+    private final String url;
+    private final int maxSize;
+    private final int minIdle;
+    private final long connectionTimeoutMs;
+    private final long idleTimeoutMs;
+    private final long leakDetectionThresholdMs;
+    private final List<String> pragmas;
+
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<PhysicalConnection> idle = new LinkedBlockingDeque<>();
+    private final Set<PhysicalConnection> borrowed = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    // Metrics
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder waitNanosTotal = new LongAdder();
+    private final AtomicLong waitNanosMax = new AtomicLong();
+    private final LongAdder timeoutCount = new LongAdder();
+    private final LongAdder createdCount = new LongAdder();
+    private final LongAdder evictedCount = new LongAdder();
+    private final LongAdder leakCount = new LongAdder();
+
+    public ConnectionPool(String url, int maxSize, int minIdle, long connectionTimeoutMs,
+                          long idleTimeoutMs, long leakDetectionThresholdMs, List<String> pragmas) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Pool size must be at least 1");
+        }
+        this.url = url;
+        this.maxSize = maxSize;
+        this.minIdle = Math.max(0, Math.min(minIdle, maxSize));
+        this.connectionTimeoutMs = connectionTimeoutMs;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.leakDetectionThresholdMs = leakDetectionThresholdMs;
+        this.pragmas = List.copyOf(pragmas);
+        this.permits = new Semaphore(maxSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000, Math.min(idleTimeoutMs, 30000));
+        housekeeper.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    public Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(connectionTimeoutMs, TimeUnit.MILLISECONDS)) {
+                timeoutCount.increment();
+                throw new SQLTimeoutException("Timed out after " + connectionTimeoutMs
+                    + "ms waiting for a database connection (pool size " + maxSize + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        recordWait(System.nanoTime() - start);
+
+        PhysicalConnection physical;
+        try {
+            physical = takeIdleOrCreate();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        physical.borrowedAt = System.currentTimeMillis();
+        physical.borrowerTrace = leakDetectionThresholdMs > 0 ? new Throwable("Connection borrowed here") : null;
+        physical.leakReported = false;
+        borrowed.add(physical);
+        borrowCount.increment();
+        return physical.newHandle();
+    }
+
+    private PhysicalConnection takeIdleOrCreate() throws SQLException {
+        PhysicalConnection physical;
+        while ((physical = idle.pollFirst()) != null) {
+            if (physical.isUsable()) {
+                return physical;
+            }
+            discard(physical);
+        }
+        return create();
+    }
+
+    private PhysicalConnection create() throws SQLException {
+        Connection raw = DriverManager.getConnection(url);
+        try (Statement stmt = raw.createStatement()) {
+            for (String pragma : pragmas) {
+                stmt.execute(pragma);
+            }
+        } catch (SQLException e) {
+            raw.close();
+            throw e;
+        }
+        totalConnections.incrementAndGet();
+        createdCount.increment();
+        return new PhysicalConnection(raw);
+    }
+
+    private void giveBack(PhysicalConnection physical) {
+        borrowed.remove(physical);
+        try {
+            if (!physical.raw.getAutoCommit()) {
+                physical.raw.rollback();
+                physical.raw.setAutoCommit(true);
+            }
+            physical.lastUsedAt = System.currentTimeMillis();
+            if (closed) {
+                discard(physical);
+            } else {
+                // LIFO keeps the hottest connections busy and lets the rest age out
+                idle.offerFirst(physical);
+            }
+        } catch (SQLException e) {
+            discard(physical);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void discard(PhysicalConnection physical) {
+        totalConnections.decrementAndGet();
+        try {
+            physical.raw.close();
+        } catch (SQLException e) {
+            // Already unusable
+        }
+    }
+
+    private void housekeep() {
+        long now = System.currentTimeMillis();
+
+        // Evict connections idle longer than the timeout, oldest first, keeping minIdle around
+        if (idleTimeoutMs > 0) {
+            Iterator<PhysicalConnection> it = idle.descendingIterator();
+            while (it.hasNext() && idle.size() > minIdle) {
+                PhysicalConnection physical = it.next();
+                if (now - physical.lastUsedAt > idleTimeoutMs && idle.remove(physical)) {
+                    discard(physical);
+                    evictedCount.increment();
+                }
+            }
+        }
+
+        if (leakDetectionThresholdMs > 0) {
+            for (PhysicalConnection physical : borrowed) {
+                if (!physical.leakReported && now - physical.borrowedAt > leakDetectionThresholdMs) {
+                    physical.leakReported = true;
+                    leakCount.increment();
+                    System.err.println("Possible connection leak: connection held for "
+                        + (now - physical.borrowedAt) + "ms");
+                    if (physical.borrowerTrace != null) {
+                        physical.borrowerTrace.printStackTrace();
+                    }
+                }
+            }
+        }
+    }
+
+    private void recordWait(long nanos) {
+        waitNanosTotal.add(nanos);
+        waitNanosMax.accumulateAndGet(nanos, Math::max);
+    }
+
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PhysicalConnection physical;
+        while ((physical = idle.pollFirst()) != null) {
+            discard(physical);
+        }
+    }
+
+    public int getMaxSize() { return maxSize; }
+    public int getActiveConnections() { return borrowed.size(); }
+    public int getIdleConnections() { return idle.size(); }
+    public int getTotalConnections() { return totalConnections.get(); }
+    public int getPendingThreads() { return permits.getQueueLength(); }
+    public long getBorrowCount() { return borrowCount.sum(); }
+    public long getTimeoutCount() { return timeoutCount.sum(); }
+    public long getLeakCount() { return leakCount.sum(); }
+    public long getWaitNanosTotal() { return waitNanosTotal.sum(); }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        long borrows = borrowCount.sum();
+        stats.put("maxSize", maxSize);
+        stats.put("active", getActiveConnections());
+        stats.put("idle", getIdleConnections());
+        stats.put("total", getTotalConnections());
+        stats.put("pendingThreads", getPendingThreads());
+        stats.put("borrows", borrows);
+        stats.put("timeouts", timeoutCount.sum());
+        stats.put("created", createdCount.sum());
+        stats.put("evicted", evictedCount.sum());
+        stats.put("leaksDetected", leakCount.sum());
+        stats.put("avgWaitMicros", borrows > 0 ? waitNanosTotal.sum() / borrows / 1000 : 0);
+        stats.put("maxWaitMicros", waitNanosMax.get() / 1000);
+        return stats;
+    }
+
+    private final class PhysicalConnection {
+        final Connection raw;
+        volatile long lastUsedAt = System.currentTimeMillis();
+        volatile long borrowedAt;
+        volatile Throwable borrowerTrace;
+        volatile boolean leakReported;
+
+        PhysicalConnection(Connection raw) {
+            this.raw = raw;
+        }
+
+        boolean isUsable() {
+            try {
+                return !raw.isClosed();
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        Connection newHandle() {
+            return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[] {Connection.class},
+                new Handle(this)
+            );
+        }
+    }
+
+    // Logical connection handed to callers; only valid until close()
+    private final class Handle implements InvocationHandler {
+        private final PhysicalConnection physical;
+        private final List<Statement> statements = new ArrayList<>();
+        private boolean released;
+
+        Handle(PhysicalConnection physical) {
+            this.physical = physical;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    release();
+                    return null;
+                case "isClosed":
+                    return released || physical.raw.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + physical.raw + "]";
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(physical.raw)) {
+                        return physical.raw;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            if (released) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            try {
+                Object result = method.invoke(physical.raw, args);
+                if (result instanceof Statement) {
+                    statements.add((Statement) result);
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private void release() {
+            if (released) {
+                return;
+            }
+            released = true;
+            for (Statement statement : statements) {
+                try {
+                    statement.close();
+                } catch (SQLException e) {
+                    // Statement already closed or connection broken
+                }
+            }
+            statements.clear();
+            giveBack(physical);
+        }
+    }
+}
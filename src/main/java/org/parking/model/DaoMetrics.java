@@ -0,0 +1,176 @@
+package org.parking.model;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Latency and failures of every data access, without touching the DAOs themselves.
+// All reads borrow a connection through DatabaseManager.getConnection() and all
+// writes go through DatabaseManager.write(), so both are timed there: a read from
+// borrow to close, a write from submit to commit. The operation tag is the
+// DAO method that asked, e.g. "SlotDAO.getAllSlots", found by walking the stack once
+// per borrow or write.
+//
+// Meters:
+//   parking.dao.operation{operation, kind=read|write, outcome=success|error}
+//       timer with a percentile histogram, for latency SLOs
+//   parking.dao.errors{operation, type=busy|locked|sql}
+//       SQLExceptions, with SQLITE_BUSY and SQLITE_LOCKED counted apart
+//
+// Until MetricsConfig binds a registry, samples are dropped.
+public class DaoMetrics {
+    private static final int SQLITE_BUSY = 5;
+    private static final int SQLITE_LOCKED = 6;
+
+    // Frames that route a call to the database rather than asking for it
+    private static final Set<String> INFRASTRUCTURE = Set.of(
+        DaoMetrics.class.getName(), DatabaseManager.class.getName(),
+        ConnectionPool.class.getName(), WriteQueue.class.getName());
+    private static final StackWalker walker = StackWalker.getInstance();
+
+    private static volatile MeterRegistry registry;
+    private static final ConcurrentHashMap<String, Timer> timers = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, Counter> errors = new ConcurrentHashMap<>();
+
+    public static void bind(MeterRegistry meterRegistry) {
+        registry = meterRegistry;
+        timers.clear();
+        errors.clear();
+    }
+
+    static boolean isBound() {
+        return registry != null;
+    }
+
+    // "Class.method" of the nearest caller outside the database plumbing
+    static String caller() {
+        return walker.walk(frames -> frames
+            .filter(frame -> !INFRASTRUCTURE.contains(frame.getClassName()))
+            .findFirst()
+            .map(frame -> {
+                String className = frame.getClassName();
+                return className.substring(className.lastIndexOf('.') + 1) + "." + frame.getMethodName();
+            })
+            .orElse("unknown"));
+    }
+
+    static void record(String operation, String kind, long nanos, boolean failed) {
+        MeterRegistry meters = registry;
+        if (meters == null) {
+            return;
+        }
+        String outcome = failed ? "error" : "success";
+        timers.computeIfAbsent(operation + '|' + kind + '|' + outcome, key -> Timer.builder("parking.dao.operation")
+                .description("Time of one DAO operation, connection borrow to close or write submit to commit")
+                .tag("operation", operation)
+                .tag("kind", kind)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .minimumExpectedValue(Duration.ofNanos(50_000))
+                .maximumExpectedValue(Duration.ofSeconds(10))
+                .register(meters))
+            .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    static void error(String operation, SQLException e) {
+        MeterRegistry meters = registry;
+        if (meters == null) {
+            return;
+        }
+        String type = errorType(e);
+        errors.computeIfAbsent(operation + '|' + type, key -> Counter.builder("parking.dao.errors")
+                .description("SQLExceptions raised by DAO operations")
+                .tag("operation", operation)
+                .tag("type", type)
+                .register(meters))
+            .increment();
+    }
+
+    // The sqlite driver reports result codes as the vendor code, and names them in the message
+    private static String errorType(SQLException e) {
+        String message = e.getMessage() != null ? e.getMessage() : "";
+        if (e.getErrorCode() == SQLITE_BUSY || message.contains("SQLITE_BUSY")) {
+            return "busy";
+        }
+        if (e.getErrorCode() == SQLITE_LOCKED || message.contains("SQLITE_LOCKED")) {
+            return "locked";
+        }
+        return "sql";
+    }
+
+    // Wraps a borrowed connection so its lifetime is recorded on close and SQLExceptions
+    // from it or its statements are counted, even when the DAO catches them
+    static Connection instrument(Connection connection, String operation, long startNanos) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+            new Class<?>[] {Connection.class}, new Timed(connection, operation, startNanos));
+    }
+
+    private static final class Timed implements InvocationHandler {
+        private final Object target;
+        private final String operation;
+        private final long startNanos;
+        private final Timed owner;
+        private boolean failed;
+        private boolean recorded;
+
+        Timed(Connection connection, String operation, long startNanos) {
+            this(connection, operation, startNanos, null);
+        }
+
+        private Timed(Object target, String operation, long startNanos, Timed owner) {
+            this.target = target;
+            this.operation = operation;
+            this.startNanos = startNanos;
+            this.owner = owner;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Timed[" + operation + ", " + target + "]";
+                default:
+                    break;
+            }
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof SQLException) {
+                    (owner != null ? owner : this).failed = true;
+                    error(operation, (SQLException) cause);
+                }
+                throw cause;
+            } finally {
+                if (owner == null && method.getName().equals("close") && !recorded) {
+                    recorded = true;
+                    record(operation, "read", System.nanoTime() - startNanos, failed);
+                }
+            }
+            // Statements are wrapped too, so their failures count against this operation
+            if (owner == null && result instanceof Statement && method.getReturnType().isInterface()) {
+                return Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[] {method.getReturnType()}, new Timed(result, operation, startNanos, this));
+            }
+            return result;
+        }
+    }
+}
@@ -1,16 +1,135 @@
 package org.parking.model;
 
 import java.sql.*;
+import java.util.List;
+import java.util.Map;
 
 public class DatabaseManager {
+    // A unit of database work; writes run it on the single writer connection
+    @FunctionalInterface
+    public interface SqlWork<T> {
+        T execute(Connection conn) throws SQLException;
+    }
+
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection open() throws SQLException;
+    }
+
     private static final String DB_URL = "jdbc:sqlite:parking_system.db";
 
+    // Pool defaults, overridden from application.properties by DatabaseConfig
+    private static int poolMaxSize = 8;
+    private static int poolMinIdle = 2;
+    private static long connectionTimeoutMs = 5000;
+    private static long idleTimeoutMs = 300000;
+    private static long leakDetectionThresholdMs = 0;
+    private static int busyTimeoutMs = 5000;
+    private static int cacheSizeKb = 8192;
+
+    // Storage mode: WAL journal plus a single group-committing writer thread
+    private static boolean walEnabled = true;
+    private static int writerMaxBatchSize = 64;
+    private static int writerQueueCapacity = 10000;
+
+    private static volatile ConnectionPool pool;
+    private static volatile WriteQueue writeQueue;
+    private static volatile java.util.function.IntConsumer writerBatchListener;
+
+    public static synchronized void configurePool(int maxSize, int minIdle, long connectionTimeout,
+                                                  long idleTimeout, long leakDetectionThreshold,
+                                                  int busyTimeout, int cacheSize) {
+        poolMaxSize = maxSize;
+        poolMinIdle = minIdle;
+        connectionTimeoutMs = connectionTimeout;
+        idleTimeoutMs = idleTimeout;
+        leakDetectionThresholdMs = leakDetectionThreshold;
+        busyTimeoutMs = busyTimeout;
+        cacheSizeKb = cacheSize;
+        if (pool != null) {
+            // Rebuild with the new settings; connections still borrowed are closed on return
+            ConnectionPool old = pool;
+            pool = null;
+            old.close();
+        }
+    }
+
+    public static synchronized void configureStorage(boolean wal, int maxBatchSize, int queueCapacity) {
+        walEnabled = wal;
+        writerMaxBatchSize = maxBatchSize;
+        writerQueueCapacity = queueCapacity;
+        if (writeQueue != null) {
+            WriteQueue old = writeQueue;
+            writeQueue = null;
+            old.shutdown();
+        }
+    }
+
+    private static ConnectionPool pool() {
+        ConnectionPool current = pool;
+        if (current == null) {
+            synchronized (DatabaseManager.class) {
+                current = pool;
+                if (current == null) {
+                    current = new ConnectionPool(DB_URL, poolMaxSize, poolMinIdle, connectionTimeoutMs,
+                        idleTimeoutMs, leakDetectionThresholdMs, connectionPragmas());
+                    pool = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private static WriteQueue writeQueue() {
+        WriteQueue current = writeQueue;
+        if (current == null) {
+            synchronized (DatabaseManager.class) {
+                current = writeQueue;
+                if (current == null) {
+                    current = new WriteQueue(DatabaseManager::openConnection, writerMaxBatchSize, writerQueueCapacity);
+                    current.setBatchSizeListener(writerBatchListener);
+                    writeQueue = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    // Applied once to every physical connection when it is opened
+    private static List<String> connectionPragmas() {
+        return List.of(
+            "PRAGMA busy_timeout = " + busyTimeoutMs,
+            "PRAGMA cache_size = -" + cacheSizeKb,
+            "PRAGMA temp_store = MEMORY",
+            // WAL is crash-safe with NORMAL; commits no longer fsync, checkpoints do
+            walEnabled ? "PRAGMA synchronous = NORMAL" : "PRAGMA synchronous = FULL"
+        );
+    }
+
+    // Unpooled connection, used by the writer thread which keeps its own
+    private static Connection openConnection() throws SQLException {
+        Connection conn = DriverManager.getConnection(DB_URL);
+        try (Statement stmt = conn.createStatement()) {
+            for (String pragma : connectionPragmas()) {
+                stmt.execute(pragma);
+            }
+        } catch (SQLException e) {
+            conn.close();
+            throw e;
+        }
+        return conn;
+    }
+
     public static void initialize() {
-        try (Connection conn = DriverManager.getConnection(DB_URL)) {
+        try (Connection conn = getConnection()) {
             Statement stmt = conn.createStatement();
             
-            // Enable foreign keys
-            stmt.execute("PRAGMA foreign_keys = ON");
+            // Journal mode is persistent in the database file; WAL lets readers run
+            // alongside the writer instead of blocking on it
+            stmt.execute(walEnabled ? "PRAGMA journal_mode = WAL" : "PRAGMA journal_mode = DELETE");
+            
+            // Foreign keys stay off: this connection goes back to the pool, and transactions
+            // reference vehicles rows that the application never creates
             
             // Enhanced Users table
             stmt.execute("""
@@ -71,6 +190,9 @@ public class DatabaseManager {
                 )
             """);
             
+            // Hourly and daily rollups of the transactions above
+            RollupDAO.createTables(stmt);
+            
             // Audit log table
             stmt.execute("""
                 CREATE TABLE IF NOT EXISTS audit_log (
@@ -104,6 +226,18 @@ public class DatabaseManager {
             stmt.execute("CREATE INDEX IF NOT EXISTS idx_transactions_plate ON transactions(plateNumber)");
             stmt.execute("CREATE INDEX IF NOT EXISTS idx_transactions_slot ON transactions(slotId)");
             stmt.execute("CREATE INDEX IF NOT EXISTS idx_transactions_entry ON transactions(entryTime)");
+            // Keyset pagination of a plate's history, newest first
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_transactions_plate_entry ON transactions(plateNumber, entryTime, id)");
+            // Open sessions only, so "exitTime IS NULL" probes and the slot status join
+            // stay small however many closed rows the table holds
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_transactions_open_plate ON transactions(plateNumber) WHERE exitTime IS NULL");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_transactions_open_slot ON transactions(slotId) WHERE exitTime IS NULL");
+            // Per-slot exports walk a slot's rows in entry order
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_transactions_slot_entry ON transactions(slotId, entryTime, id)");
+            // Covering indexes for the statistics aggregates: completed sessions by entry
+            // day with their stored cost/duration, and plates by entry time
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_transactions_completed ON transactions(entryTime, exitTime, cost, duration_minutes) WHERE exitTime IS NOT NULL");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_transactions_entry_plate ON transactions(entryTime, plateNumber)");
             stmt.execute("CREATE INDEX IF NOT EXISTS idx_audit_log_timestamp ON audit_log(timestamp)");
             stmt.execute("CREATE INDEX IF NOT EXISTS idx_audit_log_username ON audit_log(username)");
             
@@ -128,7 +262,99 @@ public class DatabaseManager {
         ));
     }
 
+    // Timed per calling DAO method once metrics are bound, see DaoMetrics
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(DB_URL);
+        if (!DaoMetrics.isBound()) {
+            return pool().borrow();
+        }
+        String operation = DaoMetrics.caller();
+        long start = System.nanoTime();
+        try {
+            return DaoMetrics.instrument(pool().borrow(), operation, start);
+        } catch (SQLException e) {
+            DaoMetrics.error(operation, e);
+            DaoMetrics.record(operation, "read", System.nanoTime() - start, true);
+            throw e;
+        }
+    }
+
+    // Runs a write as one transaction. With WAL enabled it is queued for the writer
+    // thread and may share a commit with other writes; otherwise it runs on a pooled
+    // connection. Returns once the write has committed; with synchronous=NORMAL a commit
+    // survives an application crash, but a power loss can take the last few with it.
+    public static <T> T write(SqlWork<T> work) throws SQLException {
+        if (!DaoMetrics.isBound()) {
+            return runWrite(work);
+        }
+        String operation = DaoMetrics.caller();
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            T result = runWrite(work);
+            failed = false;
+            return result;
+        } catch (SQLException e) {
+            DaoMetrics.error(operation, e);
+            throw e;
+        } finally {
+            DaoMetrics.record(operation, "write", System.nanoTime() - start, failed);
+        }
+    }
+
+    private static <T> T runWrite(SqlWork<T> work) throws SQLException {
+        if (walEnabled) {
+            return writeQueue().submit(work);
+        }
+        // Straight from the pool: write() already times this as a write
+        try (Connection conn = pool().borrow()) {
+            conn.setAutoCommit(false);
+            try {
+                T result = work.execute(conn);
+                conn.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+
+    public static boolean isWalEnabled() {
+        return walEnabled;
+    }
+
+    // Survives writer rebuilds in configureStorage
+    public static void setWriterBatchListener(java.util.function.IntConsumer listener) {
+        writerBatchListener = listener;
+        writeQueue().setBatchSizeListener(listener);
+    }
+
+    public static WriteQueue getWriteQueue() {
+        return writeQueue();
+    }
+
+    public static Map<String, Object> getWriterStats() {
+        return writeQueue().getStats();
+    }
+
+    public static ConnectionPool getPool() {
+        return pool();
+    }
+
+    public static Map<String, Object> getPoolStats() {
+        return pool().getStats();
+    }
+
+    public static void shutdown() {
+        WriteQueue writer = writeQueue;
+        writeQueue = null;
+        if (writer != null) {
+            writer.shutdown();
+        }
+        ConnectionPool current = pool;
+        pool = null;
+        if (current != null) {
+            current.close();
+        }
     }
 }
@@ -0,0 +1,404 @@
+package org.parking.model;
+
+import org.parking.util.PlateCodec;
+import org.parking.util.StripedLocks;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Gate entry and exit as single units of work, each under a striped per-plate lock so
+// two gates scanning the same plate cannot race while different plates run in
+// parallel. Entry checks the active-session index, claims a slot bit, then marks the
+// slot and inserts the transaction in one database transaction. Exit closes the
+// session and frees its slot in one transaction. The index and the slot event feed
+// are updated after commit.
+// Locking and index lookups key on the packed plate code, so a gate event for an
+// already-normalized plate allocates no plate Strings.
+public class GatePipeline {
+    public enum Status { ENTERED, ALREADY_PARKED, SLOT_UNAVAILABLE, NO_FREE_SLOT, INVALID_PLATE, FAILED }
+
+    public enum ExitStatus { EXITED, NOT_PARKED, FAILED }
+
+    public static final class EntryResult {
+        private final Status status;
+        private final int slotId;
+
+        EntryResult(Status status, int slotId) {
+            this.status = status;
+            this.slotId = slotId;
+        }
+
+        public Status getStatus() { return status; }
+        public int getSlotId() { return slotId; }
+        public boolean isSuccess() { return status == Status.ENTERED; }
+    }
+
+    public static final class ExitResult {
+        private final ExitStatus status;
+        private final int slotId;
+        private final TransactionDAO.ExitDetails details;
+
+        ExitResult(ExitStatus status, int slotId, TransactionDAO.ExitDetails details) {
+            this.status = status;
+            this.slotId = slotId;
+            this.details = details;
+        }
+
+        public ExitStatus getStatus() { return status; }
+        public int getSlotId() { return slotId; }
+        public TransactionDAO.ExitDetails getDetails() { return details; }
+        public boolean isSuccess() { return status == ExitStatus.EXITED; }
+    }
+
+    // A gate scan either enters or exits, whichever the plate's current state calls for
+    public static final class ScanResult {
+        private final EntryResult entry;
+        private final ExitResult exit;
+
+        ScanResult(EntryResult entry, ExitResult exit) {
+            this.entry = entry;
+            this.exit = exit;
+        }
+
+        public boolean isEntry() { return entry != null; }
+        public EntryResult getEntry() { return entry; }
+        public ExitResult getExit() { return exit; }
+        public boolean isSuccess() { return entry != null ? entry.isSuccess() : exit.isSuccess(); }
+    }
+
+    private static final StripedLocks plateLocks = new StripedLocks(256);
+
+    // The last successful scan per plate, for the hold-off in toggle(). A fixed table
+    // indexed by plate code: a plate that collides with another only loses its hold-off.
+    private static final class RecentScan {
+        final long plateCode;
+        final long atMillis;
+        final ScanResult result;
+
+        RecentScan(long plateCode, long atMillis, ScanResult result) {
+            this.plateCode = plateCode;
+            this.atMillis = atMillis;
+            this.result = result;
+        }
+    }
+
+    private static final int RECENT_SCANS = 4096;
+    private static final AtomicReferenceArray<RecentScan> recentScans = new AtomicReferenceArray<>(RECENT_SCANS);
+    private static volatile long holdOffMillis = 5000;
+    private static final LongAdder heldOffScans = new LongAdder();
+
+    private static int recentIndex(long plateCode) {
+        return (int) (plateCode ^ (plateCode >>> 32)) & (RECENT_SCANS - 1);
+    }
+
+    // Metrics
+    private static final Map<Status, LongAdder> entryOutcomes = new EnumMap<>(Status.class);
+    private static final LongAdder entryNanosTotal = new LongAdder();
+    private static final AtomicLong entryNanosMax = new AtomicLong();
+    private static final Map<ExitStatus, LongAdder> exitOutcomes = new EnumMap<>(ExitStatus.class);
+    private static final LongAdder exitNanosTotal = new LongAdder();
+
+    static {
+        for (Status status : Status.values()) {
+            entryOutcomes.put(status, new LongAdder());
+        }
+        for (ExitStatus status : ExitStatus.values()) {
+            exitOutcomes.put(status, new LongAdder());
+        }
+    }
+
+    // A camera uploads several frames of the same car; a repeat scan within this window
+    // of the plate's last entry or exit gets that result back instead of toggling again
+    public static void configureHoldOff(long millis) {
+        holdOffMillis = Math.max(0, millis);
+    }
+
+    // Parks the plate in the given slot, or in the first free slot (of slotType, if set)
+    // when slotId is null
+    public static EntryResult enter(String plateNumber, Integer slotId, String slotType) {
+        long start = System.nanoTime();
+        long plateCode = PlateCodec.encode(plateNumber);
+        EntryResult result;
+
+        if (plateCode == PlateCodec.INVALID) {
+            result = new EntryResult(Status.INVALID_PLATE, slotId != null ? slotId : -1);
+        } else {
+            String plate = PlateCodec.normalize(plateNumber);
+            ReentrantLock lock = plateLocks.lockFor(plateCode);
+            lock.lock();
+            try {
+                result = enterLocked(plateCode, plate, slotId, slotType);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        recordEntry(result, System.nanoTime() - start);
+        return result;
+    }
+
+    private static void recordEntry(EntryResult result, long elapsed) {
+        entryOutcomes.get(result.getStatus()).increment();
+        entryNanosTotal.add(elapsed);
+        entryNanosMax.accumulateAndGet(elapsed, Math::max);
+    }
+
+    private static EntryResult enterLocked(long plateCode, String plate, Integer requestedSlot, String slotType) {
+        if (ActiveSessionIndex.isParked(plateCode)) {
+            return new EntryResult(Status.ALREADY_PARKED, requestedSlot != null ? requestedSlot : -1);
+        }
+
+        SlotOccupancy slots = SlotDAO.occupancy();
+        int slotId;
+        if (requestedSlot != null) {
+            if (!slots.tryOccupy(requestedSlot)) {
+                return new EntryResult(Status.SLOT_UNAVAILABLE, requestedSlot);
+            }
+            slotId = requestedSlot;
+        } else {
+            slotId = slots.claimFirstFree(slotType);
+            if (slotId < 0) {
+                return new EntryResult(Status.NO_FREE_SLOT, -1);
+            }
+        }
+
+        String entryTime = LocalDateTime.now().toString();
+        try {
+            long[] transactionId = new long[1];
+            // The parked check above came from the index, which every session writer keeps
+            // current and which cannot change underneath us while the plate lock is held
+            Status status = DatabaseManager.write(conn -> {
+                PreparedStatement claimPs = conn.prepareStatement(
+                    "UPDATE slots SET isAvailable = 0 WHERE slotId = ? AND isAvailable = 1"
+                );
+                claimPs.setInt(1, slotId);
+                if (claimPs.executeUpdate() == 0) {
+                    return Status.SLOT_UNAVAILABLE;
+                }
+
+                transactionId[0] = TransactionDAO.insertEntry(conn, plate, slotId, entryTime);
+                return Status.ENTERED;
+            });
+            if (status == Status.ENTERED) {
+                ActiveSessionIndex.ActiveSession session =
+                    new ActiveSessionIndex.ActiveSession(transactionId[0], plate, slotId, entryTime);
+                ActiveSessionIndex.put(session);
+                LiveStatistics.recordEntry(session);
+                SlotEvents.occupied(slotId, plate, entryTime);
+            }
+            // SLOT_UNAVAILABLE here means the table already had it occupied, which the
+            // cleared bit now matches
+            return new EntryResult(status, slotId);
+        } catch (SQLException | RuntimeException e) {
+            // Published too, since a snapshot may have shown the claimed bit
+            SlotEvents.released(slots, slotId);
+            e.printStackTrace();
+            return new EntryResult(Status.FAILED, slotId);
+        }
+    }
+
+    // Closes the plate's open session and frees its slot
+    public static ExitResult exit(String plateNumber) {
+        long start = System.nanoTime();
+        long plateCode = PlateCodec.encode(plateNumber);
+        ExitResult result;
+
+        // Plates that do not fit the codec can still have sessions from older rows
+        ReentrantLock lock = plateCode != PlateCodec.INVALID
+            ? plateLocks.lockFor(plateCode)
+            : plateLocks.lockFor(PlateCodec.normalize(plateNumber));
+        lock.lock();
+        try {
+            result = exitLocked(plateCode != PlateCodec.INVALID
+                ? ActiveSessionIndex.lookup(plateCode)
+                : ActiveSessionIndex.lookup(plateNumber));
+        } finally {
+            lock.unlock();
+        }
+
+        recordExit(result, System.nanoTime() - start);
+        return result;
+    }
+
+    private static void recordExit(ExitResult result, long elapsed) {
+        exitOutcomes.get(result.getStatus()).increment();
+        exitNanosTotal.add(elapsed);
+    }
+
+    // Exits the plate if it is parked, otherwise parks it in the first free slot. The
+    // check and the action run under one plate lock, so two scans of the same plate
+    // at different gates cannot both enter or both exit. Within the hold-off after a
+    // successful scan the plate's previous result is returned and nothing changes.
+    public static ScanResult toggle(String plateNumber) {
+        long start = System.nanoTime();
+        long plateCode = PlateCodec.encode(plateNumber);
+        if (plateCode == PlateCodec.INVALID) {
+            // Such plates cannot enter, but may still have sessions from older rows
+            if (ActiveSessionIndex.isParked(plateNumber)) {
+                return new ScanResult(null, exit(plateNumber));
+            }
+            EntryResult invalid = new EntryResult(Status.INVALID_PLATE, -1);
+            recordEntry(invalid, System.nanoTime() - start);
+            return new ScanResult(invalid, null);
+        }
+
+        String plate = PlateCodec.normalize(plateNumber);
+        ReentrantLock lock = plateLocks.lockFor(plateCode);
+        lock.lock();
+        try {
+            int index = recentIndex(plateCode);
+            long now = System.currentTimeMillis();
+            RecentScan recent = recentScans.get(index);
+            if (recent != null && recent.plateCode == plateCode && now - recent.atMillis < holdOffMillis) {
+                heldOffScans.increment();
+                return recent.result;
+            }
+            ScanResult result;
+            ActiveSessionIndex.ActiveSession session = ActiveSessionIndex.lookup(plateCode);
+            if (session != null) {
+                ExitResult exit = exitLocked(session);
+                recordExit(exit, System.nanoTime() - start);
+                result = new ScanResult(null, exit);
+            } else {
+                EntryResult entry = enterLocked(plateCode, plate, null, null);
+                recordEntry(entry, System.nanoTime() - start);
+                result = new ScanResult(entry, null);
+            }
+            // Failures are not held off, so the next frame retries
+            if (result.isSuccess() && holdOffMillis > 0) {
+                recentScans.set(index, new RecentScan(plateCode, now, result));
+            }
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Runs an admin repair of one plate's sessions under that plate's lock, then resyncs
+    // only that plate's index entry with the table
+    public static <T> T repairPlate(String plateNumber, DatabaseManager.SqlWork<T> repair) throws SQLException {
+        long plateCode = PlateCodec.encode(plateNumber);
+        ReentrantLock lock = plateCode != PlateCodec.INVALID
+            ? plateLocks.lockFor(plateCode)
+            : plateLocks.lockFor(PlateCodec.normalize(plateNumber));
+        lock.lock();
+        try {
+            T result = DatabaseManager.write(repair);
+            ActiveSessionIndex.reload(plateNumber);
+            // The next scan acts on the repaired state, not the held-off result
+            if (plateCode != PlateCodec.INVALID) {
+                recentScans.set(recentIndex(plateCode), null);
+            }
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Runs a bulk repair with every plate lock held and rebuilds the in-memory slot and
+    // session state from the tables before letting go, so no gate event can commit
+    // between the repair and the rebuild and then be missing from the rebuilt state
+    public static <T> T repairAll(DatabaseManager.SqlWork<T> repair) throws SQLException {
+        plateLocks.lockAll();
+        try {
+            T result = DatabaseManager.write(repair);
+            for (int i = 0; i < RECENT_SCANS; i++) {
+                recentScans.set(i, null);
+            }
+            SlotDAO.loadOccupancy();
+            ActiveSessionIndex.load();
+            LiveStatistics.load();
+            SlotEvents.reset();
+            return result;
+        } finally {
+            plateLocks.unlockAll();
+        }
+    }
+
+    private static ExitResult exitLocked(ActiveSessionIndex.ActiveSession session) {
+        if (session == null) {
+            return new ExitResult(ExitStatus.NOT_PARKED, -1, null);
+        }
+        int slotId = session.getSlotId();
+        try {
+            TransactionDAO.ExitDetails details = DatabaseManager.write(conn -> {
+                TransactionDAO.ExitDetails closed = TransactionDAO.closeSession(conn, session);
+                if (closed != null) {
+                    PreparedStatement releasePs = conn.prepareStatement("UPDATE slots SET isAvailable = 1 WHERE slotId = ?");
+                    releasePs.setInt(1, slotId);
+                    releasePs.executeUpdate();
+                }
+                return closed;
+            });
+            ActiveSessionIndex.remove(session);
+            if (details == null) {
+                // Closed behind the index's back; drop the stale entry
+                return new ExitResult(ExitStatus.NOT_PARKED, slotId, null);
+            }
+            SlotEvents.released(SlotDAO.occupancy(), slotId);
+            LiveStatistics.recordExit(details);
+            return new ExitResult(ExitStatus.EXITED, slotId, details);
+        } catch (SQLException | RuntimeException e) {
+            e.printStackTrace();
+            return new ExitResult(ExitStatus.FAILED, slotId, null);
+        }
+    }
+
+    public static long getExitCount(ExitStatus status) {
+        return exitOutcomes.get(status).sum();
+    }
+
+    public static long getExitAttempts() {
+        long total = 0;
+        for (LongAdder adder : exitOutcomes.values()) {
+            total += adder.sum();
+        }
+        return total;
+    }
+
+    public static long getExitNanosTotal() {
+        return exitNanosTotal.sum();
+    }
+
+    public static long getEntryCount(Status status) {
+        return entryOutcomes.get(status).sum();
+    }
+
+    public static long getEntryAttempts() {
+        long total = 0;
+        for (LongAdder adder : entryOutcomes.values()) {
+            total += adder.sum();
+        }
+        return total;
+    }
+
+    public static long getEntryNanosTotal() {
+        return entryNanosTotal.sum();
+    }
+
+    public static Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        long attempts = getEntryAttempts();
+        for (Status status : Status.values()) {
+            stats.put("entries." + status.name().toLowerCase(), entryOutcomes.get(status).sum());
+        }
+        stats.put("entryAttempts", attempts);
+        stats.put("avgEntryMicros", attempts > 0 ? entryNanosTotal.sum() / attempts / 1000 : 0);
+        stats.put("maxEntryMicros", entryNanosMax.get() / 1000);
+        long exits = getExitAttempts();
+        for (ExitStatus status : ExitStatus.values()) {
+            stats.put("exits." + status.name().toLowerCase(), exitOutcomes.get(status).sum());
+        }
+        stats.put("avgExitMicros", exits > 0 ? exitNanosTotal.sum() / exits / 1000 : 0);
+        stats.put("heldOffScans", heldOffScans.sum());
+        return stats;
+    }
+}
@@ -0,0 +1,193 @@
+package org.parking.model;
+
+import org.parking.util.LongObjectMap;
+import org.parking.util.PlateCodec;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+// Running dashboard counters, updated by every committed entry and exit instead of
+// rescanning the transactions table per request. Vehicles today are distinct plates
+// that entered today. Revenue, minutes and completed sessions count on the day of
+// exit, when the fee is collected, the same rule as the daily rollups, so both report
+// the same figures for today. Counters reset at local midnight; all-time revenue
+// carries over.
+public class LiveStatistics {
+    private static final Object PRESENT = Boolean.TRUE;
+
+    private static LocalDate day;
+    private static String dayPrefix;
+    private static long nextMidnightMillis;
+    private static final LongObjectMap<Object> platesToday = new LongObjectMap<>(256);
+    private static final Set<String> uncodedPlatesToday = new HashSet<>();
+    private static double revenueToday;
+    private static long minutesToday;
+    private static int completedToday;
+    private static int peakOccupiedToday;
+    private static double totalRevenue;
+    private static long totalCompleted;
+    private static boolean loaded;
+
+    // Rows closed by the admin endpoints may lack duration/cost; derive them the same
+    // way calculateCost does (whole hours rounded up, minimum one hour and 25)
+    private static final String MINUTES_SQL =
+        "COALESCE(duration_minutes, CAST((julianday(exitTime) - julianday(entryTime)) * 86400 AS INTEGER) / 60)";
+    private static final String COST_SQL =
+        "COALESCE(cost, MAX(25.0, MAX(1, (" + MINUTES_SQL + " + 59) / 60) * 50.0))";
+
+    // Rebuilds the counters from the table; called at startup and after repairs. The
+    // sums run in SQLite over idx_transactions_completed, so no rows come back to Java.
+    public static synchronized void load() {
+        startDay(LocalDate.now());
+        totalRevenue = 0;
+        totalCompleted = 0;
+        try {
+            // Settled, so a batch the archiver is moving is counted hot or cold, not both
+            TransactionArchive.readSettled(LiveStatistics::loadCounters);
+        } catch (SQLException e) {
+            System.err.println("Error loading statistics: " + e.getMessage());
+            e.printStackTrace();
+        }
+        peakOccupiedToday = SlotDAO.occupancy().getOccupiedCount();
+        loaded = true;
+    }
+
+    private static Void loadCounters(Connection conn) throws SQLException {
+        ResultSet totals = conn.createStatement().executeQuery(
+            "SELECT COUNT(*), TOTAL(" + COST_SQL + ") FROM transactions WHERE exitTime IS NOT NULL"
+        );
+        if (totals.next()) {
+            totalCompleted = totals.getLong(1);
+            totalRevenue = totals.getDouble(2);
+        }
+        // Archived sessions are all closed; their totals come from the segment indexes
+        totalCompleted += TransactionArchive.getRowCount();
+        totalRevenue += TransactionArchive.getRevenue();
+        
+        // Today's exits are one row of the daily rollup
+        PreparedStatement todayPs = conn.prepareStatement(
+            "SELECT exits, revenue, dwell_minutes FROM stats_daily WHERE bucket = ?"
+        );
+        todayPs.setString(1, dayPrefix);
+        ResultSet today = todayPs.executeQuery();
+        if (today.next()) {
+            completedToday = today.getInt(1);
+            revenueToday = today.getDouble(2);
+            minutesToday = today.getLong(3);
+        }
+        
+        PreparedStatement platesPs = conn.prepareStatement(
+            "SELECT DISTINCT plateNumber FROM transactions WHERE entryTime >= ?"
+        );
+        platesPs.setString(1, dayPrefix);
+        ResultSet plates = platesPs.executeQuery();
+        while (plates.next()) {
+            addPlate(plates.getString(1));
+        }
+        return null;
+    }
+
+    static synchronized void recordEntry(ActiveSessionIndex.ActiveSession session) {
+        ensureCurrent();
+        if (session.getEntryTime().startsWith(dayPrefix)) {
+            long code = session.getPlateCode();
+            if (code != PlateCodec.INVALID) {
+                platesToday.put(code, PRESENT);
+            } else {
+                uncodedPlatesToday.add(session.getPlateNumber());
+            }
+        }
+        peakOccupiedToday = Math.max(peakOccupiedToday, SlotDAO.occupancy().getOccupiedCount());
+    }
+
+    // Called once the exit has committed, which makes today its exit day
+    public static synchronized void recordExit(TransactionDAO.ExitDetails details) {
+        ensureCurrent();
+        totalRevenue += details.getCost();
+        totalCompleted++;
+        revenueToday += details.getCost();
+        minutesToday += details.getDurationMinutes();
+        completedToday++;
+    }
+
+    public static synchronized int getVehiclesToday() {
+        ensureCurrent();
+        return platesToday.size() + uncodedPlatesToday.size();
+    }
+
+    public static synchronized double getRevenueToday() {
+        ensureCurrent();
+        return revenueToday;
+    }
+
+    public static synchronized long getAverageMinutesToday() {
+        ensureCurrent();
+        return completedToday > 0 ? minutesToday / completedToday : 0;
+    }
+
+    public static synchronized int getPeakOccupiedToday() {
+        ensureCurrent();
+        return peakOccupiedToday;
+    }
+
+    public static synchronized double getTotalRevenue() {
+        ensureCurrent();
+        return totalRevenue;
+    }
+
+    public static synchronized long getTotalCompleted() {
+        ensureCurrent();
+        return totalCompleted;
+    }
+
+    public static synchronized Map<String, Object> snapshot() {
+        ensureCurrent();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("day", day.toString());
+        stats.put("vehicles", platesToday.size() + uncodedPlatesToday.size());
+        stats.put("revenue", Math.round(revenueToday * 100.0) / 100.0);
+        stats.put("completed", completedToday);
+        stats.put("averageMinutes", completedToday > 0 ? minutesToday / completedToday : 0);
+        stats.put("peakOccupied", peakOccupiedToday);
+        stats.put("totalRevenue", Math.round(totalRevenue * 100.0) / 100.0);
+        stats.put("totalCompleted", totalCompleted);
+        return stats;
+    }
+
+    private static void ensureCurrent() {
+        if (!loaded) {
+            load();
+        } else if (System.currentTimeMillis() >= nextMidnightMillis) {
+            startDay(LocalDate.now());
+            peakOccupiedToday = SlotDAO.occupancy().getOccupiedCount();
+        }
+    }
+
+    private static void startDay(LocalDate today) {
+        day = today;
+        dayPrefix = today.toString();
+        nextMidnightMillis = today.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        platesToday.clear();
+        uncodedPlatesToday.clear();
+        revenueToday = 0;
+        minutesToday = 0;
+        completedToday = 0;
+    }
+
+    private static void addPlate(String plateNumber) {
+        long code = PlateCodec.encode(plateNumber);
+        if (code != PlateCodec.INVALID) {
+            platesToday.put(code, PRESENT);
+        } else if (plateNumber != null) {
+            uncodedPlatesToday.add(plateNumber);
+        }
+    }
+}
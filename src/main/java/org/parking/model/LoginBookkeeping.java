@@ -0,0 +1,160 @@
+package org.parking.model;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// last_login and failed_login_attempts, written behind the login path. Each sign-in
+// only folds its outcome into a per-user pending entry; a background flush writes all
+// pending users in one batched transaction every few seconds, so a login storm costs
+// one UPDATE per user per interval rather than one synchronous UPDATE per login.
+// stop() flushes whatever is left, and is called before the database shuts down.
+public class LoginBookkeeping {
+    // Outcome of the logins since the last flush for one user. A success clears the
+    // failure count, so only failures after the latest success are kept.
+    private static final class Pending {
+        final String lastLogin;
+        final boolean reset;
+        final int failures;
+
+        Pending(String lastLogin, boolean reset, int failures) {
+            this.lastLogin = lastLogin;
+            this.reset = reset;
+            this.failures = failures;
+        }
+
+        // This entry followed by a later one
+        Pending then(Pending later) {
+            return new Pending(later.lastLogin != null ? later.lastLogin : lastLogin,
+                reset || later.reset,
+                later.reset ? later.failures : failures + later.failures);
+        }
+    }
+
+    // Where a batch is written; tests substitute a writer that can fail on demand
+    interface BatchWriter {
+        int[] write(DatabaseManager.SqlWork<int[]> work) throws SQLException;
+    }
+
+    private static final ConcurrentHashMap<String, Pending> pending = new ConcurrentHashMap<>();
+    static volatile BatchWriter writer = DatabaseManager::write;
+    private static ScheduledExecutorService scheduler;
+    // Separate from the class lock, which stop() holds while the last scheduled flush ends
+    private static final Object flushLock = new Object();
+
+    // Metrics
+    private static final LongAdder flushes = new LongAdder();
+    private static final LongAdder rowsFlushed = new LongAdder();
+    private static final LongAdder flushFailures = new LongAdder();
+
+    public static synchronized void configure(long flushSeconds) {
+        stop();
+        long interval = Math.max(1, flushSeconds);
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "login-bookkeeping");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(LoginBookkeeping::flush, interval, interval, TimeUnit.SECONDS);
+    }
+
+    // Stops the periodic flush and writes out everything still pending
+    public static synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            scheduler = null;
+        }
+        flush();
+    }
+
+    public static void recordSuccess(String username) {
+        record(username, new Pending(LocalDateTime.now().toString(), true, 0));
+    }
+
+    public static void recordFailure(String username) {
+        record(username, new Pending(null, false, 1));
+    }
+
+    private static void record(String username, Pending outcome) {
+        pending.merge(username.toLowerCase().trim(), outcome, Pending::then);
+    }
+
+    // A login not yet flushed, so profile reads are not behind by a flush interval
+    public static String pendingLastLogin(String username) {
+        Pending entry = pending.get(username.toLowerCase().trim());
+        return entry != null ? entry.lastLogin : null;
+    }
+
+    // Writes all pending users in one transaction. Entries taken for a batch that fails
+    // are merged back ahead of anything recorded since, and retried on the next flush.
+    public static void flush() {
+        synchronized (flushLock) {
+            flushPending();
+        }
+    }
+
+    private static void flushPending() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<String> usernames = new ArrayList<>();
+        List<Pending> batch = new ArrayList<>();
+        for (String username : pending.keySet()) {
+            Pending entry = pending.remove(username);
+            if (entry != null) {
+                usernames.add(username);
+                batch.add(entry);
+            }
+        }
+        try {
+            writer.write(conn -> {
+                PreparedStatement ps = conn.prepareStatement(
+                    "UPDATE users SET last_login = COALESCE(?, last_login), "
+                        + "failed_login_attempts = (CASE WHEN ? THEN 0 ELSE COALESCE(failed_login_attempts, 0) END) + ? "
+                        + "WHERE username = ?"
+                );
+                for (int i = 0; i < batch.size(); i++) {
+                    Pending entry = batch.get(i);
+                    ps.setString(1, entry.lastLogin);
+                    ps.setBoolean(2, entry.reset);
+                    ps.setInt(3, entry.failures);
+                    ps.setString(4, usernames.get(i));
+                    ps.addBatch();
+                }
+                return ps.executeBatch();
+            });
+            flushes.increment();
+            rowsFlushed.add(batch.size());
+        } catch (SQLException | RuntimeException e) {
+            flushFailures.increment();
+            System.err.println("Login bookkeeping flush failed, will retry: " + e.getMessage());
+            for (int i = 0; i < batch.size(); i++) {
+                Pending earlier = batch.get(i);
+                pending.merge(usernames.get(i), earlier, (later, taken) -> taken.then(later));
+            }
+        }
+    }
+
+    public static Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("pending", pending.size());
+        stats.put("flushes", flushes.sum());
+        stats.put("rowsFlushed", rowsFlushed.sum());
+        stats.put("flushFailures", flushFailures.sum());
+        return stats;
+    }
+}
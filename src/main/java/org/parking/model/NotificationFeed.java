@@ -0,0 +1,91 @@
+package org.parking.model;
+
+import org.parking.util.SequenceRing;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Recent gate and admin events for the notification bar, held only in memory: the
+// last CAPACITY of them in a SequenceRing, numbered from 1 since startup. Readers
+// page with "since N"; a reader with nothing new can park a one-shot waiter that the
+// next publish runs, which is how the endpoint long-polls without a thread per client.
+public class NotificationFeed {
+    private static final int CAPACITY = 1024;
+
+    private static final SequenceRing<Map<String, Object>> ring = new SequenceRing<>(CAPACITY);
+    private static final ConcurrentLinkedQueue<Runnable> waiters = new ConcurrentLinkedQueue<>();
+
+    public static long publish(String type, String message) {
+        return publish(type, message, null, null);
+    }
+
+    public static long publish(String type, String message, String plateNumber, Integer slotId) {
+        Map<String, Object> notification = new HashMap<>();
+        notification.put("type", type);
+        notification.put("message", message);
+        notification.put("time", LocalDateTime.now().toString());
+        if (plateNumber != null) {
+            notification.put("plateNumber", plateNumber);
+        }
+        if (slotId != null) {
+            notification.put("slotId", slotId);
+        }
+        long sequence = ring.add(notification);
+        Runnable waiter;
+        while ((waiter = waiters.poll()) != null) {
+            waiter.run();
+        }
+        return sequence;
+    }
+
+    public static long getLastSequence() {
+        return ring.getLastSequence();
+    }
+
+    // Notifications after the given sequence, oldest first. A null since returns the
+    // latest limit of them; a since from before a restart (beyond the last sequence)
+    // starts over from the beginning and sets "reset".
+    public static Map<String, Object> since(Long since, int limit) {
+        long last = ring.getLastSequence();
+        boolean reset = since != null && since > last;
+        long after = since == null ? Math.max(0, last - limit) : reset ? 0 : since;
+        SequenceRing.Read<Map<String, Object>> read = ring.readAfter(after, limit);
+
+        List<Map<String, Object>> notifications = new ArrayList<>(read.getEntries().size());
+        for (SequenceRing.Entry<Map<String, Object>> entry : read.getEntries()) {
+            Map<String, Object> notification = new HashMap<>(entry.getValue());
+            notification.put("id", entry.getSequence());
+            notifications.add(notification);
+        }
+        Map<String, Object> res = new HashMap<>();
+        res.put("notifications", notifications);
+        res.put("lastSequence", read.getLastSequence());
+        res.put("missed", read.getMissed());
+        if (reset) {
+            res.put("reset", true);
+        }
+        return res;
+    }
+
+    // Runs the waiter once, on the next publish. Callers re-check for new entries
+    // after adding one, so a publish between their read and this call is not lost.
+    public static void addWaiter(Runnable waiter) {
+        waiters.add(waiter);
+    }
+
+    public static void removeWaiter(Runnable waiter) {
+        waiters.remove(waiter);
+    }
+
+    public static Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("lastSequence", ring.getLastSequence());
+        stats.put("capacity", ring.getCapacity());
+        stats.put("waiters", waiters.size());
+        return stats;
+    }
+}
@@ -0,0 +1,156 @@
+package org.parking.model;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// BCrypt at cost 12 is about a quarter second of CPU per hash. Running it on request
+// threads lets a burst of logins take every core from the gate endpoints, so all
+// hashing goes through a pool no larger than the core count with a bounded queue.
+// Callers still wait for their result, but only this pool burns CPU. When the queue is
+// full the request fails at once with Busy, whose retry hint is how long the work
+// already queued should take, instead of waiting behind a backlog it cannot beat.
+public class PasswordHasher {
+    private static final BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(12);
+    // Until the first hash is timed, assume the documented cost
+    private static final long DEFAULT_HASH_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+
+    // Thrown when the hashing queue is full
+    public static class Busy extends RuntimeException {
+        private final int retryAfterSeconds;
+
+        Busy(int retryAfterSeconds) {
+            super("Too many sign-ins in progress, retry in " + retryAfterSeconds + "s");
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        public int getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+    }
+
+    private static volatile ThreadPoolExecutor executor = createExecutor(
+        Math.max(1, Runtime.getRuntime().availableProcessors() / 2), 64);
+
+    // Metrics
+    private static final LongAdder hashes = new LongAdder();
+    private static final LongAdder hashNanosTotal = new LongAdder();
+    private static final LongAdder queueWaitNanosTotal = new LongAdder();
+    private static final LongAdder rejections = new LongAdder();
+
+    // threads should leave cores for the gate endpoints; queueCapacity bounds how long a
+    // caller can wait to roughly queueCapacity / threads hash times
+    public static synchronized void configure(int threads, int queueCapacity) {
+        ThreadPoolExecutor previous = executor;
+        executor = createExecutor(threads, queueCapacity);
+        previous.shutdown();
+        System.out.println("Password hashing: " + threads + " threads, queue " + queueCapacity);
+    }
+
+    private static ThreadPoolExecutor createExecutor(int threads, int queueCapacity) {
+        AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), r -> {
+                Thread t = new Thread(r, "password-hasher-" + count.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }, new ThreadPoolExecutor.AbortPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    public static String encode(String rawPassword) {
+        return run(() -> encoder.encode(rawPassword));
+    }
+
+    public static boolean matches(String rawPassword, String hash) {
+        return run(() -> encoder.matches(rawPassword, hash));
+    }
+
+    private static <T> T run(Callable<T> hash) {
+        ThreadPoolExecutor pool = executor;
+        long queued = System.nanoTime();
+        Future<T> result;
+        try {
+            result = pool.submit(() -> {
+                long start = System.nanoTime();
+                queueWaitNanosTotal.add(start - queued);
+                try {
+                    return hash.call();
+                } finally {
+                    hashes.increment();
+                    hashNanosTotal.add(System.nanoTime() - start);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejections.increment();
+            throw new Busy(retryAfterSeconds(pool));
+        }
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing password", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException("Password hashing failed", cause);
+        }
+    }
+
+    private static int retryAfterSeconds(ThreadPoolExecutor pool) {
+        long count = hashes.sum();
+        long perHash = count > 0 ? hashNanosTotal.sum() / count : DEFAULT_HASH_NANOS;
+        long ahead = pool.getQueue().size() + pool.getActiveCount();
+        long drainNanos = ahead * perHash / Math.max(1, pool.getMaximumPoolSize());
+        return (int) Math.max(1, TimeUnit.NANOSECONDS.toSeconds(drainNanos) + 1);
+    }
+
+    public static long getHashCount() {
+        return hashes.sum();
+    }
+
+    public static long getHashNanosTotal() {
+        return hashNanosTotal.sum();
+    }
+
+    public static long getQueueWaitNanosTotal() {
+        return queueWaitNanosTotal.sum();
+    }
+
+    public static long getRejections() {
+        return rejections.sum();
+    }
+
+    public static int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public static Map<String, Object> getStats() {
+        ThreadPoolExecutor pool = executor;
+        long count = hashes.sum();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("threads", pool.getMaximumPoolSize());
+        stats.put("active", pool.getActiveCount());
+        stats.put("queued", pool.getQueue().size());
+        stats.put("queueCapacity", pool.getQueue().size() + pool.getQueue().remainingCapacity());
+        stats.put("hashes", count);
+        stats.put("rejections", rejections.sum());
+        stats.put("avgHashMillis", count > 0 ? hashNanosTotal.sum() / count / 1_000_000 : 0);
+        stats.put("avgQueueWaitMillis", count > 0 ? queueWaitNanosTotal.sum() / count / 1_000_000 : 0);
+        return stats;
+    }
+}
@@ -0,0 +1,407 @@
+package org.parking.model;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Per-hour and per-day totals of gate activity. Entries count in the bucket of their
+// entry time; exits, revenue and dwell minutes in the bucket of their exit time, when
+// the fee is collected. Peak occupancy is the highest occupied-slot count seen at an
+// entry in the bucket. Both tables are updated inside the same write as the entry or
+// exit row, so they never drift from the transactions table.
+public class RollupDAO {
+    private static final String[] TABLES = {"stats_hourly", "stats_daily"};
+
+    // Bucket keys are prefixes of LocalDateTime.toString(): 2024-05-01T13 and 2024-05-01
+    private static String hourKey(String time) {
+        return time.substring(0, 13);
+    }
+
+    private static String dayKey(String time) {
+        return time.substring(0, 10);
+    }
+
+    static void createTables(Statement stmt) throws SQLException {
+        for (String table : TABLES) {
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS %s (
+                    bucket TEXT PRIMARY KEY,
+                    entries INTEGER NOT NULL DEFAULT 0,
+                    exits INTEGER NOT NULL DEFAULT 0,
+                    revenue REAL NOT NULL DEFAULT 0,
+                    dwell_minutes INTEGER NOT NULL DEFAULT 0,
+                    peak_occupied INTEGER NOT NULL DEFAULT 0
+                )
+            """.formatted(table));
+        }
+    }
+
+    // Runs on the caller's connection, inside the entry's transaction
+    static void recordEntry(Connection conn, String entryTime, int occupied) throws SQLException {
+        for (String table : TABLES) {
+            PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO " + table + " (bucket, entries, peak_occupied) VALUES (?, 1, ?) " +
+                "ON CONFLICT(bucket) DO UPDATE SET entries = entries + 1, " +
+                "peak_occupied = MAX(peak_occupied, excluded.peak_occupied)"
+            );
+            ps.setString(1, table.equals("stats_hourly") ? hourKey(entryTime) : dayKey(entryTime));
+            ps.setInt(2, occupied);
+            ps.executeUpdate();
+        }
+    }
+
+    // Runs on the caller's connection, inside the exit's transaction
+    static void recordExit(Connection conn, String exitTime, long durationMinutes, double cost) throws SQLException {
+        for (String table : TABLES) {
+            PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO " + table + " (bucket, exits, revenue, dwell_minutes) VALUES (?, 1, ?, ?) " +
+                "ON CONFLICT(bucket) DO UPDATE SET exits = exits + 1, " +
+                "revenue = revenue + excluded.revenue, dwell_minutes = dwell_minutes + excluded.dwell_minutes"
+            );
+            ps.setString(1, table.equals("stats_hourly") ? hourKey(exitTime) : dayKey(exitTime));
+            ps.setDouble(2, cost);
+            ps.setLong(3, durationMinutes);
+            ps.executeUpdate();
+        }
+    }
+
+    // Counts a session closed by an admin repair rather than at a gate, on the caller's
+    // connection inside the repair's transaction. A missing duration or cost is derived
+    // the way rebuild() derives it, so the tables match what a full rebuild would give.
+    public static TransactionDAO.ExitDetails recordRepairedExit(Connection conn, String entryTime, String exitTime,
+                                                                Long durationMinutes, Double cost) throws SQLException {
+        long minutes = durationMinutes != null ? durationMinutes : minutesBetween(entryTime, exitTime);
+        double amount = cost != null ? cost : TransactionDAO.calculateCost(minutes);
+        recordExit(conn, exitTime, minutes, amount);
+        return new TransactionDAO.ExitDetails(exitTime, minutes, amount);
+    }
+
+    // Revenue collected on the days from..to inclusive; reads at most one row per day
+    public static double getRevenue(LocalDate from, LocalDate to) {
+        try (Connection conn = DatabaseManager.getConnection()) {
+            PreparedStatement ps = conn.prepareStatement(
+                "SELECT TOTAL(revenue) FROM stats_daily WHERE bucket BETWEEN ? AND ?"
+            );
+            ps.setString(1, from.toString());
+            ps.setString(2, to.toString());
+            ResultSet rs = ps.executeQuery();
+            return rs.next() ? rs.getDouble(1) : 0;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return 0;
+        }
+    }
+
+    public static List<Map<String, Object>> getDaily(LocalDate from, LocalDate to) {
+        return getBuckets("stats_daily", from.toString(), to.toString());
+    }
+
+    public static List<Map<String, Object>> getHourly(LocalDate day) {
+        return getBuckets("stats_hourly", day + "T00", day + "T23");
+    }
+
+    private static List<Map<String, Object>> getBuckets(String table, String from, String to) {
+        List<Map<String, Object>> buckets = new ArrayList<>();
+        try (Connection conn = DatabaseManager.getConnection()) {
+            PreparedStatement ps = conn.prepareStatement(
+                "SELECT * FROM " + table + " WHERE bucket BETWEEN ? AND ? ORDER BY bucket"
+            );
+            ps.setString(1, from);
+            ps.setString(2, to);
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                Map<String, Object> bucket = new HashMap<>();
+                bucket.put("bucket", rs.getString("bucket"));
+                bucket.put("entries", rs.getInt("entries"));
+                bucket.put("exits", rs.getInt("exits"));
+                bucket.put("revenue", Math.round(rs.getDouble("revenue") * 100.0) / 100.0);
+                bucket.put("dwellMinutes", rs.getLong("dwell_minutes"));
+                bucket.put("peakOccupied", rs.getInt("peak_occupied"));
+                buckets.add(bucket);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return buckets;
+    }
+
+    // Recomputes both tables from the raw transactions, hot and archived. The totals are
+    // grouped in SQL on a pooled read connection, so the writer is only held for the
+    // final DELETE and INSERT of one row per bucket. Archived rows are staged in a
+    // file-backed temp table, skipping ids the table still holds, and no archive batch
+    // can move from the table to the segments until the read is done. Entries and exits
+    // recorded between the read and the write are carried over from the live tables.
+    public static int rebuild() throws SQLException {
+        Rebuild rebuild = TransactionArchive.readSettled(RollupDAO::readRebuild);
+        return DatabaseManager.write(conn -> {
+            for (int t = 0; t < TABLES.length; t++) {
+                rebuild.carryOver(t, readBuckets(conn, TABLES[t]));
+            }
+            clear(conn);
+            for (int t = 0; t < TABLES.length; t++) {
+                insertAll(conn, TABLES[t], rebuild.buckets.get(t));
+            }
+            return rebuild.rows;
+        });
+    }
+
+    // Every transaction once: open and correctly closed rows from the table, plus the
+    // staged rows (table rows closed without a duration or cost, and archived rows)
+    private static final String ALL_ROWS = """
+        WITH all_rows AS (
+            SELECT entryTime, exitTime, duration_minutes, cost FROM main.transactions
+            WHERE exitTime IS NULL OR (duration_minutes IS NOT NULL AND cost IS NOT NULL)
+            UNION ALL
+            SELECT entryTime, exitTime, duration_minutes, cost FROM temp.rollup_rebuild
+        )
+        """;
+
+    private static Rebuild readRebuild(Connection conn) throws SQLException {
+        Statement stmt = conn.createStatement();
+        stmt.execute("PRAGMA temp_store = FILE");
+        stmt.execute("DROP TABLE IF EXISTS temp.rollup_rebuild");
+        try {
+            stmt.execute("CREATE TEMP TABLE rollup_rebuild (id INTEGER PRIMARY KEY, entryTime TEXT, " +
+                "exitTime TEXT, duration_minutes INTEGER, cost REAL, archived INTEGER NOT NULL)");
+            // Before the read transaction, so reading the segments does not hold a snapshot
+            stageArchived(conn);
+
+            conn.setAutoCommit(false);
+            Rebuild rebuild = new Rebuild();
+            stageRepairedExits(conn);
+            stmt.executeUpdate("DELETE FROM temp.rollup_rebuild WHERE archived = 1 " +
+                "AND id IN (SELECT id FROM main.transactions)");
+            for (int t = 0; t < TABLES.length; t++) {
+                rebuild.seen.add(readBuckets(conn, TABLES[t]));
+                rebuild.buckets.add(groupBuckets(conn, TABLES[t].equals("stats_hourly") ? 13 : 10));
+            }
+            ResultSet rs = stmt.executeQuery(ALL_ROWS + "SELECT COUNT(*) FROM all_rows");
+            rebuild.rows = rs.next() ? rs.getInt(1) : 0;
+            conn.rollback();
+            return rebuild;
+        } finally {
+            conn.setAutoCommit(true);
+            stmt.execute("DROP TABLE IF EXISTS temp.rollup_rebuild");
+            stmt.execute("PRAGMA temp_store = MEMORY");
+        }
+    }
+
+    private static void stageArchived(Connection conn) throws SQLException {
+        PreparedStatement ps = conn.prepareStatement(
+            "INSERT OR IGNORE INTO temp.rollup_rebuild VALUES (?, ?, ?, ?, ?, 1)"
+        );
+        int[] pending = new int[1];
+        try {
+            TransactionArchive.forEachRow(row -> {
+                try {
+                    ps.setLong(1, row.getId());
+                    ps.setString(2, row.getEntryTime());
+                    ps.setString(3, row.getExitTime());
+                    ps.setLong(4, TransactionArchive.minutesOf(row));
+                    ps.setDouble(5, TransactionArchive.costOf(row));
+                    ps.addBatch();
+                    if (++pending[0] == 1000) {
+                        ps.executeBatch();
+                        pending[0] = 0;
+                    }
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        } catch (java.io.IOException e) {
+            throw new SQLException("Could not read archived transactions", e);
+        } catch (IllegalStateException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            throw e;
+        }
+        ps.executeBatch();
+    }
+
+    // Sessions closed by the admin endpoints before they recorded a duration and cost;
+    // few enough to derive one by one
+    private static void stageRepairedExits(Connection conn) throws SQLException {
+        ResultSet rs = conn.createStatement().executeQuery(
+            "SELECT id, entryTime, exitTime, duration_minutes, cost FROM main.transactions " +
+            "WHERE exitTime IS NOT NULL AND (duration_minutes IS NULL OR cost IS NULL)"
+        );
+        PreparedStatement ps = conn.prepareStatement(
+            "INSERT OR REPLACE INTO temp.rollup_rebuild VALUES (?, ?, ?, ?, ?, 0)"
+        );
+        while (rs.next()) {
+            String entryTime = rs.getString("entryTime");
+            String exitTime = rs.getString("exitTime");
+            long duration = rs.getLong("duration_minutes");
+            long minutes = rs.wasNull() ? minutesBetween(entryTime, exitTime) : duration;
+            double amount = rs.getDouble("cost");
+            double cost = rs.wasNull() ? TransactionDAO.calculateCost(minutes) : amount;
+            ps.setLong(1, rs.getLong("id"));
+            ps.setString(2, entryTime);
+            ps.setString(3, exitTime);
+            ps.setLong(4, minutes);
+            ps.setDouble(5, cost);
+            ps.addBatch();
+        }
+        ps.executeBatch();
+    }
+
+    // Buckets are the first keyLength characters of the time: 13 for hours, 10 for days.
+    // Occupancy is replayed over the entry and exit times in order; events at the same
+    // instant net out, and a bucket's peak is the highest count after a net arrival.
+    private static Map<String, Bucket> groupBuckets(Connection conn, int keyLength) throws SQLException {
+        Map<String, Bucket> buckets = new TreeMap<>();
+        PreparedStatement ps = conn.prepareStatement(ALL_ROWS +
+            "SELECT substr(entryTime, 1, ?), COUNT(*) FROM all_rows " +
+            "WHERE length(entryTime) >= 13 GROUP BY 1"
+        );
+        ps.setInt(1, keyLength);
+        ResultSet rs = ps.executeQuery();
+        while (rs.next()) {
+            bucket(buckets, rs.getString(1)).entries = rs.getLong(2);
+        }
+
+        ps = conn.prepareStatement(ALL_ROWS +
+            "SELECT substr(exitTime, 1, ?), COUNT(*), TOTAL(cost), COALESCE(SUM(duration_minutes), 0) FROM all_rows " +
+            "WHERE length(entryTime) >= 13 AND length(exitTime) >= 13 GROUP BY 1"
+        );
+        ps.setInt(1, keyLength);
+        rs = ps.executeQuery();
+        while (rs.next()) {
+            Bucket bucket = bucket(buckets, rs.getString(1));
+            bucket.exits = rs.getLong(2);
+            bucket.revenue = rs.getDouble(3);
+            bucket.dwellMinutes = rs.getLong(4);
+        }
+
+        ps = conn.prepareStatement(ALL_ROWS + """
+            , events AS (
+                SELECT entryTime AS time, 1 AS delta FROM all_rows WHERE length(entryTime) >= 13
+                UNION ALL
+                SELECT exitTime, -1 FROM all_rows WHERE length(entryTime) >= 13 AND length(exitTime) >= 13
+            ), net AS (
+                SELECT time, SUM(delta) AS delta FROM events GROUP BY time
+            ), running AS (
+                SELECT time, delta, SUM(delta) OVER (ORDER BY time ROWS UNBOUNDED PRECEDING) AS occupied FROM net
+            )
+            SELECT substr(time, 1, ?), MAX(occupied) FROM running WHERE delta > 0 GROUP BY 1
+            """);
+        ps.setInt(1, keyLength);
+        rs = ps.executeQuery();
+        while (rs.next()) {
+            bucket(buckets, rs.getString(1)).peakOccupied = Math.max(0, rs.getLong(2));
+        }
+        return buckets;
+    }
+
+    private static Map<String, Bucket> readBuckets(Connection conn, String table) throws SQLException {
+        Map<String, Bucket> buckets = new HashMap<>();
+        ResultSet rs = conn.createStatement().executeQuery(
+            "SELECT bucket, entries, exits, revenue, dwell_minutes, peak_occupied FROM " + table
+        );
+        while (rs.next()) {
+            Bucket bucket = bucket(buckets, rs.getString("bucket"));
+            bucket.entries = rs.getLong("entries");
+            bucket.exits = rs.getLong("exits");
+            bucket.revenue = rs.getDouble("revenue");
+            bucket.dwellMinutes = rs.getLong("dwell_minutes");
+            bucket.peakOccupied = rs.getLong("peak_occupied");
+        }
+        return buckets;
+    }
+
+    private static final class Bucket {
+        long entries;
+        long exits;
+        double revenue;
+        long dwellMinutes;
+        long peakOccupied;
+    }
+
+    private static Bucket bucket(Map<String, Bucket> buckets, String key) {
+        return buckets.computeIfAbsent(key, k -> new Bucket());
+    }
+
+    private static final class Rebuild {
+        // Per table, in TABLES order: the live rows as the read saw them, and the rebuilt ones
+        final List<Map<String, Bucket>> seen = new ArrayList<>();
+        final List<Map<String, Bucket>> buckets = new ArrayList<>();
+        int rows;
+
+        // Adds what recordEntry/recordExit wrote to the live table after the read
+        void carryOver(int table, Map<String, Bucket> live) {
+            for (Map.Entry<String, Bucket> entry : live.entrySet()) {
+                Bucket now = entry.getValue();
+                Bucket then = seen.get(table).getOrDefault(entry.getKey(), new Bucket());
+                if (now.entries == then.entries && now.exits == then.exits && now.revenue == then.revenue
+                        && now.dwellMinutes == then.dwellMinutes && now.peakOccupied == then.peakOccupied) {
+                    continue;
+                }
+                Bucket rebuilt = bucket(buckets.get(table), entry.getKey());
+                rebuilt.entries += now.entries - then.entries;
+                rebuilt.exits += now.exits - then.exits;
+                rebuilt.revenue += now.revenue - then.revenue;
+                rebuilt.dwellMinutes += now.dwellMinutes - then.dwellMinutes;
+                if (now.peakOccupied > then.peakOccupied) {
+                    rebuilt.peakOccupied = Math.max(rebuilt.peakOccupied, now.peakOccupied);
+                }
+            }
+        }
+    }
+
+    // Backfills the tables for databases created before they existed
+    public static void ensureBuilt() {
+        try (Connection conn = DatabaseManager.getConnection()) {
+            ResultSet rs = conn.createStatement().executeQuery(
+                "SELECT EXISTS(SELECT 1 FROM stats_daily), EXISTS(SELECT 1 FROM transactions)"
+            );
+            if (rs.next() && !rs.getBoolean(1) && rs.getBoolean(2)) {
+                System.out.println("Rebuilt rollups from " + rebuild() + " transactions");
+            }
+        } catch (SQLException e) {
+            System.err.println("Error building rollups: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    public static void clear(Connection conn) throws SQLException {
+        for (String table : TABLES) {
+            conn.createStatement().executeUpdate("DELETE FROM " + table);
+        }
+    }
+
+    private static void insertAll(Connection conn, String table, Map<String, Bucket> buckets) throws SQLException {
+        PreparedStatement ps = conn.prepareStatement(
+            "INSERT INTO " + table + " (bucket, entries, exits, revenue, dwell_minutes, peak_occupied) VALUES (?, ?, ?, ?, ?, ?)"
+        );
+        for (Map.Entry<String, Bucket> entry : buckets.entrySet()) {
+            Bucket bucket = entry.getValue();
+            ps.setString(1, entry.getKey());
+            ps.setLong(2, bucket.entries);
+            ps.setLong(3, bucket.exits);
+            ps.setDouble(4, bucket.revenue);
+            ps.setLong(5, bucket.dwellMinutes);
+            ps.setLong(6, bucket.peakOccupied);
+            ps.addBatch();
+        }
+        ps.executeBatch();
+    }
+
+    private static long minutesBetween(String entryTime, String exitTime) {
+        try {
+            return ChronoUnit.MINUTES.between(LocalDateTime.parse(entryTime), LocalDateTime.parse(exitTime));
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+}
@@ -7,20 +7,59 @@ import java.util.List;
 import java.util.Map;
 
 public class SlotDAO {
-    public static List<Integer> getAvailableSlots() {
-        List<Integer> slots = new ArrayList<>();
-        try (Connection conn = org.parking.model.DatabaseManager.getConnection()) {
-            PreparedStatement ps = conn.prepareStatement("SELECT slotId FROM slots WHERE isAvailable=1 ORDER BY slotId");
+    private static final String DEFAULT_SLOT_TYPE = "regular";
+
+    private static int occupancyCapacity = 1 << 20;
+    private static volatile SlotOccupancy occupancy;
+
+    public static synchronized void configureOccupancy(int capacity) {
+        occupancyCapacity = capacity;
+        occupancy = null;
+    }
+
+    // Availability is served from memory; the slots table is only read here, at startup
+    // or after bulk repairs, and every slot write below updates both in the same call
+    public static SlotOccupancy occupancy() {
+        SlotOccupancy current = occupancy;
+        if (current == null) {
+            synchronized (SlotDAO.class) {
+                current = occupancy;
+                if (current == null) {
+                    current = loadOccupancy();
+                }
+            }
+        }
+        return current;
+    }
+
+    public static synchronized SlotOccupancy loadOccupancy() {
+        SlotOccupancy loaded = new SlotOccupancy(occupancyCapacity);
+        try (Connection conn = DatabaseManager.getConnection()) {
+            PreparedStatement ps = conn.prepareStatement("SELECT slotId, isAvailable, slotType FROM slots");
             ResultSet rs = ps.executeQuery();
             while (rs.next()) {
-                slots.add(rs.getInt("slotId"));
+                int slotId = rs.getInt("slotId");
+                if (loaded.inRange(slotId)) {
+                    String slotType = rs.getString("slotType");
+                    loaded.add(slotId, rs.getInt("isAvailable") == 1, slotType != null ? slotType : DEFAULT_SLOT_TYPE);
+                } else {
+                    System.err.println("Slot " + slotId + " exceeds occupancy capacity " + loaded.getCapacity() + ", ignored");
+                }
             }
-            System.out.println("getAvailableSlots returned " + slots.size() + " slots");
+            System.out.println("Loaded occupancy for " + loaded.getTotalCount() + " slots, " + loaded.getFreeCount() + " free");
         } catch (SQLException e) {
-            System.err.println("Error in getAvailableSlots: " + e.getMessage());
+            // A half-read bitmap would show every missing slot as gone. Keep what was
+            // there, or stay unloaded so the next occupancy() call reads the table again.
+            System.err.println("Error loading slot occupancy: " + e.getMessage());
             e.printStackTrace();
+            return occupancy != null ? occupancy : new SlotOccupancy(occupancyCapacity);
         }
-        return slots;
+        occupancy = loaded;
+        return loaded;
+    }
+
+    public static List<Integer> getAvailableSlots() {
+        return occupancy().getFreeSlots();
     }
 
     public static List<Map<String, Object>> getAllSlotsWithStatus() {
@@ -51,68 +90,118 @@ public class SlotDAO {
     }
 
     public static int getTotalSlots() {
-        try (Connection conn = org.parking.model.DatabaseManager.getConnection()) {
-            PreparedStatement ps = conn.prepareStatement("SELECT COUNT(*) FROM slots");
-            ResultSet rs = ps.executeQuery();
-            if (rs.next()) {
-                int count = rs.getInt(1);
-                System.out.println("getTotalSlots returned " + count + " slots");
-                return count;
-            }
-        } catch (SQLException e) {
-            System.err.println("Error in getTotalSlots: " + e.getMessage());
-            e.printStackTrace();
-        }
-        return 0;
+        return occupancy().getTotalCount();
+    }
+
+    public static int getAvailableSlotCount() {
+        return occupancy().getFreeCount();
     }
 
     public static boolean bookSlot(int slotId, String plateNumber) {
-        try (Connection conn = org.parking.model.DatabaseManager.getConnection()) {
-            PreparedStatement ps = conn.prepareStatement("UPDATE slots SET isAvailable=0 WHERE slotId=? AND isAvailable=1");
-            ps.setInt(1, slotId);
-            return ps.executeUpdate() > 0;
+        SlotOccupancy slots = occupancy();
+        // Claim in memory first so concurrent gates lose without touching the database
+        if (!slots.tryOccupy(slotId)) {
+            return false;
+        }
+        try {
+            boolean updated = DatabaseManager.write(conn -> {
+                PreparedStatement ps = conn.prepareStatement("UPDATE slots SET isAvailable=0 WHERE slotId=? AND isAvailable=1");
+                ps.setInt(1, slotId);
+                return ps.executeUpdate() > 0;
+            });
+            if (updated) {
+                SlotEvents.occupied(slotId, plateNumber, null);
+            }
+            // Not updated means the table already had it occupied, which the cleared bit now matches
+            return updated;
         } catch (SQLException e) {
+            SlotEvents.released(slots, slotId);
             return false;
         }
     }
 
     public static boolean releaseSlot(int slotId) {
-        try (Connection conn = org.parking.model.DatabaseManager.getConnection()) {
-            PreparedStatement ps = conn.prepareStatement("UPDATE slots SET isAvailable=1 WHERE slotId=?");
-            ps.setInt(1, slotId);
-            return ps.executeUpdate() > 0;
+        try {
+            boolean updated = DatabaseManager.write(conn -> {
+                PreparedStatement ps = conn.prepareStatement("UPDATE slots SET isAvailable=1 WHERE slotId=?");
+                ps.setInt(1, slotId);
+                return ps.executeUpdate() > 0;
+            });
+            if (updated) {
+                SlotEvents.released(occupancy(), slotId);
+            }
+            return updated;
         } catch (SQLException e) {
             return false;
         }
     }
 
-    public static void addSlot(int slotId) {
-        try (Connection conn = org.parking.model.DatabaseManager.getConnection()) {
-            PreparedStatement ps = conn.prepareStatement("INSERT OR IGNORE INTO slots (slotId, isAvailable, created_at) VALUES (?, 1, ?)");
-            ps.setInt(1, slotId);
-            ps.setString(2, java.time.LocalDateTime.now().toString());
-            int result = ps.executeUpdate();
+    // For writers that free a slot inside their own transaction, once it has committed
+    public static void onSlotReleased(int slotId) {
+        SlotEvents.released(occupancy(), slotId);
+    }
+
+    public static boolean addSlot(int slotId) {
+        return addSlot(slotId, DEFAULT_SLOT_TYPE);
+    }
+
+    // False when nothing was added: the id exists already, is outside the occupancy
+    // capacity, or the insert failed
+    public static boolean addSlot(int slotId, String slotType) {
+        SlotOccupancy slots = occupancy();
+        if (!slots.inRange(slotId)) {
+            System.err.println("Error adding slot " + slotId + ": outside occupancy capacity " + slots.getCapacity());
+            return false;
+        }
+        try {
+            int result = DatabaseManager.write(conn -> {
+                PreparedStatement ps = conn.prepareStatement("INSERT OR IGNORE INTO slots (slotId, isAvailable, slotType, created_at) VALUES (?, 1, ?, ?)");
+                ps.setInt(1, slotId);
+                ps.setString(2, slotType);
+                ps.setString(3, java.time.LocalDateTime.now().toString());
+                return ps.executeUpdate();
+            });
+            if (result > 0) {
+                slots.add(slotId, true, slotType);
+                SlotEvents.added(slotId);
+            }
             System.out.println("Added slot " + slotId + ", rows affected: " + result);
+            return result > 0;
         } catch (SQLException e) {
             System.err.println("Error adding slot " + slotId + ": " + e.getMessage());
             e.printStackTrace();
+            return false;
         }
     }
 
     public static boolean deleteSlot(int slotId) {
-        try (Connection conn = org.parking.model.DatabaseManager.getConnection()) {
-            // First check if slot is available
-            PreparedStatement checkPs = conn.prepareStatement("SELECT isAvailable FROM slots WHERE slotId=?");
-            checkPs.setInt(1, slotId);
-            ResultSet rs = checkPs.executeQuery();
-            
-            if (rs.next() && rs.getInt("isAvailable") == 1) {
-                PreparedStatement deletePs = conn.prepareStatement("DELETE FROM slots WHERE slotId=?");
-                deletePs.setInt(1, slotId);
-                return deletePs.executeUpdate() > 0;
-            }
+        SlotOccupancy slots = occupancy();
+        // Take the slot out of circulation so it cannot be booked while it is deleted
+        if (!slots.tryOccupy(slotId)) {
             return false; // Cannot delete occupied slot
+        }
+        try {
+            boolean deleted = DatabaseManager.write(conn -> {
+                // First check if slot is available
+                PreparedStatement checkPs = conn.prepareStatement("SELECT isAvailable FROM slots WHERE slotId=?");
+                checkPs.setInt(1, slotId);
+                ResultSet rs = checkPs.executeQuery();
+                
+                if (rs.next() && rs.getInt("isAvailable") == 1) {
+                    PreparedStatement deletePs = conn.prepareStatement("DELETE FROM slots WHERE slotId=?");
+                    deletePs.setInt(1, slotId);
+                    return deletePs.executeUpdate() > 0;
+                }
+                return false; // Cannot delete occupied slot
+            });
+            if (deleted) {
+                SlotEvents.removed(slots, slotId);
+            } else {
+                SlotEvents.released(slots, slotId);
+            }
+            return deleted;
         } catch (SQLException e) {
+            SlotEvents.released(slots, slotId);
             e.printStackTrace();
             return false;
         }
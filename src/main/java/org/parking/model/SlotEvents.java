@@ -0,0 +1,168 @@
+package org.parking.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Versioned feed of slot occupancy changes for push clients. Every committed change
+// to a slot appends one event carrying that slot's full state, so applying an event
+// twice or after a snapshot that already includes it is harmless. The last
+// RING_SIZE events are kept for clients resuming from a version; anyone further
+// behind, or behind a RESET (bulk repair), takes a fresh snapshot instead. Versions
+// start at the boot time in milliseconds, so ids from before a restart are always
+// older than the ring and resolve to a snapshot.
+public class SlotEvents {
+    public enum Type { OCCUPIED, RELEASED, ADDED, REMOVED, RESET }
+
+    public static final class Event {
+        private final long version;
+        private final Type type;
+        private final int slotId;
+        private final String plateNumber;
+        private final String entryTime;
+
+        Event(long version, Type type, int slotId, String plateNumber, String entryTime) {
+            this.version = version;
+            this.type = type;
+            this.slotId = slotId;
+            this.plateNumber = plateNumber;
+            this.entryTime = entryTime;
+        }
+
+        public long getVersion() { return version; }
+        public Type getType() { return type; }
+        public int getSlotId() { return slotId; }
+
+        // Same fields as a /api/slots entry, plus the version and change type
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new HashMap<>();
+            map.put("version", version);
+            map.put("type", type.name().toLowerCase());
+            map.put("slotId", slotId);
+            map.put("isAvailable", type == Type.RELEASED || type == Type.ADDED);
+            map.put("plateNumber", plateNumber);
+            map.put("entryTime", entryTime);
+            return map;
+        }
+    }
+
+    private static final int RING_SIZE = 4096;
+
+    private static final Event[] ring = new Event[RING_SIZE];
+    private static long version = System.currentTimeMillis();
+    private static final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+    // Listeners run on the publishing thread, right after a gate commit; they should
+    // only hand off work, never write to a client
+    public static void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    public static void removeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+
+    static void occupied(int slotId, String plateNumber, String entryTime) {
+        publish(Type.OCCUPIED, slotId, plateNumber, entryTime, null);
+    }
+
+    // Frees the slot and publishes in one step, so no entry can claim the slot and
+    // publish its OCCUPIED before this RELEASED, and no snapshot sees one without the other
+    static void released(SlotOccupancy slots, int slotId) {
+        publish(Type.RELEASED, slotId, null, null, () -> slots.markFree(slotId));
+    }
+
+    static void added(int slotId) {
+        publish(Type.ADDED, slotId, null, null, null);
+    }
+
+    static void removed(SlotOccupancy slots, int slotId) {
+        publish(Type.REMOVED, slotId, null, null, () -> slots.remove(slotId));
+    }
+
+    // After the in-memory state was rebuilt wholesale; every client resyncs from a snapshot
+    public static void reset() {
+        publish(Type.RESET, -1, null, null, null);
+    }
+
+    private static void publish(Type type, int slotId, String plateNumber, String entryTime, Runnable apply) {
+        synchronized (ring) {
+            if (apply != null) {
+                apply.run();
+            }
+            version++;
+            ring[(int) (version % RING_SIZE)] = new Event(version, type, slotId, plateNumber, entryTime);
+        }
+        for (Runnable listener : listeners) {
+            listener.run();
+        }
+    }
+
+    public static long getVersion() {
+        synchronized (ring) {
+            return version;
+        }
+    }
+
+    // Events after the given version, oldest first, at most max of them. Returns null
+    // when the client has to take a snapshot: its version is unknown, has fallen out
+    // of the ring, or a reset happened since.
+    public static List<Event> since(long after, int max) {
+        synchronized (ring) {
+            if (after > version || version - after >= RING_SIZE) {
+                return null;
+            }
+            List<Event> events = new ArrayList<>((int) Math.min(max, version - after));
+            for (long v = after + 1; v <= version && events.size() < max; v++) {
+                Event event = ring[(int) (v % RING_SIZE)];
+                if (event == null || event.version != v || event.type == Type.RESET) {
+                    return null;
+                }
+                events.add(event);
+            }
+            return events;
+        }
+    }
+
+    // Whole-lot view from the occupancy bitmap and the session index, tagged with the
+    // version it reflects. Only the bitmap words are copied under the ring lock, so frees
+    // and removals cannot interleave with the copy; the listing and the session lookup
+    // are built after it is released. Entries claim their bit before they publish, so
+    // one racing the copy is at worst shown early and then delivered again as an event.
+    // Sessions are read after the copy and only attached to slots it shows occupied.
+    public static Map<String, Object> snapshot() {
+        SlotOccupancy occupancy = SlotDAO.occupancy();
+        long at;
+        long[][] words;
+        synchronized (ring) {
+            at = version;
+            words = occupancy.copyWords();
+        }
+        long[] freeWords = words[1];
+        List<Integer> slotIds = SlotOccupancy.slotsIn(words[0]);
+        Map<Integer, ActiveSessionIndex.ActiveSession> sessions = ActiveSessionIndex.bySlot();
+        List<Map<String, Object>> slots = new ArrayList<>(slotIds.size());
+        int available = 0;
+        for (int slotId : slotIds) {
+            boolean isFree = SlotOccupancy.isSet(freeWords, slotId);
+            ActiveSessionIndex.ActiveSession session = isFree ? null : sessions.get(slotId);
+            Map<String, Object> slot = new HashMap<>();
+            slot.put("slotId", slotId);
+            slot.put("isAvailable", isFree);
+            slot.put("plateNumber", session != null ? session.getPlateNumber() : null);
+            slot.put("entryTime", session != null ? session.getEntryTime() : null);
+            slots.add(slot);
+            if (isFree) {
+                available++;
+            }
+        }
+        Map<String, Object> snapshot = new HashMap<>();
+        snapshot.put("version", at);
+        snapshot.put("slots", slots);
+        snapshot.put("totalSlots", slotIds.size());
+        snapshot.put("availableSlots", available);
+        return snapshot;
+    }
+}
@@ -0,0 +1,261 @@
+package org.parking.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// In-memory slot occupancy, one bit per slotId. "present" marks slots that exist,
+// "free" marks slots that exist and are available. All updates are single-word CAS
+// operations, so readers and writers never block each other. Counts are O(1),
+// listings walk only the words up to the highest slot id in use. Slot types are extra
+// membership bitmaps, so "first free slot of type X" is a masked word scan.
+public class SlotOccupancy {
+    private static final int WORD_BITS = 64;
+
+    private final int capacity;
+    private final AtomicLongArray present;
+    private final AtomicLongArray free;
+    private final Map<String, AtomicLongArray> typeMembers = new ConcurrentHashMap<>();
+    private final AtomicInteger totalCount = new AtomicInteger();
+    private final AtomicInteger freeCount = new AtomicInteger();
+    private final AtomicInteger highestWord = new AtomicInteger(-1);
+
+    public SlotOccupancy(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        int words = (capacity + WORD_BITS - 1) / WORD_BITS;
+        this.capacity = words * WORD_BITS;
+        this.present = new AtomicLongArray(words);
+        this.free = new AtomicLongArray(words);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public boolean inRange(int slotId) {
+        return slotId >= 0 && slotId < capacity;
+    }
+
+    public boolean add(int slotId, boolean available) {
+        return add(slotId, available, null);
+    }
+
+    public boolean add(int slotId, boolean available, String slotType) {
+        checkRange(slotId);
+        int word = slotId >>> 6;
+        long bit = 1L << slotId;
+        if (!setBit(present, word, bit)) {
+            return false;
+        }
+        if (slotType != null) {
+            AtomicLongArray members = typeMembers.computeIfAbsent(normalizeType(slotType),
+                t -> new AtomicLongArray(present.length()));
+            setBit(members, word, bit);
+        }
+        totalCount.incrementAndGet();
+        highestWord.accumulateAndGet(word, Math::max);
+        if (available && setBit(free, word, bit)) {
+            freeCount.incrementAndGet();
+        }
+        return true;
+    }
+
+    // Claims a free slot; only one caller can win for a given slot
+    public boolean tryOccupy(int slotId) {
+        if (!inRange(slotId)) {
+            return false;
+        }
+        if (clearBit(free, slotId >>> 6, 1L << slotId)) {
+            freeCount.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    // Claims the lowest-numbered free slot, optionally restricted to one slot type.
+    // Losing a CAS race only retries the same word, so contending gates each get a
+    // distinct slot in one pass. Returns -1 when nothing matches.
+    public int claimFirstFree(String slotType) {
+        AtomicLongArray members = null;
+        if (slotType != null) {
+            members = typeMembers.get(normalizeType(slotType));
+            if (members == null) {
+                return -1;
+            }
+        }
+        int last = highestWord.get();
+        for (int word = 0; word <= last; word++) {
+            while (true) {
+                long current = free.get(word);
+                long candidates = members == null ? current : current & members.get(word);
+                if (candidates == 0) {
+                    break;
+                }
+                long bit = Long.lowestOneBit(candidates);
+                if (free.compareAndSet(word, current, current & ~bit)) {
+                    freeCount.decrementAndGet();
+                    return word * WORD_BITS + Long.numberOfTrailingZeros(bit);
+                }
+            }
+        }
+        return -1;
+    }
+
+    public boolean markFree(int slotId) {
+        if (!inRange(slotId)) {
+            return false;
+        }
+        int word = slotId >>> 6;
+        long bit = 1L << slotId;
+        if ((present.get(word) & bit) == 0) {
+            return false;
+        }
+        if (setBit(free, word, bit)) {
+            freeCount.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    // Drops a slot that the caller has already claimed with tryOccupy
+    public boolean remove(int slotId) {
+        if (!inRange(slotId)) {
+            return false;
+        }
+        int word = slotId >>> 6;
+        long bit = 1L << slotId;
+        if (clearBit(free, word, bit)) {
+            freeCount.decrementAndGet();
+        }
+        for (AtomicLongArray members : typeMembers.values()) {
+            clearBit(members, word, bit);
+        }
+        if (clearBit(present, word, bit)) {
+            totalCount.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    public boolean isPresent(int slotId) {
+        return inRange(slotId) && (present.get(slotId >>> 6) & (1L << slotId)) != 0;
+    }
+
+    public boolean isFree(int slotId) {
+        return inRange(slotId) && (free.get(slotId >>> 6) & (1L << slotId)) != 0;
+    }
+
+    public int getTotalCount() {
+        return totalCount.get();
+    }
+
+    public int getFreeCount() {
+        return freeCount.get();
+    }
+
+    public int getOccupiedCount() {
+        return totalCount.get() - freeCount.get();
+    }
+
+    public List<Integer> getFreeSlots() {
+        return collect(free);
+    }
+
+    public List<Integer> getAllSlots() {
+        return collect(present);
+    }
+
+    private List<Integer> collect(AtomicLongArray bits) {
+        int last = highestWord.get();
+        List<Integer> slots = new ArrayList<>();
+        for (int word = 0; word <= last; word++) {
+            addSlots(slots, word, bits.get(word));
+        }
+        return slots;
+    }
+
+    // The present and free words up to the highest in use, for a caller that must read
+    // them under its own lock and list the slots after releasing it
+    public long[][] copyWords() {
+        int words = highestWord.get() + 1;
+        long[] presentWords = new long[words];
+        long[] freeWords = new long[words];
+        for (int word = 0; word < words; word++) {
+            presentWords[word] = present.get(word);
+            freeWords[word] = free.get(word);
+        }
+        return new long[][] {presentWords, freeWords};
+    }
+
+    public static List<Integer> slotsIn(long[] words) {
+        List<Integer> slots = new ArrayList<>();
+        for (int word = 0; word < words.length; word++) {
+            addSlots(slots, word, words[word]);
+        }
+        return slots;
+    }
+
+    public static boolean isSet(long[] words, int slotId) {
+        int word = slotId >>> 6;
+        return word < words.length && (words[word] & (1L << slotId)) != 0;
+    }
+
+    private static void addSlots(List<Integer> slots, int word, long value) {
+        while (value != 0) {
+            int bit = Long.numberOfTrailingZeros(value);
+            slots.add(word * WORD_BITS + bit);
+            value &= value - 1;
+        }
+    }
+
+    public int getFreeCount(String slotType) {
+        AtomicLongArray members = typeMembers.get(normalizeType(slotType));
+        if (members == null) {
+            return 0;
+        }
+        int last = highestWord.get();
+        int count = 0;
+        for (int word = 0; word <= last; word++) {
+            count += Long.bitCount(free.get(word) & members.get(word));
+        }
+        return count;
+    }
+
+    private static String normalizeType(String slotType) {
+        return slotType.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private void checkRange(int slotId) {
+        if (!inRange(slotId)) {
+            throw new IllegalArgumentException("Slot id " + slotId + " is outside 0.." + (capacity - 1));
+        }
+    }
+
+    private static boolean setBit(AtomicLongArray bits, int word, long bit) {
+        long current;
+        do {
+            current = bits.get(word);
+            if ((current & bit) != 0) {
+                return false;
+            }
+        } while (!bits.compareAndSet(word, current, current | bit));
+        return true;
+    }
+
+    private static boolean clearBit(AtomicLongArray bits, int word, long bit) {
+        long current;
+        do {
+            current = bits.get(word);
+            if ((current & bit) == 0) {
+                return false;
+            }
+        } while (!bits.compareAndSet(word, current, current & ~bit));
+        return true;
+    }
+}
@@ -0,0 +1,648 @@
+package org.parking.model;
+
+import org.parking.util.PlateCodec;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Cold storage for closed transactions. A background task moves sessions that exited
+// more than archiveAfterDays ago out of the transactions table into immutable,
+// gzipped, tab-separated segment files, one or more per entry month. Each segment has a
+// small Properties sidecar (.idx) with its entry-time range, row count, totals and the
+// codes of the plates it holds, so history lookups only open segments that can match
+// and analytics can add cold totals without reading segments at all.
+//
+// A segment is published by renaming its .idx into place after the data file is
+// synced, and its rows are deleted from the table afterwards. The segment names of a
+// batch go to a pending file before anything is published and stay there until the
+// delete commits; recover() replays it after a crash. Readers may briefly see a row
+// both hot and cold and drop the duplicate by id; readers that add table and archive
+// totals instead go through readSettled(), which waits out that window.
+public class TransactionArchive {
+    // One archived transactions row
+    public static final class Row {
+        private final long id;
+        private final String plateNumber;
+        private final int slotId;
+        private final String entryTime;
+        private final String exitTime;
+        private final Long durationMinutes;
+        private final Double cost;
+        private final String paymentStatus;
+        private final String createdAt;
+
+        Row(long id, String plateNumber, int slotId, String entryTime, String exitTime,
+            Long durationMinutes, Double cost, String paymentStatus, String createdAt) {
+            this.id = id;
+            this.plateNumber = plateNumber;
+            this.slotId = slotId;
+            this.entryTime = entryTime;
+            this.exitTime = exitTime;
+            this.durationMinutes = durationMinutes;
+            this.cost = cost;
+            this.paymentStatus = paymentStatus;
+            this.createdAt = createdAt;
+        }
+
+        public long getId() { return id; }
+        public String getPlateNumber() { return plateNumber; }
+        public int getSlotId() { return slotId; }
+        public String getEntryTime() { return entryTime; }
+        public String getExitTime() { return exitTime; }
+        public Long getDurationMinutes() { return durationMinutes; }
+        public Double getCost() { return cost; }
+        public String getPaymentStatus() { return paymentStatus; }
+        public String getCreatedAt() { return createdAt; }
+    }
+
+    static final class Segment {
+        final Path data;
+        final String minEntry;
+        final String maxEntry;
+        final int rows;
+        final double revenue;
+        final long[] plateCodes;
+        final Set<String> uncodedPlates;
+
+        Segment(Path data, String minEntry, String maxEntry, int rows, double revenue,
+                long[] plateCodes, Set<String> uncodedPlates) {
+            this.data = data;
+            this.minEntry = minEntry;
+            this.maxEntry = maxEntry;
+            this.rows = rows;
+            this.revenue = revenue;
+            this.plateCodes = plateCodes;
+            this.uncodedPlates = uncodedPlates;
+        }
+
+        boolean mayContain(String plateNumber) {
+            long code = PlateCodec.encode(plateNumber);
+            return code != PlateCodec.INVALID
+                ? Arrays.binarySearch(plateCodes, code) >= 0
+                : uncodedPlates.contains(plateNumber);
+        }
+    }
+
+    private static final Comparator<Segment> SEGMENT_ORDER =
+        Comparator.comparing((Segment s) -> s.minEntry).thenComparing(s -> s.data.getFileName().toString());
+
+    private static final int BATCH_SIZE = 20000;
+    private static final String DATA_SUFFIX = ".tsv.gz";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final String PENDING_FILE = "pending-deletes";
+    private static final String NULL = "\\N";
+
+    private static boolean enabled = false;
+    private static Path directory = Paths.get("archive");
+    private static int archiveAfterDays = 180;
+    private static long intervalMinutes = 60;
+
+    private static volatile List<Segment> segments = List.of();
+    private static ScheduledExecutorService scheduler;
+    // Held for writing from the moment a batch is published until its rows have left
+    // the table, and by recover() and clear()
+    private static final ReentrantReadWriteLock overlap = new ReentrantReadWriteLock();
+    private static volatile String lastRun;
+    private static volatile int lastRunArchived;
+
+    public static synchronized void configure(boolean archiveEnabled, String dir, int afterDays, long interval) {
+        stop();
+        enabled = archiveEnabled;
+        directory = Paths.get(dir);
+        // At least a day, so today's live counters never lose rows
+        archiveAfterDays = Math.max(1, afterDays);
+        intervalMinutes = Math.max(1, interval);
+        loadSegments();
+        if (enabled) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "transaction-archiver");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(TransactionArchive::runScheduled,
+                intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+        }
+    }
+
+    public static synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private static void runScheduled() {
+        try {
+            int archived = archive();
+            if (archived > 0) {
+                System.out.println("Archived " + archived + " closed transactions to " + directory);
+            }
+        } catch (Exception e) {
+            System.err.println("Error archiving transactions: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    // Reads every published segment index; unpublished data files are leftovers from an
+    // interrupted run and are removed
+    private static synchronized void loadSegments() {
+        List<Segment> loaded = new ArrayList<>();
+        if (Files.isDirectory(directory)) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+                for (Path file : files) {
+                    String name = file.getFileName().toString();
+                    if (name.endsWith(INDEX_SUFFIX)) {
+                        loaded.add(readIndex(file));
+                    } else if (name.endsWith(DATA_SUFFIX) && !Files.exists(indexFor(file))) {
+                        Files.deleteIfExists(file);
+                    } else if (name.endsWith(".tmp")) {
+                        Files.deleteIfExists(file);
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println("Error loading archive segments: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+        loaded.sort(SEGMENT_ORDER);
+        segments = Collections.unmodifiableList(loaded);
+        System.out.println("Loaded " + loaded.size() + " archive segments");
+    }
+
+    // Finishes deletes that a crash interrupted, so no row is both hot and cold
+    public static synchronized void recover() {
+        Path pending = directory.resolve(PENDING_FILE);
+        if (!Files.exists(pending)) {
+            return;
+        }
+        overlap.writeLock().lock();
+        try {
+            List<Long> ids = new ArrayList<>();
+            for (String name : Files.readAllLines(pending, StandardCharsets.UTF_8)) {
+                Path data = directory.resolve(name.trim());
+                // Only published segments; an unpublished one never left the table
+                if (!name.isBlank() && Files.exists(data) && Files.exists(indexFor(data))) {
+                    readSegment(data, row -> ids.add(row.getId()));
+                }
+            }
+            deleteRows(ids);
+            Files.delete(pending);
+            loadSegments();
+            System.out.println("Recovered archive run, removed " + ids.size() + " archived rows from the table");
+        } catch (IOException | SQLException e) {
+            System.err.println("Error recovering archive run: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            overlap.writeLock().unlock();
+        }
+    }
+
+    // Archives every eligible row now; returns how many were moved
+    public static synchronized int archive() throws SQLException, IOException {
+        Files.createDirectories(directory);
+        recover();
+        String cutoff = LocalDateTime.now().minusDays(archiveAfterDays).toString();
+        int total = 0;
+        while (true) {
+            List<Row> batch = readBatch(cutoff);
+            if (batch.isEmpty()) {
+                break;
+            }
+            // One segment per entry month in this batch
+            Map<String, List<Row>> byMonth = new TreeMap<>();
+            for (Row row : batch) {
+                byMonth.computeIfAbsent(row.getEntryTime().substring(0, 7), m -> new ArrayList<>()).add(row);
+            }
+
+            // Record the segments before publishing them, so a crash at any later point
+            // leaves recover() a list of rows to take out of the table
+            Path pending = directory.resolve(PENDING_FILE);
+            List<String> names = new ArrayList<>();
+            for (Map.Entry<String, List<Row>> month : byMonth.entrySet()) {
+                names.add(segmentName(month.getKey(), month.getValue()) + DATA_SUFFIX);
+            }
+            Files.write(pending, names, StandardCharsets.UTF_8);
+
+            List<Segment> written = new ArrayList<>();
+            for (Map.Entry<String, List<Row>> month : byMonth.entrySet()) {
+                written.add(writeSegment(month.getKey(), month.getValue()));
+            }
+            List<Long> ids = new ArrayList<>(batch.size());
+            for (Row row : batch) {
+                ids.add(row.getId());
+            }
+            // Visible as cold before the rows leave the table; readers drop duplicates by id
+            overlap.writeLock().lock();
+            try {
+                List<Segment> updated = new ArrayList<>(segments);
+                updated.addAll(written);
+                updated.sort(SEGMENT_ORDER);
+                segments = Collections.unmodifiableList(updated);
+                deleteRows(ids);
+            } finally {
+                overlap.writeLock().unlock();
+            }
+            Files.delete(pending);
+            total += batch.size();
+            if (batch.size() < BATCH_SIZE) {
+                break;
+            }
+        }
+        lastRun = LocalDateTime.now().toString();
+        lastRunArchived = total;
+        return total;
+    }
+
+    private static List<Row> readBatch(String cutoff) throws SQLException {
+        List<Row> batch = new ArrayList<>();
+        try (Connection conn = DatabaseManager.getConnection()) {
+            PreparedStatement ps = conn.prepareStatement(
+                "SELECT id, plateNumber, slotId, entryTime, exitTime, duration_minutes, cost, payment_status, created_at " +
+                "FROM transactions WHERE exitTime IS NOT NULL AND exitTime < ? AND length(entryTime) >= 7 " +
+                "ORDER BY entryTime, id LIMIT " + BATCH_SIZE,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY
+            );
+            ps.setString(1, cutoff);
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                long duration = rs.getLong("duration_minutes");
+                Long durationMinutes = rs.wasNull() ? null : duration;
+                double cost = rs.getDouble("cost");
+                Double costValue = rs.wasNull() ? null : cost;
+                batch.add(new Row(rs.getLong("id"), rs.getString("plateNumber"), rs.getInt("slotId"),
+                    rs.getString("entryTime"), rs.getString("exitTime"), durationMinutes, costValue,
+                    rs.getString("payment_status"), rs.getString("created_at")));
+            }
+        }
+        return batch;
+    }
+
+    // Runs a read that adds table and archive figures on a pooled connection, at a point
+    // where no row is both in a published segment and still in the table
+    static <T> T readSettled(DatabaseManager.SqlWork<T> work) throws SQLException {
+        overlap.readLock().lock();
+        try (Connection conn = DatabaseManager.getConnection()) {
+            return work.execute(conn);
+        } finally {
+            overlap.readLock().unlock();
+        }
+    }
+
+    @FunctionalInterface
+    public interface Repair<T> {
+        T run() throws SQLException;
+    }
+
+    // Deletes every segment, then runs the repair that empties the table; no archive run
+    // can fall in between and leave segments for rows the repair removed
+    public static synchronized <T> T clear(Repair<T> emptyTable) throws SQLException, IOException {
+        overlap.writeLock().lock();
+        try {
+            segments = List.of();
+            if (Files.isDirectory(directory)) {
+                // Indexes first: a data file without one is discarded by loadSegments()
+                List<Path> others = new ArrayList<>();
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+                    for (Path file : files) {
+                        String name = file.getFileName().toString();
+                        if (name.endsWith(INDEX_SUFFIX)) {
+                            Files.deleteIfExists(file);
+                        } else if (name.endsWith(DATA_SUFFIX) || name.endsWith(".tmp") || name.equals(PENDING_FILE)) {
+                            others.add(file);
+                        }
+                    }
+                }
+                for (Path file : others) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } finally {
+            overlap.writeLock().unlock();
+        }
+        return emptyTable.run();
+    }
+
+    private static void deleteRows(List<Long> ids) throws SQLException {
+        if (ids.isEmpty()) {
+            return;
+        }
+        DatabaseManager.write(conn -> {
+            PreparedStatement ps = conn.prepareStatement("DELETE FROM transactions WHERE id = ?");
+            for (Long id : ids) {
+                ps.setLong(1, id);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+            return null;
+        });
+    }
+
+    private static String segmentName(String month, List<Row> rows) {
+        return "transactions-" + month + "-" + rows.get(0).getId();
+    }
+
+    private static Segment writeSegment(String month, List<Row> rows) throws IOException {
+        String base = segmentName(month, rows);
+        Path data = directory.resolve(base + DATA_SUFFIX);
+        Path dataTmp = directory.resolve(base + DATA_SUFFIX + ".tmp");
+
+        Set<Long> codes = new HashSet<>();
+        Set<String> uncoded = new HashSet<>();
+        String minEntry = null;
+        String maxEntry = null;
+        double revenue = 0;
+        try (FileChannel channel = FileChannel.open(dataTmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            GZIPOutputStream gzip = new GZIPOutputStream(Channels.newOutputStream(channel), 64 * 1024);
+            Writer writer = new BufferedWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8), 64 * 1024);
+            for (Row row : rows) {
+                writeRow(row, writer);
+                long code = PlateCodec.encode(row.getPlateNumber());
+                if (code != PlateCodec.INVALID) {
+                    codes.add(code);
+                } else {
+                    uncoded.add(row.getPlateNumber());
+                }
+                if (minEntry == null || row.getEntryTime().compareTo(minEntry) < 0) {
+                    minEntry = row.getEntryTime();
+                }
+                if (maxEntry == null || row.getEntryTime().compareTo(maxEntry) > 0) {
+                    maxEntry = row.getEntryTime();
+                }
+                revenue += costOf(row);
+            }
+            writer.flush();
+            gzip.finish();
+            channel.force(true);
+        }
+        Files.move(dataTmp, data, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        long[] plateCodes = codes.stream().mapToLong(Long::longValue).sorted().toArray();
+        Properties index = new Properties();
+        index.setProperty("data", data.getFileName().toString());
+        index.setProperty("minEntry", minEntry);
+        index.setProperty("maxEntry", maxEntry);
+        index.setProperty("rows", Integer.toString(rows.size()));
+        index.setProperty("revenue", Double.toString(revenue));
+        StringBuilder plates = new StringBuilder();
+        for (long code : plateCodes) {
+            if (plates.length() > 0) {
+                plates.append(',');
+            }
+            plates.append(Long.toString(code, Character.MAX_RADIX));
+        }
+        index.setProperty("plateCodes", plates.toString());
+        index.setProperty("uncodedPlates", String.join("\t", uncoded));
+
+        Path indexFile = indexFor(data);
+        Path indexTmp = directory.resolve(indexFile.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(indexTmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            Writer writer = new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8);
+            index.store(writer, "Archive segment index");
+            writer.flush();
+            channel.force(true);
+        }
+        // Publishing the index makes the segment visible
+        Files.move(indexTmp, indexFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return new Segment(data, minEntry, maxEntry, rows.size(), revenue, plateCodes, uncoded);
+    }
+
+    private static Segment readIndex(Path indexFile) throws IOException {
+        Properties index = new Properties();
+        try (Reader reader = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8)) {
+            index.load(reader);
+        }
+        String codes = index.getProperty("plateCodes", "");
+        long[] plateCodes = codes.isEmpty() ? new long[0]
+            : Arrays.stream(codes.split(",")).mapToLong(c -> Long.parseLong(c, Character.MAX_RADIX)).sorted().toArray();
+        String uncoded = index.getProperty("uncodedPlates", "");
+        Set<String> uncodedPlates = uncoded.isEmpty() ? Set.of() : new HashSet<>(Arrays.asList(uncoded.split("\t")));
+        return new Segment(indexFile.resolveSibling(index.getProperty("data")),
+            index.getProperty("minEntry"), index.getProperty("maxEntry"),
+            Integer.parseInt(index.getProperty("rows", "0")),
+            Double.parseDouble(index.getProperty("revenue", "0")),
+            plateCodes, uncodedPlates);
+    }
+
+    private static Path indexFor(Path data) {
+        String name = data.getFileName().toString();
+        return data.resolveSibling(name.substring(0, name.length() - DATA_SUFFIX.length()) + INDEX_SUFFIX);
+    }
+
+    // Cost as stored, or priced from the duration for rows closed by the admin endpoints
+    static double costOf(Row row) {
+        if (row.getCost() != null) {
+            return row.getCost();
+        }
+        return TransactionDAO.calculateCost(minutesOf(row));
+    }
+
+    static long minutesOf(Row row) {
+        if (row.getDurationMinutes() != null) {
+            return row.getDurationMinutes();
+        }
+        try {
+            return ChronoUnit.MINUTES.between(
+                LocalDateTime.parse(row.getEntryTime()), LocalDateTime.parse(row.getExitTime()));
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
+    // Tab-separated, with \N for null and backslash escapes for tabs and newlines
+    private static void writeRow(Row row, Writer writer) throws IOException {
+        writeField(Long.toString(row.getId()), writer);
+        writer.write('\t');
+        writeField(row.getPlateNumber(), writer);
+        writer.write('\t');
+        writeField(Integer.toString(row.getSlotId()), writer);
+        writer.write('\t');
+        writeField(row.getEntryTime(), writer);
+        writer.write('\t');
+        writeField(row.getExitTime(), writer);
+        writer.write('\t');
+        writeField(row.getDurationMinutes() != null ? row.getDurationMinutes().toString() : null, writer);
+        writer.write('\t');
+        writeField(row.getCost() != null ? row.getCost().toString() : null, writer);
+        writer.write('\t');
+        writeField(row.getPaymentStatus(), writer);
+        writer.write('\t');
+        writeField(row.getCreatedAt(), writer);
+        writer.write('\n');
+    }
+
+    private static void writeField(String value, Writer writer) throws IOException {
+        if (value == null) {
+            writer.write(NULL);
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\': writer.write("\\\\"); break;
+                case '\t': writer.write("\\t"); break;
+                case '\n': writer.write("\\n"); break;
+                case '\r': writer.write("\\r"); break;
+                default: writer.write(c);
+            }
+        }
+    }
+
+    private static String readField(String field) {
+        if (field.equals(NULL)) {
+            return null;
+        }
+        if (field.indexOf('\\') < 0) {
+            return field;
+        }
+        StringBuilder value = new StringBuilder(field.length());
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == '\\' && i + 1 < field.length()) {
+                char next = field.charAt(++i);
+                value.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+            } else {
+                value.append(c);
+            }
+        }
+        return value.toString();
+    }
+
+    private static void readSegment(Path data, Consumer<Row> visitor) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(data), 64 * 1024), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] f = line.split("\t", -1);
+                String duration = readField(f[5]);
+                String cost = readField(f[6]);
+                visitor.accept(new Row(Long.parseLong(f[0]), readField(f[1]), Integer.parseInt(f[2]),
+                    readField(f[3]), readField(f[4]),
+                    duration != null ? Long.valueOf(duration) : null,
+                    cost != null ? Double.valueOf(cost) : null,
+                    readField(f[7]), readField(f[8])));
+            }
+        }
+    }
+
+    // Every archived row, segment by segment in entry-month order
+    public static void forEachRow(Consumer<Row> visitor) throws IOException {
+        for (Segment segment : segments) {
+            readSegment(segment.data, visitor);
+        }
+    }
+
+    // Archived rows with entryTime in [from, to) (either bound may be null), in
+    // segment order; segments outside the range are skipped using their index
+    public static void forEachRow(String from, String to, Consumer<Row> visitor) throws IOException {
+        for (Segment segment : segments) {
+            if ((from != null && segment.maxEntry.compareTo(from) < 0)
+                    || (to != null && segment.minEntry.compareTo(to) >= 0)) {
+                continue;
+            }
+            readSegment(segment.data, row -> {
+                if ((from == null || row.getEntryTime().compareTo(from) >= 0)
+                        && (to == null || row.getEntryTime().compareTo(to) < 0)) {
+                    visitor.accept(row);
+                }
+            });
+        }
+    }
+
+    // Up to limit archived rows for the plate, newest first, strictly before the
+    // (entryTime, id) keyset position if one is given. Only segments whose index lists
+    // the plate and that start before the position are opened.
+    public static List<Row> history(String plateNumber, String beforeEntry, long beforeId, int limit) {
+        List<Row> rows = new ArrayList<>();
+        for (Segment segment : segments) {
+            if (!segment.mayContain(plateNumber)
+                    || (beforeEntry != null && segment.minEntry.compareTo(beforeEntry) > 0)) {
+                continue;
+            }
+            try {
+                readSegment(segment.data, row -> {
+                    if (row.getPlateNumber().equals(plateNumber)
+                            && (beforeEntry == null || before(row, beforeEntry, beforeId))) {
+                        rows.add(row);
+                    }
+                });
+            } catch (IOException e) {
+                System.err.println("Error reading archive segment " + segment.data + ": " + e.getMessage());
+            }
+        }
+        rows.sort(Comparator.comparing(Row::getEntryTime).thenComparingLong(Row::getId).reversed());
+        return rows.size() > limit ? new ArrayList<>(rows.subList(0, limit)) : rows;
+    }
+
+    private static boolean before(Row row, String entryTime, long id) {
+        int cmp = row.getEntryTime().compareTo(entryTime);
+        return cmp < 0 || (cmp == 0 && row.getId() < id);
+    }
+
+    public static int getRowCount() {
+        int rows = 0;
+        for (Segment segment : segments) {
+            rows += segment.rows;
+        }
+        return rows;
+    }
+
+    public static double getRevenue() {
+        double revenue = 0;
+        for (Segment segment : segments) {
+            revenue += segment.revenue;
+        }
+        return revenue;
+    }
+
+    public static Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("directory", directory.toAbsolutePath().toString());
+        stats.put("archiveAfterDays", archiveAfterDays);
+        stats.put("segments", segments.size());
+        stats.put("rows", getRowCount());
+        stats.put("lastRun", lastRun);
+        stats.put("lastRunArchived", lastRunArchived);
+        return stats;
+    }
+}
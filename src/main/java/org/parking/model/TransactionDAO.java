@@ -1,224 +1,270 @@
 package org.parking.model;
 
+import org.parking.util.PlateCodec;
+
+import java.nio.charset.StandardCharsets;
 import java.sql.*;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class TransactionDAO {
     public static void logEntry(String plateNumber, int slotId) {
-        try (Connection conn = DatabaseManager.getConnection()) {
-            PreparedStatement ps = conn.prepareStatement(
-                "INSERT INTO transactions (plateNumber, slotId, entryTime, created_at) VALUES (?, ?, ?, ?)"
-            );
-            String now = LocalDateTime.now().toString();
-            ps.setString(1, plateNumber.toUpperCase().trim());
-            ps.setInt(2, slotId);
-            ps.setString(3, now);
-            ps.setString(4, now);
-            ps.executeUpdate();
+        String plate = PlateCodec.normalize(plateNumber);
+        String now = LocalDateTime.now().toString();
+        try {
+            long id = DatabaseManager.write(conn -> insertEntry(conn, plate, slotId, now));
+            ActiveSessionIndex.ActiveSession session = new ActiveSessionIndex.ActiveSession(id, plate, slotId, now);
+            ActiveSessionIndex.put(session);
+            LiveStatistics.recordEntry(session);
         } catch (SQLException e) {
             e.printStackTrace();
         }
     }
 
+    // Inserts the entry row and its rollup counts on the caller's connection so they can
+    // share a transaction. Returns the new transaction id.
+    static long insertEntry(Connection conn, String plateNumber, int slotId, String entryTime) throws SQLException {
+        PreparedStatement ps = conn.prepareStatement(
+            "INSERT INTO transactions (plateNumber, slotId, entryTime, created_at) VALUES (?, ?, ?, ?)"
+        );
+        ps.setString(1, plateNumber);
+        ps.setInt(2, slotId);
+        ps.setString(3, entryTime);
+        ps.setString(4, entryTime);
+        ps.executeUpdate();
+        
+        ResultSet rs = conn.createStatement().executeQuery("SELECT last_insert_rowid()");
+        long id = rs.next() ? rs.getLong(1) : -1;
+        RollupDAO.recordEntry(conn, entryTime, SlotDAO.occupancy().getOccupiedCount());
+        return id;
+    }
+
     public static boolean isVehicleCurrentlyParked(String plateNumber) {
-        try (Connection conn = DatabaseManager.getConnection()) {
-            PreparedStatement ps = conn.prepareStatement(
-                "SELECT COUNT(*) FROM transactions WHERE plateNumber = ? AND exitTime IS NULL"
-            );
-            ps.setString(1, plateNumber.toUpperCase().trim());
-            ResultSet rs = ps.executeQuery();
-            
-            if (rs.next()) {
-                return rs.getInt(1) > 0;
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
+        return ActiveSessionIndex.isParked(plateNumber);
+    }
+
+    public static final class ExitDetails {
+        private final String exitTime;
+        private final long durationMinutes;
+        private final double cost;
+
+        ExitDetails(String exitTime, long durationMinutes, double cost) {
+            this.exitTime = exitTime;
+            this.durationMinutes = durationMinutes;
+            this.cost = cost;
         }
-        return false;
+
+        public String getExitTime() { return exitTime; }
+        public long getDurationMinutes() { return durationMinutes; }
+        public double getCost() { return cost; }
     }
 
+    // Closes an open session and counts it in the rollups on the caller's connection,
+    // pricing it from its entry time. Returns null if the session was already closed.
+    static ExitDetails closeSession(Connection conn, ActiveSessionIndex.ActiveSession session) throws SQLException {
+        LocalDateTime entryTime = LocalDateTime.parse(session.getEntryTime());
+        LocalDateTime exitTime = LocalDateTime.now();
+        long durationMinutes = ChronoUnit.MINUTES.between(entryTime, exitTime);
+        double cost = calculateCost(durationMinutes);
+        
+        PreparedStatement updatePs = conn.prepareStatement(
+            "UPDATE transactions SET exitTime=?, duration_minutes=?, cost=?, payment_status='completed' WHERE id=? AND exitTime IS NULL"
+        );
+        updatePs.setString(1, exitTime.toString());
+        updatePs.setLong(2, durationMinutes);
+        updatePs.setDouble(3, cost);
+        updatePs.setLong(4, session.getTransactionId());
+        
+        if (updatePs.executeUpdate() == 0) {
+            return null;
+        }
+        RollupDAO.recordExit(conn, exitTime.toString(), durationMinutes, cost);
+        return new ExitDetails(exitTime.toString(), durationMinutes, cost);
+    }
+
+    // Closes the plate's open session without touching its slot
     public static boolean logExit(String plateNumber) {
-        try (Connection conn = DatabaseManager.getConnection()) {
-            // First get the entry time to calculate duration and cost
-            PreparedStatement getEntryPs = conn.prepareStatement(
-                "SELECT id, entryTime, slotId FROM transactions WHERE plateNumber=? AND exitTime IS NULL ORDER BY entryTime DESC LIMIT 1"
-            );
-            getEntryPs.setString(1, plateNumber.toUpperCase().trim());
-            ResultSet rs = getEntryPs.executeQuery();
-            
-            if (rs.next()) {
-                int transactionId = rs.getInt("id");
-                String entryTimeStr = rs.getString("entryTime");
-                int slotId = rs.getInt("slotId");
-                
-                LocalDateTime entryTime = LocalDateTime.parse(entryTimeStr);
-                LocalDateTime exitTime = LocalDateTime.now();
-                long durationMinutes = ChronoUnit.MINUTES.between(entryTime, exitTime);
-                double cost = calculateCost(durationMinutes);
-                
-                // Update the transaction with exit details
-                PreparedStatement updatePs = conn.prepareStatement(
-                    "UPDATE transactions SET exitTime=?, duration_minutes=?, cost=?, payment_status='completed' WHERE id=?"
-                );
-                updatePs.setString(1, exitTime.toString());
-                updatePs.setLong(2, durationMinutes);
-                updatePs.setDouble(3, cost);
-                updatePs.setInt(4, transactionId);
-                
-                return updatePs.executeUpdate() > 0;
-            }
+        ActiveSessionIndex.ActiveSession session = ActiveSessionIndex.lookup(plateNumber);
+        if (session == null) {
             return false;
+        }
+        try {
+            ExitDetails exit = DatabaseManager.write(conn -> closeSession(conn, session));
+            ActiveSessionIndex.remove(session);
+            if (exit == null) {
+                return false;
+            }
+            LiveStatistics.recordExit(exit);
+            return true;
         } catch (SQLException e) {
             e.printStackTrace();
             return false;
         }
     }
 
-    public static List<Map<String, Object>> getHistory(String plateNumber) {
-        List<Map<String, Object>> history = new ArrayList<>();
-        try (Connection conn = DatabaseManager.getConnection()) {
-            PreparedStatement ps = conn.prepareStatement(
-                "SELECT * FROM transactions WHERE plateNumber=? ORDER BY entryTime DESC"
-            );
-            ps.setString(1, plateNumber);
-            ResultSet rs = ps.executeQuery();
-            while (rs.next()) {
-                Map<String, Object> transaction = new HashMap<>();
-                transaction.put("id", rs.getInt("id"));
-                transaction.put("plateNumber", rs.getString("plateNumber"));
-                transaction.put("slotId", rs.getInt("slotId"));
-                transaction.put("entryTime", rs.getString("entryTime"));
-                transaction.put("exitTime", rs.getString("exitTime"));
-                
-                // Calculate duration if exit time exists
-                String entryTime = rs.getString("entryTime");
-                String exitTime = rs.getString("exitTime");
-                if (entryTime != null && exitTime != null) {
-                    try {
-                        LocalDateTime entry = LocalDateTime.parse(entryTime);
-                        LocalDateTime exit = LocalDateTime.parse(exitTime);
-                        long minutes = ChronoUnit.MINUTES.between(entry, exit);
-                        transaction.put("duration", formatDuration(minutes));
-                        transaction.put("cost", calculateCost(minutes));
-                    } catch (Exception e) {
-                        transaction.put("duration", "N/A");
-                        transaction.put("cost", 0.0);
-                    }
-                } else {
-                    transaction.put("duration", "Ongoing");
-                    transaction.put("cost", 0.0);
-                }
-                
-                history.add(transaction);
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
+    public static final int MAX_PAGE_SIZE = 500;
+
+    // One page of transactions, newest first. nextCursor is null on the last page.
+    public static final class Page {
+        private final List<Map<String, Object>> transactions;
+        private final String nextCursor;
+
+        Page(List<Map<String, Object>> transactions, String nextCursor) {
+            this.transactions = transactions;
+            this.nextCursor = nextCursor;
         }
-        return history;
+
+        public List<Map<String, Object>> getTransactions() { return transactions; }
+        public String getNextCursor() { return nextCursor; }
+    }
+
+    public static Page getHistory(String plateNumber, String cursor, int limit) {
+        return getPage(PlateCodec.normalize(plateNumber), cursor, limit);
+    }
+
+    public static Page getAllTransactions(String cursor, int limit) {
+        return getPage(null, cursor, limit);
     }
 
-    public static List<Map<String, Object>> getAllTransactions() {
+    // Keyset pagination on (entryTime, id): each page seeks straight to the row after
+    // the cursor through idx_transactions_entry or idx_transactions_plate_entry, so
+    // deep pages cost the same as the first. The cursor is opaque to clients.
+    private static Page getPage(String plateNumber, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        String[] after = cursor != null && !cursor.isBlank() ? decodeCursor(cursor) : null;
+        
+        StringBuilder sql = new StringBuilder("SELECT * FROM transactions WHERE 1=1");
+        if (plateNumber != null) {
+            sql.append(" AND plateNumber = ?");
+        }
+        if (after != null) {
+            sql.append(" AND (entryTime, id) < (?, ?)");
+        }
+        sql.append(" ORDER BY entryTime DESC, id DESC LIMIT ?");
+        
         List<Map<String, Object>> transactions = new ArrayList<>();
         try (Connection conn = DatabaseManager.getConnection()) {
-            PreparedStatement ps = conn.prepareStatement(
-                "SELECT * FROM transactions ORDER BY entryTime DESC LIMIT 100"
-            );
+            PreparedStatement ps = conn.prepareStatement(sql.toString(),
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            int i = 1;
+            if (plateNumber != null) {
+                ps.setString(i++, plateNumber);
+            }
+            if (after != null) {
+                ps.setString(i++, after[0]);
+                ps.setLong(i++, Long.parseLong(after[1]));
+            }
+            // One extra row tells us whether another page follows
+            ps.setInt(i, pageSize + 1);
+            ps.setFetchSize(pageSize + 1);
             ResultSet rs = ps.executeQuery();
             while (rs.next()) {
-                Map<String, Object> transaction = new HashMap<>();
-                transaction.put("id", rs.getInt("id"));
-                transaction.put("plateNumber", rs.getString("plateNumber"));
-                transaction.put("slotId", rs.getInt("slotId"));
-                transaction.put("entryTime", rs.getString("entryTime"));
-                transaction.put("exitTime", rs.getString("exitTime"));
-                
-                String entryTime = rs.getString("entryTime");
-                String exitTime = rs.getString("exitTime");
-                if (entryTime != null && exitTime != null) {
-                    try {
-                        LocalDateTime entry = LocalDateTime.parse(entryTime);
-                        LocalDateTime exit = LocalDateTime.parse(exitTime);
-                        long minutes = ChronoUnit.MINUTES.between(entry, exit);
-                        transaction.put("duration", formatDuration(minutes));
-                        transaction.put("cost", calculateCost(minutes));
-                    } catch (Exception e) {
-                        transaction.put("duration", "N/A");
-                        transaction.put("cost", 0.0);
-                    }
-                } else {
-                    transaction.put("duration", "Ongoing");
-                    transaction.put("cost", 0.0);
-                }
-                
-                transactions.add(transaction);
+                transactions.add(toMap(rs.getInt("id"), rs.getString("plateNumber"), rs.getInt("slotId"),
+                    rs.getString("entryTime"), rs.getString("exitTime")));
             }
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        return transactions;
+        
+        // A plate's older history may have moved to the archive; merge it in by the same
+        // keyset order, dropping rows that are briefly in both places
+        if (plateNumber != null) {
+            List<TransactionArchive.Row> cold = TransactionArchive.history(plateNumber,
+                after != null ? after[0] : null, after != null ? Long.parseLong(after[1]) : 0, pageSize + 1);
+            if (!cold.isEmpty()) {
+                Set<Integer> hotIds = new HashSet<>();
+                for (Map<String, Object> transaction : transactions) {
+                    hotIds.add((Integer) transaction.get("id"));
+                }
+                for (TransactionArchive.Row row : cold) {
+                    if (!hotIds.contains((int) row.getId())) {
+                        transactions.add(toMap((int) row.getId(), row.getPlateNumber(), row.getSlotId(),
+                            row.getEntryTime(), row.getExitTime()));
+                    }
+                }
+                transactions.sort(Comparator.comparing((Map<String, Object> t) -> (String) t.get("entryTime"))
+                    .thenComparing(t -> (Integer) t.get("id")).reversed());
+            }
+        }
+        
+        String nextCursor = null;
+        if (transactions.size() > pageSize) {
+            Map<String, Object> last = transactions.get(pageSize - 1);
+            nextCursor = encodeCursor((String) last.get("entryTime"), ((Number) last.get("id")).longValue());
+            transactions = new ArrayList<>(transactions.subList(0, pageSize));
+        }
+        return new Page(transactions, nextCursor);
     }
 
-    public static Map<String, Object> getTodayStatistics() {
-        Map<String, Object> stats = new HashMap<>();
-        LocalDateTime today = LocalDateTime.now().withHour(0).withMinute(0).withSecond(0);
+    private static String encodeCursor(String entryTime, long id) {
+        String raw = entryTime + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.lastIndexOf('|');
+            if (sep <= 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            Long.parseLong(raw.substring(sep + 1));
+            return new String[] {raw.substring(0, sep), raw.substring(sep + 1)};
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    private static Map<String, Object> toMap(int id, String plateNumber, int slotId, String entryTime, String exitTime) {
+        Map<String, Object> transaction = new HashMap<>();
+        transaction.put("id", id);
+        transaction.put("plateNumber", plateNumber);
+        transaction.put("slotId", slotId);
+        transaction.put("entryTime", entryTime);
+        transaction.put("exitTime", exitTime);
         
-        try (Connection conn = DatabaseManager.getConnection()) {
-            // Today's vehicles count
-            PreparedStatement ps1 = conn.prepareStatement(
-                "SELECT COUNT(DISTINCT plateNumber) as count FROM transactions WHERE entryTime >= ?"
-            );
-            ps1.setString(1, today.toString());
-            ResultSet rs1 = ps1.executeQuery();
-            int todayVehicles = rs1.next() ? rs1.getInt("count") : 0;
-            
-            // Today's revenue
-            PreparedStatement ps2 = conn.prepareStatement(
-                "SELECT entryTime, exitTime FROM transactions WHERE entryTime >= ? AND exitTime IS NOT NULL"
-            );
-            ps2.setString(1, today.toString());
-            ResultSet rs2 = ps2.executeQuery();
-            
-            double totalRevenue = 0;
-            long totalMinutes = 0;
-            int completedTransactions = 0;
-            
-            while (rs2.next()) {
-                try {
-                    LocalDateTime entry = LocalDateTime.parse(rs2.getString("entryTime"));
-                    LocalDateTime exit = LocalDateTime.parse(rs2.getString("exitTime"));
-                    long minutes = ChronoUnit.MINUTES.between(entry, exit);
-                    totalRevenue += calculateCost(minutes);
-                    totalMinutes += minutes;
-                    completedTransactions++;
-                } catch (Exception e) {
-                    // Skip invalid entries
-                }
+        // Calculate duration if exit time exists
+        if (entryTime != null && exitTime != null) {
+            try {
+                LocalDateTime entry = LocalDateTime.parse(entryTime);
+                LocalDateTime exit = LocalDateTime.parse(exitTime);
+                long minutes = ChronoUnit.MINUTES.between(entry, exit);
+                transaction.put("duration", formatDuration(minutes));
+                transaction.put("cost", calculateCost(minutes));
+            } catch (Exception e) {
+                transaction.put("duration", "N/A");
+                transaction.put("cost", 0.0);
             }
-            
-            stats.put("vehicles", todayVehicles);
-            stats.put("revenue", Math.round(totalRevenue * 100.0) / 100.0);
-            stats.put("averageDuration", completedTransactions > 0 ? 
-                formatDuration(totalMinutes / completedTransactions) : "0h 0m");
-            
-            // Calculate peak occupancy (simplified)
-            int currentOccupied = SlotDAO.getTotalSlots() - SlotDAO.getAvailableSlots().size();
-            int totalSlots = SlotDAO.getTotalSlots();
-            double peakOccupancy = totalSlots > 0 ? (double) currentOccupied / totalSlots * 100 : 0;
-            stats.put("peakOccupancy", Math.round(peakOccupancy) + "%");
-            
-        } catch (SQLException e) {
-            e.printStackTrace();
-            stats.put("vehicles", 0);
-            stats.put("revenue", 0.0);
-            stats.put("averageDuration", "0h 0m");
-            stats.put("peakOccupancy", "0%");
+        } else {
+            transaction.put("duration", "Ongoing");
+            transaction.put("cost", 0.0);
         }
+        return transaction;
+    }
+
+    // Served from the live counters; no table scan
+    public static Map<String, Object> getTodayStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        Map<String, Object> live = LiveStatistics.snapshot();
+        
+        stats.put("vehicles", live.get("vehicles"));
+        stats.put("revenue", live.get("revenue"));
+        stats.put("averageDuration", formatDuration((Long) live.get("averageMinutes")));
+        
+        int totalSlots = SlotDAO.getTotalSlots();
+        int peakOccupied = (Integer) live.get("peakOccupied");
+        double peakOccupancy = totalSlots > 0 ? (double) peakOccupied / totalSlots * 100 : 0;
+        stats.put("peakOccupancy", Math.round(peakOccupancy) + "%");
         
         return stats;
     }
@@ -226,71 +272,60 @@ public class TransactionDAO {
     public static Map<String, Object> getAnalyticsData() {
         Map<String, Object> analytics = new HashMap<>();
         
-        try (Connection conn = DatabaseManager.getConnection()) {
-            // Today's statistics
-            Map<String, Object> todayStats = getTodayStatistics();
-            analytics.put("todayVehicles", todayStats.get("vehicles"));
-            analytics.put("averageDuration", ((String) todayStats.get("averageDuration")).replace("h", "").replace("m", "").trim().split(" ")[0]);
-            
-            // Total revenue (all time)
-            PreparedStatement ps = conn.prepareStatement(
-                "SELECT entryTime, exitTime FROM transactions WHERE exitTime IS NOT NULL"
-            );
-            ResultSet rs = ps.executeQuery();
-            
-            double totalRevenue = 0;
-            while (rs.next()) {
-                try {
-                    LocalDateTime entry = LocalDateTime.parse(rs.getString("entryTime"));
-                    LocalDateTime exit = LocalDateTime.parse(rs.getString("exitTime"));
-                    long minutes = ChronoUnit.MINUTES.between(entry, exit);
-                    totalRevenue += calculateCost(minutes);
-                } catch (Exception e) {
-                    // Skip invalid entries
-                }
-            }
-            
-            analytics.put("totalRevenue", Math.round(totalRevenue));
-            
-            // Mock hourly usage (in real app, calculate from actual data)
-            List<Map<String, Object>> hourlyUsage = new ArrayList<>();
-            hourlyUsage.add(Map.of("label", "6 AM - 9 AM", "value", 15));
-            hourlyUsage.add(Map.of("label", "9 AM - 12 PM", "value", 25));
-            hourlyUsage.add(Map.of("label", "12 PM - 3 PM", "value", 20));
-            hourlyUsage.add(Map.of("label", "3 PM - 6 PM", "value", 30));
-            hourlyUsage.add(Map.of("label", "6 PM - 9 PM", "value", 22));
-            hourlyUsage.add(Map.of("label", "9 PM - 12 AM", "value", 8));
-            analytics.put("hourlyUsage", hourlyUsage);
-            
-            // Mock vehicle types
-            List<Map<String, Object>> vehicleTypes = new ArrayList<>();
-            vehicleTypes.add(Map.of("label", "Sedans", "value", 45));
-            vehicleTypes.add(Map.of("label", "SUVs", "value", 32));
-            vehicleTypes.add(Map.of("label", "Trucks", "value", 15));
-            vehicleTypes.add(Map.of("label", "Motorcycles", "value", 8));
-            analytics.put("vehicleTypes", vehicleTypes);
-            
-            // Revenue data
-            List<Map<String, Object>> revenueData = new ArrayList<>();
-            revenueData.add(Map.of("period", "Today", "amount", todayStats.get("revenue"), "change", "+12%"));
-            revenueData.add(Map.of("period", "This Week", "amount", (Double) todayStats.get("revenue") * 7, "change", "+8%"));
-            revenueData.add(Map.of("period", "This Month", "amount", (Double) todayStats.get("revenue") * 30, "change", "+15%"));
-            analytics.put("revenueData", revenueData);
-            
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+        // Today's statistics
+        Map<String, Object> todayStats = getTodayStatistics();
+        analytics.put("todayVehicles", todayStats.get("vehicles"));
+        analytics.put("averageDuration", ((String) todayStats.get("averageDuration")).replace("h", "").replace("m", "").trim().split(" ")[0]);
+        
+        // Total revenue (all time)
+        analytics.put("totalRevenue", Math.round(LiveStatistics.getTotalRevenue()));
+        
+        // Mock hourly usage (in real app, calculate from actual data)
+        List<Map<String, Object>> hourlyUsage = new ArrayList<>();
+        hourlyUsage.add(Map.of("label", "6 AM - 9 AM", "value", 15));
+        hourlyUsage.add(Map.of("label", "9 AM - 12 PM", "value", 25));
+        hourlyUsage.add(Map.of("label", "12 PM - 3 PM", "value", 20));
+        hourlyUsage.add(Map.of("label", "3 PM - 6 PM", "value", 30));
+        hourlyUsage.add(Map.of("label", "6 PM - 9 PM", "value", 22));
+        hourlyUsage.add(Map.of("label", "9 PM - 12 AM", "value", 8));
+        analytics.put("hourlyUsage", hourlyUsage);
+        
+        // Mock vehicle types
+        List<Map<String, Object>> vehicleTypes = new ArrayList<>();
+        vehicleTypes.add(Map.of("label", "Sedans", "value", 45));
+        vehicleTypes.add(Map.of("label", "SUVs", "value", 32));
+        vehicleTypes.add(Map.of("label", "Trucks", "value", 15));
+        vehicleTypes.add(Map.of("label", "Motorcycles", "value", 8));
+        analytics.put("vehicleTypes", vehicleTypes);
+        
+        // Revenue by collection day, from the daily rollups
+        LocalDate today = LocalDate.now();
+        List<Map<String, Object>> revenueData = new ArrayList<>();
+        revenueData.add(revenuePeriod("Today", today, 1));
+        revenueData.add(revenuePeriod("This Week", today, 7));
+        revenueData.add(revenuePeriod("This Month", today, 30));
+        analytics.put("revenueData", revenueData);
         
         return analytics;
     }
 
+    // Revenue of the last `days` days up to today, and its change on the period before
+    private static Map<String, Object> revenuePeriod(String label, LocalDate today, int days) {
+        double current = RollupDAO.getRevenue(today.minusDays(days - 1), today);
+        double previous = RollupDAO.getRevenue(today.minusDays(2L * days - 1), today.minusDays(days));
+        String change = previous > 0
+            ? String.format("%+d%%", Math.round((current - previous) / previous * 100))
+            : "N/A";
+        return Map.of("period", label, "amount", Math.round(current * 100.0) / 100.0, "change", change);
+    }
+
     private static String formatDuration(long minutes) {
         long hours = minutes / 60;
         long mins = minutes % 60;
         return hours + "h " + mins + "m";
     }
 
-    private static double calculateCost(long minutes) {
+    static double calculateCost(long minutes) {
         // ₹50 per hour, minimum ₹25
         double hours = Math.max(1, Math.ceil(minutes / 60.0));
         return Math.max(25.0, hours * 50.0);
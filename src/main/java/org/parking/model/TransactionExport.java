@@ -0,0 +1,254 @@
+package org.parking.model;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.BitSet;
+import java.util.zip.GZIPOutputStream;
+
+// Writes transactions straight from JDBC result sets to an output stream, as CSV or
+// NDJSON. Archived rows come first, segment by segment, then the table oldest first.
+// Table rows are read in keyset chunks of CHUNK_SIZE, each on its own short-lived
+// pooled connection, so an export of any size holds one chunk in memory and never
+// keeps a read transaction open long enough to stall writers or checkpoints. A row
+// the archiver has published but not yet deleted is in both places; the ids written
+// from the archive are kept in a bit set and skipped in the table.
+public class TransactionExport {
+    public enum Format { CSV, NDJSON }
+
+    private static final int CHUNK_SIZE = 5000;
+    private static final String[] COLUMNS = {
+        "id", "plateNumber", "slotId", "entryTime", "exitTime", "duration_minutes", "cost", "payment_status"
+    };
+
+    private final Format format;
+    private final String from;
+    private final String to;
+    private final Integer slotId;
+    private final boolean gzip;
+
+    // from/to are ISO dates or date-times on entryTime, from inclusive and to exclusive.
+    // Throws IllegalArgumentException for unknown formats or unparseable bounds.
+    public TransactionExport(String format, String from, String to, Integer slotId, boolean gzip) {
+        try {
+            this.format = Format.valueOf(format.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported export format: " + format);
+        }
+        this.from = bound(from);
+        this.to = bound(to);
+        this.slotId = slotId;
+        this.gzip = gzip;
+    }
+
+    public String getContentType() {
+        if (gzip) {
+            return "application/gzip";
+        }
+        return format == Format.CSV ? "text/csv" : "application/x-ndjson";
+    }
+
+    public String getFileName() {
+        return "transactions." + (format == Format.CSV ? "csv" : "ndjson") + (gzip ? ".gz" : "");
+    }
+
+    // Returns the number of rows written
+    public long writeTo(OutputStream out) throws IOException, SQLException {
+        // syncFlush, so flushing the writer after a chunk pushes it through the deflater too
+        GZIPOutputStream gzipOut = gzip ? new GZIPOutputStream(out, 64 * 1024, true) : null;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(gzipOut != null ? gzipOut : out, StandardCharsets.UTF_8), 64 * 1024);
+        if (format == Format.CSV) {
+            writer.write(String.join(",", COLUMNS));
+            writer.write('\n');
+        }
+
+        long[] archived = new long[1];
+        BitSet archivedIds = new BitSet();
+        Object[] values = new Object[COLUMNS.length];
+        TransactionArchive.forEachRow(from, to, row -> {
+            if (slotId != null && row.getSlotId() != slotId) {
+                return;
+            }
+            archivedIds.set((int) row.getId());
+            values[0] = row.getId();
+            values[1] = row.getPlateNumber();
+            values[2] = row.getSlotId();
+            values[3] = row.getEntryTime();
+            values[4] = row.getExitTime();
+            values[5] = row.getDurationMinutes();
+            values[6] = row.getCost();
+            values[7] = row.getPaymentStatus();
+            try {
+                writeRow(values, writer);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            archived[0]++;
+        });
+
+        long rows = archived[0];
+        String afterEntryTime = null;
+        long afterId = 0;
+        while (true) {
+            int read = 0;
+            try (Connection conn = DatabaseManager.getConnection()) {
+                PreparedStatement ps = prepareChunk(conn, afterEntryTime, afterId);
+                ResultSet rs = ps.executeQuery();
+                while (rs.next()) {
+                    afterEntryTime = rs.getString("entryTime");
+                    afterId = rs.getLong("id");
+                    read++;
+                    if (archivedIds.get((int) afterId)) {
+                        continue;
+                    }
+                    for (int c = 0; c < COLUMNS.length; c++) {
+                        values[c] = rs.getObject(c + 1);
+                    }
+                    writeRow(values, writer);
+                    rows++;
+                }
+            }
+            // Push each chunk to the client before reading the next
+            writer.flush();
+            if (read < CHUNK_SIZE) {
+                break;
+            }
+        }
+
+        if (gzipOut != null) {
+            gzipOut.finish();
+        }
+        writer.flush();
+        return rows;
+    }
+
+    private PreparedStatement prepareChunk(Connection conn, String afterEntryTime, long afterId) throws SQLException {
+        StringBuilder sql = new StringBuilder("SELECT ").append(String.join(", ", COLUMNS))
+            .append(" FROM transactions WHERE 1=1");
+        if (from != null) {
+            sql.append(" AND entryTime >= ?");
+        }
+        if (to != null) {
+            sql.append(" AND entryTime < ?");
+        }
+        if (slotId != null) {
+            sql.append(" AND slotId = ?");
+        }
+        if (afterEntryTime != null) {
+            sql.append(" AND (entryTime, id) > (?, ?)");
+        }
+        sql.append(" ORDER BY entryTime, id LIMIT ").append(CHUNK_SIZE);
+
+        PreparedStatement ps = conn.prepareStatement(sql.toString(),
+            ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        ps.setFetchSize(CHUNK_SIZE);
+        int i = 1;
+        if (from != null) {
+            ps.setString(i++, from);
+        }
+        if (to != null) {
+            ps.setString(i++, to);
+        }
+        if (slotId != null) {
+            ps.setInt(i++, slotId);
+        }
+        if (afterEntryTime != null) {
+            ps.setString(i++, afterEntryTime);
+            ps.setLong(i, afterId);
+        }
+        return ps;
+    }
+
+    private void writeRow(Object[] values, Writer writer) throws IOException {
+        if (format == Format.CSV) {
+            writeCsv(values, writer);
+        } else {
+            writeJson(values, writer);
+        }
+    }
+
+    private static void writeCsv(Object[] values, Writer writer) throws IOException {
+        for (int c = 0; c < COLUMNS.length; c++) {
+            if (c > 0) {
+                writer.write(',');
+            }
+            if (values[c] == null) {
+                continue;
+            }
+            String value = values[c].toString();
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(value);
+            }
+        }
+        writer.write('\n');
+    }
+
+    private static void writeJson(Object[] values, Writer writer) throws IOException {
+        writer.write('{');
+        for (int c = 0; c < COLUMNS.length; c++) {
+            if (c > 0) {
+                writer.write(',');
+            }
+            writer.write('"');
+            writer.write(COLUMNS[c]);
+            writer.write("\":");
+            Object value = values[c];
+            if (value == null) {
+                writer.write("null");
+            } else if (value instanceof Number) {
+                writer.write(value.toString());
+            } else {
+                writeJsonString(value.toString(), writer);
+            }
+        }
+        writer.write("}\n");
+    }
+
+    private static void writeJsonString(String value, Writer writer) throws IOException {
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            switch (ch) {
+                case '"': writer.write("\\\""); break;
+                case '\\': writer.write("\\\\"); break;
+                case '\n': writer.write("\\n"); break;
+                case '\r': writer.write("\\r"); break;
+                case '\t': writer.write("\\t"); break;
+                default:
+                    if (ch < 0x20) {
+                        writer.write(String.format("\\u%04x", (int) ch));
+                    } else {
+                        writer.write(ch);
+                    }
+            }
+        }
+        writer.write('"');
+    }
+
+    private static String bound(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String trimmed = value.trim();
+        try {
+            return trimmed.length() == 10 ? LocalDate.parse(trimmed).toString() : LocalDateTime.parse(trimmed).toString();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date: " + value);
+        }
+    }
+}
@@ -4,11 +4,10 @@ import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
+// Password hashing and checks go through PasswordHasher, and may throw
+// PasswordHasher.Busy when too many are already waiting
 public class UserDAO {
-    private static final BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(12);
-
     public static boolean registerUser(String username, String password, String role) {
         return registerUser(username, password, role, null);
     }
@@ -24,18 +23,21 @@ public class UserDAO {
             return false;
         }
 
-        try (Connection conn = DatabaseManager.getConnection()) {
-            String hashed = encoder.encode(password);
-            PreparedStatement ps = conn.prepareStatement(
-                "INSERT INTO users (username, password, role, email, created_at, is_active) VALUES (?, ?, ?, ?, ?, ?)"
-            );
-            ps.setString(1, username.toLowerCase().trim());
-            ps.setString(2, hashed);
-            ps.setString(3, role);
-            ps.setString(4, email);
-            ps.setString(5, LocalDateTime.now().toString());
-            ps.setBoolean(6, true);
-            ps.executeUpdate();
+        try {
+            // Hash before queueing so the writer thread never runs BCrypt
+            String hashed = PasswordHasher.encode(password);
+            DatabaseManager.write(conn -> {
+                PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO users (username, password, role, email, created_at, is_active) VALUES (?, ?, ?, ?, ?, ?)"
+                );
+                ps.setString(1, username.toLowerCase().trim());
+                ps.setString(2, hashed);
+                ps.setString(3, role);
+                ps.setString(4, email);
+                ps.setString(5, LocalDateTime.now().toString());
+                ps.setBoolean(6, true);
+                return ps.executeUpdate();
+            });
             return true;
         } catch (SQLException e) {
             e.printStackTrace();
@@ -44,33 +46,43 @@ public class UserDAO {
     }
 
     public static boolean validateLogin(String username, String password) {
+        return authenticate(username, password) != null;
+    }
+
+    // Checks the password and returns the user's role, or null when the login fails.
+    // Hash, active flag and role come from one read; last_login and the failed attempt
+    // count are recorded through LoginBookkeeping rather than written here.
+    public static String authenticate(String username, String password) {
+        String storedHash;
+        String role;
         try (Connection conn = DatabaseManager.getConnection()) {
             PreparedStatement ps = conn.prepareStatement(
-                "SELECT password, is_active FROM users WHERE username=?"
+                "SELECT password, is_active, role FROM users WHERE username=?"
             );
             ps.setString(1, username.toLowerCase().trim());
             ResultSet rs = ps.executeQuery();
             
-            if (rs.next()) {
-                boolean isActive = rs.getBoolean("is_active");
-                if (!isActive) {
-                    return false; // Account is deactivated
-                }
-                
-                String storedHash = rs.getString("password");
-                boolean isValid = encoder.matches(password, storedHash);
-                
-                if (isValid) {
-                    updateLastLogin(username);
-                }
-                
-                return isValid;
+            if (!rs.next()) {
+                return null;
             }
-            return false;
+            boolean isActive = rs.getBoolean("is_active");
+            if (!isActive) {
+                return null; // Account is deactivated
+            }
+            storedHash = rs.getString("password");
+            role = rs.getString("role");
         } catch (SQLException e) {
             e.printStackTrace();
-            return false;
+            return null;
+        }
+
+        // The connection is back in the pool before the slow hash check starts
+        if (!PasswordHasher.matches(password, storedHash)) {
+            LoginBookkeeping.recordFailure(username);
+            return null;
         }
+        LoginBookkeeping.recordSuccess(username);
+        return role != null ? role : "user";
     }
 
     public static String getUserRole(String username) {
@@ -102,7 +114,8 @@ public class UserDAO {
                 profile.put("username", rs.getString("username"));
                 profile.put("role", rs.getString("role"));
                 profile.put("createdAt", rs.getString("created_at"));
-                profile.put("lastLogin", rs.getString("last_login"));
+                String pendingLogin = LoginBookkeeping.pendingLastLogin(username);
+                profile.put("lastLogin", pendingLogin != null ? pendingLogin : rs.getString("last_login"));
                 profile.put("isActive", rs.getBoolean("is_active"));
             }
         } catch (SQLException e) {
@@ -112,7 +125,7 @@ public class UserDAO {
     }
 
     public static boolean updateUserProfile(String username, Map<String, Object> updates) {
-        try (Connection conn = DatabaseManager.getConnection()) {
+        try {
             StringBuilder query = new StringBuilder("UPDATE users SET ");
             boolean first = true;
             
@@ -123,14 +136,16 @@ public class UserDAO {
             }
             query.append(" WHERE username = ?");
             
-            PreparedStatement ps = conn.prepareStatement(query.toString());
-            int index = 1;
-            for (Object value : updates.values()) {
-                ps.setObject(index++, value);
-            }
-            ps.setString(index, username.toLowerCase().trim());
-            
-            return ps.executeUpdate() > 0;
+            return DatabaseManager.write(conn -> {
+                PreparedStatement ps = conn.prepareStatement(query.toString());
+                int index = 1;
+                for (Object value : updates.values()) {
+                    ps.setObject(index++, value);
+                }
+                ps.setString(index, username.toLowerCase().trim());
+                
+                return ps.executeUpdate() > 0;
+            });
         } catch (SQLException e) {
             e.printStackTrace();
             return false;
@@ -142,16 +157,18 @@ public class UserDAO {
             return false;
         }
         
-        try (Connection conn = DatabaseManager.getConnection()) {
-            String hashedNewPassword = encoder.encode(newPassword);
-            PreparedStatement ps = conn.prepareStatement(
-                "UPDATE users SET password = ?, password_changed_at = ? WHERE username = ?"
-            );
-            ps.setString(1, hashedNewPassword);
-            ps.setString(2, LocalDateTime.now().toString());
-            ps.setString(3, username.toLowerCase().trim());
-            
-            return ps.executeUpdate() > 0;
+        try {
+            String hashedNewPassword = PasswordHasher.encode(newPassword);
+            return DatabaseManager.write(conn -> {
+                PreparedStatement ps = conn.prepareStatement(
+                    "UPDATE users SET password = ?, password_changed_at = ? WHERE username = ?"
+                );
+                ps.setString(1, hashedNewPassword);
+                ps.setString(2, LocalDateTime.now().toString());
+                ps.setString(3, username.toLowerCase().trim());
+                
+                return ps.executeUpdate() > 0;
+            });
         } catch (SQLException e) {
             e.printStackTrace();
             return false;
@@ -188,26 +205,15 @@ public class UserDAO {
         return false;
     }
 
-    private static void updateLastLogin(String username) {
-        try (Connection conn = DatabaseManager.getConnection()) {
-            PreparedStatement ps = conn.prepareStatement(
-                "UPDATE users SET last_login = ? WHERE username = ?"
-            );
-            ps.setString(1, LocalDateTime.now().toString());
-            ps.setString(2, username.toLowerCase().trim());
-            ps.executeUpdate();
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-    }
-
     public static boolean deactivateUser(String username) {
-        try (Connection conn = DatabaseManager.getConnection()) {
-            PreparedStatement ps = conn.prepareStatement(
-                "UPDATE users SET is_active = false WHERE username = ?"
-            );
-            ps.setString(1, username.toLowerCase().trim());
-            return ps.executeUpdate() > 0;
+        try {
+            return DatabaseManager.write(conn -> {
+                PreparedStatement ps = conn.prepareStatement(
+                    "UPDATE users SET is_active = false WHERE username = ?"
+                );
+                ps.setString(1, username.toLowerCase().trim());
+                return ps.executeUpdate() > 0;
+            });
         } catch (SQLException e) {
             e.printStackTrace();
             return false;
@@ -0,0 +1,54 @@
+package org.parking.model;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class VehicleDAO {
+    // Plates registered in [from, to): rows of the vehicles table by created_at, plus
+    // plates whose first recorded entry falls in the range, since gate entries do not
+    // create vehicles rows. Bounds are ISO dates or date-times; either may be null.
+    // The first-entry half walks idx_transactions_plate_entry once, one step per plate.
+    public static List<String> getRegisteredPlates(String from, String to, int limit) throws SQLException {
+        String lower = bound(from, "0000");
+        String upper = bound(to, "9999");
+        List<String> plates = new ArrayList<>();
+        try (Connection conn = DatabaseManager.getConnection()) {
+            PreparedStatement ps = conn.prepareStatement("""
+                SELECT plateNumber FROM vehicles WHERE created_at >= ? AND created_at < ?
+                UNION
+                SELECT plateNumber FROM transactions GROUP BY plateNumber
+                HAVING MIN(entryTime) >= ? AND MIN(entryTime) < ?
+                ORDER BY plateNumber LIMIT ?
+            """);
+            ps.setString(1, lower);
+            ps.setString(2, upper);
+            ps.setString(3, lower);
+            ps.setString(4, upper);
+            ps.setInt(5, limit);
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                plates.add(rs.getString(1));
+            }
+        }
+        return plates;
+    }
+
+    private static String bound(String value, String open) {
+        if (value == null || value.isBlank()) {
+            return open;
+        }
+        String trimmed = value.trim();
+        try {
+            return trimmed.length() == 10 ? LocalDate.parse(trimmed).toString() : LocalDateTime.parse(trimmed).toString();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date: " + value);
+        }
+    }
+}
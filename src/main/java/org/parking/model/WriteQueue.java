@@ -0,0 +1,344 @@
+package org.parking.model;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+
+// Single writer thread for SQLite. Request threads enqueue units of work; the writer
+// drains whatever is queued, runs each unit under its own savepoint and commits the
+// whole batch at once, so one commit covers many gate events and a failing unit only
+// rolls back itself.
+//
+// A caller that gives up waiting withdraws its unit. The writer claims each unit
+// before running it, so a withdrawn unit is never run and a claimed one is always
+// waited for: a timeout means the write did not happen, never that it may yet commit.
+public class WriteQueue {
+    private static final long WRITE_TIMEOUT_SECONDS = 30;
+
+    private final DatabaseManager.ConnectionFactory connectionFactory;
+    private final int maxBatchSize;
+    private final BlockingQueue<Task<?>> queue;
+    private final Thread writer;
+    private volatile boolean running = true;
+    private Connection connection;
+    private Connection taskConnection;
+
+    // Metrics
+    private final LongAdder batchCount = new LongAdder();
+    private final LongAdder taskCount = new LongAdder();
+    private final LongAdder failedTaskCount = new LongAdder();
+    private final LongAdder commitNanosTotal = new LongAdder();
+    private final AtomicInteger lastBatchSize = new AtomicInteger();
+    private final AtomicInteger maxObservedBatchSize = new AtomicInteger();
+    private volatile IntConsumer batchSizeListener = size -> { };
+
+    public WriteQueue(DatabaseManager.ConnectionFactory connectionFactory, int maxBatchSize, int capacity) {
+        this.connectionFactory = connectionFactory;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.writer = new Thread(this::run, "db-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    public <T> T submit(DatabaseManager.SqlWork<T> work) throws SQLException {
+        if (Thread.currentThread() == writer) {
+            // Nested write from inside a unit of work: join the open transaction
+            return work.execute(taskConnection);
+        }
+        if (!running) {
+            throw new SQLException("Write queue is shut down");
+        }
+        Task<T> task = new Task<>(work);
+        try {
+            if (!queue.offer(task, WRITE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                throw new SQLTimeoutException("Write queue is full (" + queue.size() + " pending)");
+            }
+            return task.result.get(WRITE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            if (task.withdraw()) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for the database writer", e);
+            }
+            return awaitClaimed(task, true);
+        } catch (TimeoutException e) {
+            if (task.withdraw()) {
+                throw new SQLTimeoutException("Timed out waiting for the database writer", e);
+            }
+            // Already running in the current batch, so its outcome is moments away
+            return awaitClaimed(task, false);
+        } catch (ExecutionException e) {
+            throw failure(e);
+        }
+    }
+
+    // Waits out a unit the writer has claimed, ignoring interrupts so the caller learns
+    // whether it committed
+    private static <T> T awaitClaimed(Task<T> task, boolean interrupted) throws SQLException {
+        try {
+            while (true) {
+                try {
+                    return task.result.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    throw failure(e);
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // The SQLException to throw for a failed unit; runtime failures are rethrown as they are
+    private static SQLException failure(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof SQLException) {
+            return (SQLException) cause;
+        }
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        return new SQLException("Write failed", cause);
+    }
+
+    private void run() {
+        List<Task<?>> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Task<?> first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+                commitBatch(batch);
+            } catch (InterruptedException e) {
+                running = false;
+            } catch (Throwable e) {
+                // Whatever escaped a batch, its uncommitted work goes with the connection
+                // and the writer carries on with the next one
+                for (Task<?> task : batch) {
+                    task.result.completeExceptionally(e);
+                }
+                e.printStackTrace();
+                closeConnection();
+            } finally {
+                batch.clear();
+            }
+        }
+        closeConnection();
+    }
+
+    private void commitBatch(List<Task<?>> batch) {
+        long start = System.nanoTime();
+        List<Runnable> completions = new ArrayList<>(batch.size());
+        // Units their callers withdrew before the writer got to them are dropped unrun
+        batch.removeIf(task -> !task.claim());
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            Connection conn = connection();
+            conn.setAutoCommit(false);
+            for (Task<?> task : batch) {
+                Savepoint savepoint = conn.setSavepoint();
+                TaskScope scope = new TaskScope(conn);
+                taskConnection = scope.proxy();
+                try {
+                    completions.add(task.executeIn(taskConnection));
+                    scope.closeStatements();
+                    conn.releaseSavepoint(savepoint);
+                } catch (SQLException | RuntimeException e) {
+                    scope.closeStatements();
+                    conn.rollback(savepoint);
+                    failedTaskCount.increment();
+                    task.result.completeExceptionally(e);
+                } finally {
+                    taskConnection = null;
+                }
+            }
+            conn.commit();
+            conn.setAutoCommit(true);
+        } catch (SQLException e) {
+            // Commit failed: nothing in this batch was persisted
+            closeConnection();
+            for (Task<?> task : batch) {
+                task.result.completeExceptionally(e);
+            }
+            failedTaskCount.add(batch.size());
+            return;
+        }
+        completions.forEach(Runnable::run);
+
+        int size = batch.size();
+        commitNanosTotal.add(System.nanoTime() - start);
+        batchCount.increment();
+        taskCount.add(size);
+        lastBatchSize.set(size);
+        maxObservedBatchSize.accumulateAndGet(size, Math::max);
+        batchSizeListener.accept(size);
+    }
+
+    private Connection connection() throws SQLException {
+        if (connection == null || connection.isClosed()) {
+            connection = connectionFactory.open();
+        }
+        return connection;
+    }
+
+    private void closeConnection() {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                // Ignore, reopened on the next batch
+            }
+            connection = null;
+        }
+    }
+
+    public void shutdown() {
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(WRITE_TIMEOUT_SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public void setBatchSizeListener(IntConsumer listener) {
+        this.batchSizeListener = listener != null ? listener : size -> { };
+    }
+
+    public int getQueueDepth() { return queue.size(); }
+    public long getBatchCount() { return batchCount.sum(); }
+    public long getTaskCount() { return taskCount.sum(); }
+    public long getFailedTaskCount() { return failedTaskCount.sum(); }
+    public int getLastBatchSize() { return lastBatchSize.get(); }
+    public long getCommitNanosTotal() { return commitNanosTotal.sum(); }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        long batches = batchCount.sum();
+        long tasks = taskCount.sum();
+        stats.put("queueDepth", queue.size());
+        stats.put("batches", batches);
+        stats.put("tasks", tasks);
+        stats.put("failedTasks", failedTaskCount.sum());
+        stats.put("lastBatchSize", lastBatchSize.get());
+        stats.put("maxBatchSize", maxObservedBatchSize.get());
+        stats.put("avgBatchSize", batches > 0 ? Math.round(tasks * 100.0 / batches) / 100.0 : 0.0);
+        stats.put("avgCommitMicros", batches > 0 ? commitNanosTotal.sum() / batches / 1000 : 0);
+        return stats;
+    }
+
+    // View of the writer connection given to one unit of work. Statements it opens are
+    // closed when the unit finishes; transaction control stays with the writer.
+    private static final class TaskScope implements InvocationHandler {
+        private final Connection conn;
+        private final List<Statement> statements = new ArrayList<>();
+
+        TaskScope(Connection conn) {
+            this.conn = conn;
+        }
+
+        Connection proxy() {
+            return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(), new Class<?>[] {Connection.class}, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    return null;
+                case "commit":
+                case "rollback":
+                case "setAutoCommit":
+                    throw new SQLException("Transactions on the writer connection are managed by WriteQueue");
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            try {
+                Object result = method.invoke(conn, args);
+                if (result instanceof Statement) {
+                    statements.add((Statement) result);
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        void closeStatements() {
+            for (Statement statement : statements) {
+                try {
+                    statement.close();
+                } catch (SQLException e) {
+                    // Already closed
+                }
+            }
+            statements.clear();
+        }
+    }
+
+    private static final class Task<T> {
+        private static final int QUEUED = 0;
+        private static final int CLAIMED = 1;
+        private static final int WITHDRAWN = 2;
+
+        final DatabaseManager.SqlWork<T> work;
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+
+        Task(DatabaseManager.SqlWork<T> work) {
+            this.work = work;
+        }
+
+        // Writer side: true if the unit is still wanted and now belongs to the writer
+        boolean claim() {
+            return state.compareAndSet(QUEUED, CLAIMED);
+        }
+
+        // Caller side: true if the unit will never run
+        boolean withdraw() {
+            if (!state.compareAndSet(QUEUED, WITHDRAWN)) {
+                return false;
+            }
+            result.cancel(false);
+            return true;
+        }
+
+        // Runs the work now; the returned completion is only fired once the batch commits
+        Runnable executeIn(Connection conn) throws SQLException {
+            T value = work.execute(conn);
+            return () -> result.complete(value);
+        }
+    }
+}
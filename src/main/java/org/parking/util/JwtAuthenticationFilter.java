@@ -27,30 +27,29 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         final String requestTokenHeader = request.getHeader("Authorization");
         
-        String username = null;
-        String jwtToken = null;
+        JwtUtil.VerifiedToken verified = null;
         
         if (requestTokenHeader != null && requestTokenHeader.startsWith("Bearer ")) {
-            jwtToken = requestTokenHeader.substring(7);
+            String jwtToken = requestTokenHeader.substring(7);
             try {
-                username = jwtUtil.getUsernameFromToken(jwtToken);
+                // One verification covers subject, role and expiry
+                verified = jwtUtil.verify(jwtToken);
             } catch (Exception e) {
                 logger.warn("Unable to get JWT Token or JWT Token has expired");
             }
         }
         
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            if (jwtUtil.validateToken(jwtToken, username)) {
-                String role = jwtUtil.getRoleFromToken(jwtToken);
-                UsernamePasswordAuthenticationToken authToken = 
-                    new UsernamePasswordAuthenticationToken(
-                        username, 
-                        null, 
-                        Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role.toUpperCase()))
-                    );
-                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authToken);
-            }
+        if (verified != null && verified.getUsername() != null && verified.getRole() != null
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            String role = verified.getRole();
+            UsernamePasswordAuthenticationToken authToken = 
+                new UsernamePasswordAuthenticationToken(
+                    verified.getUsername(), 
+                    null, 
+                    Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role.toUpperCase()))
+                );
+            authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            SecurityContextHolder.getContext().setAuthentication(authToken);
         }
         
         filterChain.doFilter(request, response);
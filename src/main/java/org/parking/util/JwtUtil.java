@@ -2,6 +2,7 @@ package org.parking.util;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -9,19 +10,97 @@ import javax.crypto.SecretKey;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
 
 @Component
 public class JwtUtil {
+    private static final long SWEEP_INTERVAL_MILLIS = 1000;
     
     @Value("${jwt.secret:mySecretKey12345678901234567890123456789012345678901234567890}")
     private String secret;
     
     @Value("${jwt.expiration:86400000}") // 24 hours
     private Long expiration;
-    
+
+    @Value("${jwt.cache.max-entries:10000}")
+    private int cacheMaxEntries;
+
+    // A token that has passed signature and expiry checks
+    public static final class VerifiedToken {
+        private final String username;
+        private final String role;
+        private final long expiresAtMillis;
+
+        VerifiedToken(String username, String role, long expiresAtMillis) {
+            this.username = username;
+            this.role = role;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        public String getUsername() { return username; }
+        public String getRole() { return role; }
+        public long getExpiresAtMillis() { return expiresAtMillis; }
+    }
+
+    // Built once; the key and the parser are immutable and safe to share across threads
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    // Tokens already verified, by token string, until they expire. Requests repeat the
+    // same token many times, so most are authenticated by this one lookup instead of
+    // an HS512 verification. Never holds more than cacheMaxEntries; once full, expired
+    // entries are swept at most once per SWEEP_INTERVAL_MILLIS, by one thread, and new
+    // tokens are verified uncached until room frees up.
+    private final ConcurrentHashMap<String, VerifiedToken> verified = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweepMillis = new AtomicLong();
+
+    // Metrics
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+    }
+
     private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+        return signingKey;
+    }
+
+    // Verifies the token once and returns its subject and role, or throws when the token
+    // is malformed, forged or expired.
+    public VerifiedToken verify(String token) {
+        long now = System.currentTimeMillis();
+        VerifiedToken cached = verified.get(token);
+        if (cached != null) {
+            if (cached.expiresAtMillis > now) {
+                cacheHits.increment();
+                return cached;
+            }
+            verified.remove(token, cached);
+        }
+        cacheMisses.increment();
+
+        Claims claims = getAllClaimsFromToken(token);
+        Date expiry = claims.getExpiration();
+        if (expiry == null) {
+            // Tokens from generateToken always expire; never cache one that does not
+            return new VerifiedToken(claims.getSubject(), claims.get("role", String.class), Long.MAX_VALUE);
+        }
+        VerifiedToken fresh = new VerifiedToken(claims.getSubject(), claims.get("role", String.class), expiry.getTime());
+        long sweepAt = nextSweepMillis.get();
+        if (verified.size() >= cacheMaxEntries && now >= sweepAt
+                && nextSweepMillis.compareAndSet(sweepAt, now + SWEEP_INTERVAL_MILLIS)) {
+            verified.values().removeIf(entry -> entry.expiresAtMillis <= now);
+        }
+        if (verified.size() < cacheMaxEntries) {
+            verified.put(token, fresh);
+        }
+        return fresh;
     }
 
     public String generateToken(String username, String role) {
@@ -42,8 +121,11 @@ public class JwtUtil {
     }
 
     public Boolean validateToken(String token, String username) {
-        final String tokenUsername = getUsernameFromToken(token);
-        return (tokenUsername.equals(username) && !isTokenExpired(token));
+        try {
+            return verify(token).getUsername().equals(username);
+        } catch (RuntimeException e) {
+            return false;
+        }
     }
 
     public String getUsernameFromToken(String token) {
@@ -65,20 +147,22 @@ public class JwtUtil {
 
     private Claims getAllClaimsFromToken(String token) {
         try {
-            return Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+            return parser.parseClaimsJws(token).getBody();
         } catch (ExpiredJwtException | UnsupportedJwtException | MalformedJwtException | 
                  SecurityException | IllegalArgumentException e) {
             throw new RuntimeException("Invalid JWT token", e);
         }
     }
 
-    private Boolean isTokenExpired(String token) {
-        final Date expiration = getExpirationDateFromToken(token);
-        return expiration.before(new Date());
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        long hits = cacheHits.sum();
+        long lookups = hits + cacheMisses.sum();
+        stats.put("cachedTokens", verified.size());
+        stats.put("cacheHits", hits);
+        stats.put("cacheMisses", cacheMisses.sum());
+        stats.put("hitRate", lookups > 0 ? Math.round(hits * 1000.0 / lookups) / 1000.0 : 0);
+        return stats;
     }
 
     public String refreshToken(String token) {
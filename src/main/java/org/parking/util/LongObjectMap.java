@@ -0,0 +1,178 @@
+package org.parking.util;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+// Open-addressing hash map from long keys to objects, so lookups neither box the key
+// nor allocate entries. Key 0 is reserved as the empty marker. Not thread-safe;
+// callers guard it themselves.
+public class LongObjectMap<V> {
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    public LongObjectMap() {
+        this(16);
+    }
+
+    public LongObjectMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(2, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        checkKey(key);
+        int i = slot(key);
+        while (keys[i] != 0) {
+            if (keys[i] == key) {
+                return (V) values[i];
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        checkKey(key);
+        if (value == null) {
+            throw new IllegalArgumentException("Null values are not supported");
+        }
+        int i = slot(key);
+        while (keys[i] != 0) {
+            if (keys[i] == key) {
+                V old = (V) values[i];
+                values[i] = value;
+                return old;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size >= resizeAt) {
+            rehash(keys.length << 1);
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        checkKey(key);
+        int i = slot(key);
+        while (keys[i] != 0) {
+            if (keys[i] == key) {
+                V old = (V) values[i];
+                deleteAt(i);
+                return old;
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    // Removes the key only if it is currently mapped to this exact value
+    public boolean remove(long key, Object value) {
+        checkKey(key);
+        int i = slot(key);
+        while (keys[i] != 0) {
+            if (keys[i] == key) {
+                if (values[i] != value) {
+                    return false;
+                }
+                deleteAt(i);
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEachValue(Consumer<? super V> action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                action.accept((V) values[i]);
+            }
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    // Backward-shift deletion keeps probe chains intact without tombstones
+    private void deleteAt(int hole) {
+        size--;
+        int i = hole;
+        while (true) {
+            i = (i + 1) & mask;
+            long key = keys[i];
+            if (key == 0) {
+                break;
+            }
+            int home = slot(key);
+            // Move the entry back if the hole lies between its home slot and where it sits
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                keys[hole] = key;
+                values[hole] = values[i];
+                hole = i;
+            }
+        }
+        keys[hole] = 0;
+        values[hole] = null;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        for (int j = 0; j < oldKeys.length; j++) {
+            long key = oldKeys[j];
+            if (key != 0) {
+                int i = slot(key);
+                while (keys[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = key;
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private static void checkKey(long key) {
+        if (key == 0) {
+            throw new IllegalArgumentException("Key 0 is reserved");
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package org.parking.util;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Signed parking passes carried in the QR code itself, so a gate can tell a genuine,
+// current pass from a forged or expired one without a database lookup. A token is
+// "P1." followed by 33 bytes in unpadded base64url:
+//
+//   key id (1) | pass type (1) | valid from (4) | valid until (4) | plate code (7) | mac (16)
+//
+// Times are unsigned epoch seconds, the plate is its PlateCodec code, and the mac is
+// HMAC-SHA256 over the first 17 bytes, truncated to 128 bits. At 47 characters the
+// token still fits a low-version QR code that phones and gate cameras read easily.
+//
+// Keys are numbered 0-255. New tokens are signed with the current key; any configured
+// key verifies, so rotating means adding a key, making it current, and dropping the
+// old one once the passes it signed have expired.
+public final class PassToken {
+    public static final String PREFIX = "P1.";
+
+    public enum PassType { SINGLE, DAILY, MONTHLY, STAFF }
+
+    public enum Status { VALID, MALFORMED, UNKNOWN_KEY, BAD_SIGNATURE, NOT_YET_VALID, EXPIRED }
+
+    private static final int BODY_LENGTH = 17;
+    private static final int MAC_LENGTH = 16;
+    // Gate clocks may run slightly behind the issuing server
+    private static final long CLOCK_SKEW_SECONDS = 60;
+
+    private static final class Keyring {
+        final SecretKeySpec[] keys = new SecretKeySpec[256];
+        final int currentKeyId;
+        // Mac is not thread-safe and init is costly; each thread keeps one per key
+        final ThreadLocal<Mac[]> macs = ThreadLocal.withInitial(() -> new Mac[256]);
+
+        Keyring(int currentKeyId) {
+            this.currentKeyId = currentKeyId;
+        }
+    }
+
+    public static final class Pass {
+        private final Status status;
+        private final String plateNumber;
+        private final PassType type;
+        private final long validFrom;
+        private final long validUntil;
+        private final int keyId;
+
+        Pass(Status status, String plateNumber, PassType type, long validFrom, long validUntil, int keyId) {
+            this.status = status;
+            this.plateNumber = plateNumber;
+            this.type = type;
+            this.validFrom = validFrom;
+            this.validUntil = validUntil;
+            this.keyId = keyId;
+        }
+
+        public boolean isValid() { return status == Status.VALID; }
+        public Status getStatus() { return status; }
+        // Null unless the signature checked out
+        public String getPlateNumber() { return plateNumber; }
+        public PassType getType() { return type; }
+        // Epoch seconds
+        public long getValidFrom() { return validFrom; }
+        public long getValidUntil() { return validUntil; }
+        public int getKeyId() { return keyId; }
+    }
+
+    private static volatile Keyring keyring;
+    private static volatile boolean required;
+
+    // Metrics
+    private static final LongAdder verifications = new LongAdder();
+    private static final LongAdder rejections = new LongAdder();
+    private static final LongAdder verifyNanosTotal = new LongAdder();
+
+    private PassToken() {
+    }
+
+    // keys is "id:secret" pairs separated by commas. Secrets shorter than 32 bytes are
+    // refused, as is a current key id that is not among them. When required is set,
+    // gates refuse QR codes that carry a bare plate instead of a token. With no keys,
+    // passes are off: none can be issued and every token is refused, and requiring
+    // them is a configuration error.
+    public static void configure(String keys, int currentKeyId, boolean requireTokens) {
+        if (keys == null || keys.isBlank()) {
+            if (requireTokens) {
+                throw new IllegalStateException("parking.pass.required is set but no pass keys are configured");
+            }
+            keyring = null;
+            required = false;
+            System.out.println("Pass tokens: disabled, no keys configured");
+            return;
+        }
+        Keyring next = new Keyring(currentKeyId);
+        for (String pair : keys.split(",")) {
+            String trimmed = pair.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int colon = trimmed.indexOf(':');
+            if (colon <= 0) {
+                throw new IllegalArgumentException("Pass key must be id:secret");
+            }
+            int id = Integer.parseInt(trimmed.substring(0, colon).trim());
+            byte[] secret = trimmed.substring(colon + 1).getBytes(StandardCharsets.UTF_8);
+            if (id < 0 || id > 255) {
+                throw new IllegalArgumentException("Pass key id must be 0-255: " + id);
+            }
+            if (secret.length < 32) {
+                throw new IllegalArgumentException("Pass key " + id + " must be at least 32 bytes");
+            }
+            next.keys[id] = new SecretKeySpec(secret, "HmacSHA256");
+        }
+        if (currentKeyId < 0 || currentKeyId > 255 || next.keys[currentKeyId] == null) {
+            throw new IllegalArgumentException("Current pass key " + currentKeyId + " is not configured");
+        }
+        keyring = next;
+        required = requireTokens;
+        System.out.println("Pass tokens: signing with key " + currentKeyId + (requireTokens ? ", required at gates" : ""));
+    }
+
+    public static boolean isConfigured() {
+        return keyring != null;
+    }
+
+    public static boolean isRequired() {
+        return required;
+    }
+
+    public static boolean looksLikeToken(String text) {
+        return text != null && text.startsWith(PREFIX);
+    }
+
+    // validFrom and validUntil are epoch seconds
+    public static String issue(String plateNumber, PassType type, long validFrom, long validUntil) {
+        Keyring ring = requireKeyring();
+        long plateCode = PlateCodec.encode(plateNumber);
+        if (plateCode == PlateCodec.INVALID) {
+            throw new IllegalArgumentException("Passes need a plate of 1-" + PlateCodec.MAX_LENGTH + " letters and digits");
+        }
+        if (validUntil <= validFrom || validFrom < 0 || validUntil > 0xFFFFFFFFL) {
+            throw new IllegalArgumentException("Invalid validity window");
+        }
+        byte[] token = new byte[BODY_LENGTH + MAC_LENGTH];
+        token[0] = (byte) ring.currentKeyId;
+        token[1] = (byte) type.ordinal();
+        putUnsigned(token, 2, 4, validFrom);
+        putUnsigned(token, 6, 4, validUntil);
+        putUnsigned(token, 10, 7, plateCode);
+        System.arraycopy(mac(ring, ring.currentKeyId, token), 0, token, BODY_LENGTH, MAC_LENGTH);
+        return PREFIX + Base64.getUrlEncoder().withoutPadding().encodeToString(token);
+    }
+
+    public static Pass verify(String text) {
+        return verify(text, System.currentTimeMillis() / 1000);
+    }
+
+    // Checks shape, key, signature and then the validity window at the given epoch second
+    public static Pass verify(String text, long now) {
+        long start = System.nanoTime();
+        Pass pass = check(text, now);
+        verifications.increment();
+        if (!pass.isValid()) {
+            rejections.increment();
+        }
+        verifyNanosTotal.add(System.nanoTime() - start);
+        return pass;
+    }
+
+    private static Pass check(String text, long now) {
+        Keyring ring = keyring;
+        if (ring == null) {
+            return rejected(Status.UNKNOWN_KEY);
+        }
+        if (!looksLikeToken(text) || text.length() != PREFIX.length() + 44) {
+            return rejected(Status.MALFORMED);
+        }
+        byte[] token;
+        try {
+            token = Base64.getUrlDecoder().decode(text.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            return rejected(Status.MALFORMED);
+        }
+        int keyId = token[0] & 0xFF;
+        if (ring.keys[keyId] == null) {
+            return rejected(Status.UNKNOWN_KEY);
+        }
+        byte[] expected = mac(ring, keyId, token);
+        byte[] actual = new byte[MAC_LENGTH];
+        System.arraycopy(token, BODY_LENGTH, actual, 0, MAC_LENGTH);
+        // Constant time, so response timing does not leak how much of a forged mac matched
+        if (!MessageDigest.isEqual(expected, actual)) {
+            return rejected(Status.BAD_SIGNATURE);
+        }
+
+        int typeIndex = token[1] & 0xFF;
+        long plateCode = getUnsigned(token, 10, 7);
+        if (typeIndex >= PassType.values().length || plateCode <= 0) {
+            return rejected(Status.MALFORMED);
+        }
+        PassType type = PassType.values()[typeIndex];
+        long validFrom = getUnsigned(token, 2, 4);
+        long validUntil = getUnsigned(token, 6, 4);
+        String plate = PlateCodec.decode(plateCode);
+        Status status = now + CLOCK_SKEW_SECONDS < validFrom ? Status.NOT_YET_VALID
+            : now >= validUntil ? Status.EXPIRED
+            : Status.VALID;
+        return new Pass(status, plate, type, validFrom, validUntil, keyId);
+    }
+
+    private static Pass rejected(Status status) {
+        return new Pass(status, null, null, 0, 0, -1);
+    }
+
+    private static Keyring requireKeyring() {
+        Keyring ring = keyring;
+        if (ring == null) {
+            throw new IllegalStateException("Pass keys are not configured");
+        }
+        return ring;
+    }
+
+    // Truncated HMAC of the token body
+    private static byte[] mac(Keyring ring, int keyId, byte[] token) {
+        Mac[] macs = ring.macs.get();
+        Mac mac = macs[keyId];
+        try {
+            if (mac == null) {
+                mac = Mac.getInstance("HmacSHA256");
+                mac.init(ring.keys[keyId]);
+                macs[keyId] = mac;
+            }
+            mac.update(token, 0, BODY_LENGTH);
+            byte[] full = mac.doFinal();
+            byte[] truncated = new byte[MAC_LENGTH];
+            System.arraycopy(full, 0, truncated, 0, MAC_LENGTH);
+            return truncated;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 unavailable", e);
+        }
+    }
+
+    private static void putUnsigned(byte[] bytes, int offset, int length, long value) {
+        for (int i = length - 1; i >= 0; i--) {
+            bytes[offset + i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+
+    private static long getUnsigned(byte[] bytes, int offset, int length) {
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            value = (value << 8) | (bytes[offset + i] & 0xFF);
+        }
+        return value;
+    }
+
+    public static Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        long count = verifications.sum();
+        Keyring ring = keyring;
+        stats.put("currentKeyId", ring != null ? ring.currentKeyId : -1);
+        stats.put("required", required);
+        stats.put("verifications", count);
+        stats.put("rejections", rejections.sum());
+        stats.put("avgVerifyNanos", count > 0 ? verifyNanosTotal.sum() / count : 0);
+        return stats;
+    }
+
+    public static long getVerifications() {
+        return verifications.sum();
+    }
+
+    public static long getRejections() {
+        return rejections.sum();
+    }
+
+    public static long getVerifyNanosTotal() {
+        return verifyNanosTotal.sum();
+    }
+}
@@ -0,0 +1,95 @@
+package org.parking.util;
+
+// Packs a plate number (1-10 characters of A-Z / 0-9) into a long, so plate lookups
+// can key on a primitive instead of hashing and comparing Strings. Each character is a
+// base-37 digit 1..36, with 0 meaning "no character", which keeps the code lossless:
+// "0A" and "00A" get different codes. Ten digits need at most 53 bits.
+//
+// Encoding tolerates lower case and surrounding whitespace, so callers no longer need
+// toUpperCase().trim() before a lookup, and never allocates.
+public final class PlateCodec {
+    public static final long INVALID = -1L;
+    public static final int MAX_LENGTH = 10;
+
+    private static final int RADIX = 37;
+
+    private PlateCodec() {
+    }
+
+    // Returns INVALID if the plate is empty, too long or has other characters
+    public static long encode(CharSequence plate) {
+        if (plate == null) {
+            return INVALID;
+        }
+        int start = 0;
+        int end = plate.length();
+        while (start < end && Character.isWhitespace(plate.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(plate.charAt(end - 1))) {
+            end--;
+        }
+        if (start == end || end - start > MAX_LENGTH) {
+            return INVALID;
+        }
+        long code = 0;
+        for (int i = start; i < end; i++) {
+            int digit = digit(plate.charAt(i));
+            if (digit == 0) {
+                return INVALID;
+            }
+            code = code * RADIX + digit;
+        }
+        return code;
+    }
+
+    public static String decode(long code) {
+        if (code <= 0) {
+            throw new IllegalArgumentException("Not a plate code: " + code);
+        }
+        char[] chars = new char[MAX_LENGTH];
+        int pos = MAX_LENGTH;
+        while (code > 0) {
+            if (pos == 0) {
+                throw new IllegalArgumentException("Not a plate code: " + code);
+            }
+            int digit = (int) (code % RADIX);
+            if (digit == 0) {
+                throw new IllegalArgumentException("Not a plate code: " + code);
+            }
+            chars[--pos] = digit <= 10 ? (char) ('0' + digit - 1) : (char) ('A' + digit - 11);
+            code /= RADIX;
+        }
+        return new String(chars, pos, MAX_LENGTH - pos);
+    }
+
+    // Upper-cased, trimmed form of the plate. Returns the same instance when it is
+    // already in that form, which is the normal case for validated requests.
+    public static String normalize(String plate) {
+        if (plate == null) {
+            return null;
+        }
+        int length = plate.length();
+        boolean canonical = length > 0
+            && !Character.isWhitespace(plate.charAt(0))
+            && !Character.isWhitespace(plate.charAt(length - 1));
+        for (int i = 0; canonical && i < length; i++) {
+            char c = plate.charAt(i);
+            canonical = !(c >= 'a' && c <= 'z');
+        }
+        return canonical ? plate : plate.toUpperCase().trim();
+    }
+
+    private static int digit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0' + 1;
+        }
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A' + 11;
+        }
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a' + 11;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,108 @@
+package org.parking.util;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+// Enforces the rate.limit.* properties. Signed-in requests are limited per user and
+// anonymous ones per client address; each endpoint group has its own limits and its
+// own buckets. Runs after JwtAuthenticationFilter, so the user is known, and answers
+// rejected requests itself with a fixed body, before any controller or database work.
+// Streaming endpoints hold one request open for a long time and are not counted.
+public class RateLimitFilter extends OncePerRequestFilter {
+    private static final byte[] REJECTED_BODY =
+        "{\"success\":false,\"message\":\"Too many requests\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final RateLimiter gate;
+    private final RateLimiter auth;
+    private final RateLimiter debug;
+    private final RateLimiter api;
+
+    public RateLimitFilter(RateLimiter gate, RateLimiter auth, RateLimiter debug, RateLimiter api) {
+        this.gate = gate;
+        this.auth = auth;
+        this.debug = debug;
+        this.api = api;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        RateLimiter limiter = limiterFor(request.getRequestURI());
+        if (limiter != null) {
+            long waitNanos = limiter.tryAcquire(clientKey(request));
+            if (waitNanos == 0) {
+                filterChain.doFilter(request, response);
+                return;
+            }
+            long retryAfter = Math.max(1, (waitNanos + 999_999_999L) / 1_000_000_000L);
+            response.setStatus(429);
+            response.setHeader("Retry-After", String.valueOf(retryAfter));
+            response.setContentType("application/json");
+            response.setContentLength(REJECTED_BODY.length);
+            response.getOutputStream().write(REJECTED_BODY);
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    // Null for requests that are not limited
+    private RateLimiter limiterFor(String path) {
+        if (!path.startsWith("/api/")) {
+            return null;
+        }
+        if (path.equals("/api/health") || path.equals("/api/slots/stream") || path.equals("/api/notifications")) {
+            return null;
+        }
+        if (path.equals("/api/book") || path.equals("/api/book/auto") || path.equals("/api/release")
+                || path.startsWith("/api/gate/")) {
+            return gate;
+        }
+        if (path.equals("/api/login") || path.equals("/api/login-test") || path.equals("/api/register")) {
+            return auth;
+        }
+        if (path.startsWith("/api/debug/")) {
+            return debug;
+        }
+        return api;
+    }
+
+    // Anonymous clients are keyed by the remote address, not X-Forwarded-For, which any
+    // client can set
+    private static String clientKey(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            return "user:" + authentication.getName();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("gate", stats(gate));
+        stats.put("auth", stats(auth));
+        stats.put("debug", stats(debug));
+        stats.put("api", stats(api));
+        return stats;
+    }
+
+    private static Map<String, Object> stats(RateLimiter limiter) {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", limiter.isEnabled());
+        stats.put("clients", limiter.size());
+        stats.put("allowed", limiter.getAllowed());
+        stats.put("rejected", limiter.getRejected());
+        return stats;
+    }
+}
@@ -0,0 +1,122 @@
+package org.parking.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Per-key token buckets for a per-minute and a per-hour limit, each bucket a single
+// long: the generic cell rate algorithm keeps only the "theoretical arrival time" of
+// the next request, and a request fits if that time is no further ahead than the
+// burst the limit allows. Acquiring is one compare-and-set per limit, with no locks.
+//
+// Keys are spread over STRIPES maps. Every SWEEP_EVERY acquisitions one stripe, in
+// turn, drops keys whose buckets have refilled completely. Such a key behaves exactly
+// the same when recreated, so eviction gives a client nothing beyond, at most, one
+// request that raced the sweep.
+public class RateLimiter {
+    private static final int STRIPES = 16;
+    private static final int SWEEP_EVERY = 4096;
+    private static final long MINUTE_NANOS = 60_000_000_000L;
+    private static final long HOUR_NANOS = 60 * MINUTE_NANOS;
+
+    private final long[] intervals;
+    private final long[] tolerances;
+    @SuppressWarnings("unchecked")
+    private final ConcurrentHashMap<String, AtomicLongArray>[] stripes = new ConcurrentHashMap[STRIPES];
+    private final AtomicInteger untilSweep = new AtomicInteger(SWEEP_EVERY);
+    private final AtomicInteger nextSweep = new AtomicInteger();
+
+    // Metrics
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    // A limit of 0 or less is not enforced
+    public RateLimiter(int perMinute, int perHour) {
+        intervals = new long[] {interval(MINUTE_NANOS, perMinute), interval(HOUR_NANOS, perHour)};
+        tolerances = new long[] {tolerance(MINUTE_NANOS, intervals[0]), tolerance(HOUR_NANOS, intervals[1])};
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ConcurrentHashMap<>();
+        }
+    }
+
+    private static long interval(long period, int limit) {
+        return limit > 0 ? period / limit : 0;
+    }
+
+    // A full bucket admits a whole period's worth of requests at once
+    private static long tolerance(long period, long interval) {
+        return interval > 0 ? period - interval : 0;
+    }
+
+    public boolean isEnabled() {
+        return intervals[0] > 0 || intervals[1] > 0;
+    }
+
+    // Returns 0 when the request is admitted, otherwise the nanoseconds until it would be
+    public long tryAcquire(String key) {
+        if (!isEnabled()) {
+            return 0;
+        }
+        if (untilSweep.decrementAndGet() <= 0) {
+            untilSweep.set(SWEEP_EVERY);
+            sweep(System.nanoTime());
+        }
+        ConcurrentHashMap<String, AtomicLongArray> stripe = stripes[(key.hashCode() & 0x7fffffff) % STRIPES];
+        AtomicLongArray buckets = stripe.get(key);
+        if (buckets == null) {
+            long now = System.nanoTime();
+            buckets = stripe.computeIfAbsent(key, k -> new AtomicLongArray(new long[] {now, now}));
+        }
+        long now = System.nanoTime();
+        for (int limit = 0; limit < 2; limit++) {
+            if (intervals[limit] == 0) {
+                continue;
+            }
+            // A rejection by the hourly limit still spends the minute's token; an abusive
+            // client loses a little of its minute budget, which is the right direction
+            long wait = take(buckets, limit, now);
+            if (wait > 0) {
+                rejected.increment();
+                return wait;
+            }
+        }
+        allowed.increment();
+        return 0;
+    }
+
+    private long take(AtomicLongArray buckets, int limit, long now) {
+        while (true) {
+            long arrival = buckets.get(limit);
+            long start = arrival - now > 0 ? arrival : now;
+            long ahead = start - now;
+            if (ahead > tolerances[limit]) {
+                return ahead - tolerances[limit];
+            }
+            if (buckets.compareAndSet(limit, arrival, start + intervals[limit])) {
+                return 0;
+            }
+        }
+    }
+
+    private void sweep(long now) {
+        ConcurrentHashMap<String, AtomicLongArray> stripe = stripes[(nextSweep.getAndIncrement() & 0x7fffffff) % STRIPES];
+        stripe.values().removeIf(buckets -> buckets.get(0) - now <= 0 && buckets.get(1) - now <= 0);
+    }
+
+    public int size() {
+        int size = 0;
+        for (ConcurrentHashMap<String, AtomicLongArray> stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    public long getAllowed() {
+        return allowed.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+}
@@ -0,0 +1,116 @@
+package org.parking.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Bounded multi-producer ring of the most recent values, each stamped with a sequence
+// number that increases by one per add and never repeats. Writers claim a sequence
+// with one atomic increment and publish with one compare-and-set; readers never lock
+// and never block writers. Once the ring wraps, the oldest entries are overwritten and
+// readers that were behind are told how many they missed.
+public class SequenceRing<T> {
+    public static final class Entry<T> {
+        private final long sequence;
+        private final T value;
+
+        Entry(long sequence, T value) {
+            this.sequence = sequence;
+            this.value = value;
+        }
+
+        public long getSequence() { return sequence; }
+        public T getValue() { return value; }
+    }
+
+    public static final class Read<T> {
+        private final List<Entry<T>> entries;
+        private final long lastSequence;
+        private final long missed;
+
+        Read(List<Entry<T>> entries, long lastSequence, long missed) {
+            this.entries = entries;
+            this.lastSequence = lastSequence;
+            this.missed = missed;
+        }
+
+        public List<Entry<T>> getEntries() { return entries; }
+        // The sequence to pass as "after" on the next read
+        public long getLastSequence() { return lastSequence; }
+        // Entries after the requested sequence that were overwritten before this read
+        public long getMissed() { return missed; }
+    }
+
+    private final AtomicReferenceArray<Entry<T>> slots;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();
+
+    public SequenceRing(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    // Returns the sequence assigned to the value; the first is 1
+    public long add(T value) {
+        long sequence = claimed.incrementAndGet();
+        int index = (int) (sequence & mask);
+        Entry<T> entry = new Entry<>(sequence, value);
+        while (true) {
+            Entry<T> current = slots.get(index);
+            // A writer stalled for a whole lap must not overwrite the newer entry
+            if (current != null && current.sequence > sequence) {
+                break;
+            }
+            if (slots.compareAndSet(index, current, entry)) {
+                break;
+            }
+        }
+        return sequence;
+    }
+
+    // Highest sequence handed out so far; its entry may still be in the middle of its store
+    public long getLastSequence() {
+        return claimed.get();
+    }
+
+    // Entries with sequence > after, oldest first, at most max of them. Stops at the
+    // first sequence whose writer has claimed but not yet stored it, so a reader never
+    // skips an entry that is about to appear.
+    public Read<T> readAfter(long after, int max) {
+        long last = claimed.get();
+        long from = Math.max(after, 0) + 1;
+        long missed = 0;
+        // Anything more than a ring behind is gone for sure
+        if (last - from >= slots.length()) {
+            long oldest = last - slots.length() + 1;
+            missed = oldest - from;
+            from = oldest;
+        }
+        List<Entry<T>> entries = new ArrayList<>((int) Math.min(max, Math.max(0, last - from + 1)));
+        long next = from;
+        while (next <= last && entries.size() < max) {
+            Entry<T> entry = slots.get((int) (next & mask));
+            if (entry == null || entry.sequence < next) {
+                break; // claimed, not yet stored
+            }
+            if (entry.sequence > next) {
+                // Overwritten while we read; jump to the oldest entry still there
+                long oldest = claimed.get() - slots.length() + 1;
+                missed += oldest - next;
+                next = oldest;
+                continue;
+            }
+            entries.add(entry);
+            next++;
+        }
+        return new Read<>(entries, next - 1, missed);
+    }
+}
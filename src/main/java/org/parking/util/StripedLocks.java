@@ -0,0 +1,51 @@
+package org.parking.util;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+// Fixed set of locks shared by hashing keys onto stripes. Operations on the same key
+// always serialize; different keys only contend when they land on the same stripe.
+public class StripedLocks {
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    public StripedLocks(int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.locks = new ReentrantLock[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public ReentrantLock lockFor(Object key) {
+        return locks[spread(key.hashCode()) & mask];
+    }
+
+    // Primitive-key variant, so callers holding a packed key need not box it
+    public ReentrantLock lockFor(long key) {
+        return locks[spread((int) (key ^ (key >>> 32))) & mask];
+    }
+
+    // Takes every stripe, always in the same order, for work that must exclude all keys
+    public void lockAll() {
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+        }
+    }
+
+    public void unlockAll() {
+        for (int i = locks.length - 1; i >= 0; i--) {
+            locks[i].unlock();
+        }
+    }
+
+    public int getStripeCount() {
+        return locks.length;
+    }
+
+    private static int spread(int h) {
+        h ^= h >>> 16;
+        h *= 0x45d9f3b;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,114 @@
+package org.parking.model;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+// Flushes go to a scratch users table through a writer that can be made to fail once,
+// running a login "during" the failed batch so its outcome is recorded behind it.
+class LoginBookkeepingTest {
+    @TempDir
+    Path directory;
+
+    private String url;
+    private Runnable duringFailure;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        url = "jdbc:sqlite:" + directory.resolve("logins.db");
+        try (Connection conn = DriverManager.getConnection(url); Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE users (username TEXT PRIMARY KEY, last_login TEXT, failed_login_attempts INTEGER)");
+            stmt.execute("INSERT INTO users VALUES ('alice', NULL, 5), ('bob', '2024-01-01T00:00', 0)");
+        }
+        LoginBookkeeping.writer = work -> {
+            if (duringFailure != null) {
+                Runnable login = duringFailure;
+                duringFailure = null;
+                login.run();
+                throw new SQLException("database is locked");
+            }
+            try (Connection conn = DriverManager.getConnection(url)) {
+                conn.setAutoCommit(false);
+                int[] counts = work.execute(conn);
+                conn.commit();
+                return counts;
+            }
+        };
+    }
+
+    @AfterEach
+    void tearDown() {
+        LoginBookkeeping.flush();
+        LoginBookkeeping.writer = DatabaseManager::write;
+    }
+
+    @Test
+    void failuresAfterASuccessOnlyCountThemselves() throws SQLException {
+        LoginBookkeeping.recordFailure("alice");
+        LoginBookkeeping.recordSuccess("Alice ");
+        LoginBookkeeping.recordFailure("alice");
+        LoginBookkeeping.flush();
+
+        assertEquals(1, failedAttempts("alice"));
+        assertNotNull(lastLogin("alice"));
+    }
+
+    @Test
+    void failedFlushIsMergedBackAheadOfLaterOutcomes() throws SQLException {
+        // The retried success must not wipe out the failure that came after it
+        LoginBookkeeping.recordSuccess("alice");
+        duringFailure = () -> LoginBookkeeping.recordFailure("alice");
+        LoginBookkeeping.flush();
+        assertEquals(5, failedAttempts("alice"));
+        assertEquals(1, LoginBookkeeping.getStats().get("pending"));
+
+        LoginBookkeeping.flush();
+        assertEquals(1, failedAttempts("alice"));
+        assertNotNull(lastLogin("alice"));
+        assertEquals(0, LoginBookkeeping.getStats().get("pending"));
+    }
+
+    @Test
+    void laterSuccessStillClearsFailuresFromAFailedFlush() throws SQLException {
+        LoginBookkeeping.recordFailure("bob");
+        LoginBookkeeping.recordFailure("bob");
+        duringFailure = () -> LoginBookkeeping.recordSuccess("bob");
+        LoginBookkeeping.flush();
+        assertEquals("2024-01-01T00:00", lastLogin("bob"));
+
+        LoginBookkeeping.flush();
+        assertEquals(0, failedAttempts("bob"));
+        assertNotNull(lastLogin("bob"));
+        assertNull(LoginBookkeeping.pendingLastLogin("bob"));
+    }
+
+    private int failedAttempts(String username) throws SQLException {
+        try (Connection conn = DriverManager.getConnection(url);
+             ResultSet rs = conn.createStatement().executeQuery(
+                 "SELECT failed_login_attempts FROM users WHERE username = '" + username + "'")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private String lastLogin(String username) throws SQLException {
+        try (Connection conn = DriverManager.getConnection(url);
+             ResultSet rs = conn.createStatement().executeQuery(
+                 "SELECT last_login FROM users WHERE username = '" + username + "'")) {
+            rs.next();
+            return rs.getString(1);
+        }
+    }
+}
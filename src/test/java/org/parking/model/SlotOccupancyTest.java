@@ -0,0 +1,91 @@
+package org.parking.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SlotOccupancyTest {
+    private static final int THREADS = 8;
+
+    @Test
+    void concurrentClaimsNeverReturnTheSameSlot() throws Exception {
+        SlotOccupancy occupancy = new SlotOccupancy(1000);
+        for (int slotId = 0; slotId < 1000; slotId++) {
+            occupancy.add(slotId, slotId % 7 != 0);
+        }
+        int free = occupancy.getFreeCount();
+
+        List<Integer> claimed = claimAll(occupancy, null);
+        assertEquals(free, claimed.size());
+        assertEquals(free, new HashSet<>(claimed).size(), "a slot was claimed twice");
+        assertEquals(0, occupancy.getFreeCount());
+        assertEquals(-1, occupancy.claimFirstFree(null));
+    }
+
+    @Test
+    void typedClaimsStayWithinTheirType() throws Exception {
+        SlotOccupancy occupancy = new SlotOccupancy(256);
+        for (int slotId = 0; slotId < 256; slotId++) {
+            occupancy.add(slotId, true, slotId % 2 == 0 ? "EV" : "REGULAR");
+        }
+
+        List<Integer> claimed = claimAll(occupancy, "ev");
+        Set<Integer> distinct = new HashSet<>(claimed);
+        assertEquals(128, claimed.size());
+        assertEquals(128, distinct.size(), "a slot was claimed twice");
+        assertTrue(distinct.stream().allMatch(slotId -> slotId % 2 == 0));
+        assertEquals(128, occupancy.getFreeCount());
+    }
+
+    @Test
+    void claimsTheLowestFreeSlot() {
+        SlotOccupancy occupancy = new SlotOccupancy(200);
+        occupancy.add(130, true);
+        occupancy.add(70, true);
+        occupancy.add(3, false);
+        assertEquals(70, occupancy.claimFirstFree(null));
+        assertEquals(130, occupancy.claimFirstFree(null));
+        assertEquals(-1, occupancy.claimFirstFree(null));
+        assertEquals(-1, occupancy.claimFirstFree("EV"));
+    }
+
+    // Every thread claims until nothing is left; all start together to contend on the
+    // same low words
+    private static List<Integer> claimAll(SlotOccupancy occupancy, String slotType) throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<List<Integer>>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                results.add(threads.submit(() -> {
+                    start.await();
+                    List<Integer> mine = new ArrayList<>();
+                    int slotId;
+                    while ((slotId = occupancy.claimFirstFree(slotType)) >= 0) {
+                        mine.add(slotId);
+                    }
+                    return mine;
+                }));
+            }
+            start.countDown();
+            List<Integer> claimed = new ArrayList<>();
+            for (Future<List<Integer>> result : results) {
+                claimed.addAll(result.get(10, TimeUnit.SECONDS));
+            }
+            return claimed;
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+}
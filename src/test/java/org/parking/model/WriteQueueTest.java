@@ -0,0 +1,189 @@
+package org.parking.model;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The group-commit writer against a real SQLite file. Each test parks the writer inside
+// a blocking unit, queues the units under test behind it so they share the next batch,
+// then lets it go.
+class WriteQueueTest {
+    @TempDir
+    Path directory;
+
+    private String url;
+    private WriteQueue queue;
+    private ExecutorService callers;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        url = "jdbc:sqlite:" + directory.resolve("writes.db");
+        try (Connection conn = DriverManager.getConnection(url); Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA journal_mode = WAL");
+            stmt.execute("CREATE TABLE items (id INTEGER PRIMARY KEY)");
+        }
+        queue = new WriteQueue(() -> DriverManager.getConnection(url), 64, 100);
+        callers = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+        queue.shutdown();
+    }
+
+    @Test
+    void failingUnitRollsBackOnlyItself() throws Exception {
+        CountDownLatch release = blockWriter();
+        Future<Integer> first = submitAsync(conn -> insert(conn, 1));
+        awaitQueueDepth(1);
+        Future<Integer> failing = submitAsync(conn -> {
+            insert(conn, 2);
+            throw new SQLException("unit failed after its insert");
+        });
+        awaitQueueDepth(2);
+        Future<Integer> last = submitAsync(conn -> insert(conn, 3));
+        awaitQueueDepth(3);
+        release.countDown();
+
+        assertEquals(1, first.get(5, TimeUnit.SECONDS));
+        assertEquals(3, last.get(5, TimeUnit.SECONDS));
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> failing.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(SQLException.class, failure.getCause());
+        assertEquals(List.of(0, 1, 3), committedIds());
+        assertEquals(1, queue.getFailedTaskCount());
+    }
+
+    @Test
+    void withdrawnUnitNeverRuns() throws Exception {
+        CountDownLatch release = blockWriter();
+        AtomicBoolean ran = new AtomicBoolean();
+        AtomicReference<Throwable> outcome = new AtomicReference<>();
+        Thread caller = new Thread(() -> {
+            try {
+                queue.submit(conn -> {
+                    ran.set(true);
+                    return insert(conn, 7);
+                });
+            } catch (Throwable e) {
+                outcome.set(e);
+            }
+        });
+        caller.start();
+        awaitQueueDepth(1);
+        // Interrupting the waiting caller withdraws its unit while it is still queued
+        caller.interrupt();
+        caller.join(5000);
+        assertInstanceOf(SQLException.class, outcome.get());
+        Future<Integer> next = submitAsync(conn -> insert(conn, 8));
+        awaitQueueDepth(2);
+        release.countDown();
+
+        assertEquals(8, next.get(5, TimeUnit.SECONDS));
+        assertFalse(ran.get());
+        assertEquals(List.of(0, 8), committedIds());
+    }
+
+    @Test
+    void callersHearOfTheirUnitOnlyOnceTheBatchCommits() throws Exception {
+        CountDownLatch release = blockWriter();
+        Future<Integer> early = submitAsync(conn -> insert(conn, 1));
+        awaitQueueDepth(1);
+        CountDownLatch lateStarted = new CountDownLatch(1);
+        CountDownLatch lateRelease = new CountDownLatch(1);
+        Future<Integer> late = submitAsync(conn -> {
+            lateStarted.countDown();
+            await(lateRelease);
+            return insert(conn, 2);
+        });
+        awaitQueueDepth(2);
+        release.countDown();
+
+        // The first unit has run, but its batch is still open behind the second
+        assertTrue(lateStarted.await(5, TimeUnit.SECONDS));
+        assertThrows(TimeoutException.class, () -> early.get(200, TimeUnit.MILLISECONDS));
+        assertEquals(List.of(0), committedIds());
+
+        lateRelease.countDown();
+        assertEquals(1, early.get(5, TimeUnit.SECONDS));
+        assertEquals(2, late.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of(0, 1, 2), committedIds());
+    }
+
+    // Parks the writer inside a unit that inserts id 0, so the next units queue up and
+    // go into one batch when the returned latch is released
+    private CountDownLatch blockWriter() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        submitAsync(conn -> {
+            started.countDown();
+            await(release);
+            return insert(conn, 0);
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        return release;
+    }
+
+    private <T> Future<T> submitAsync(DatabaseManager.SqlWork<T> work) {
+        return callers.submit(() -> queue.submit(work));
+    }
+
+    private void awaitQueueDepth(int depth) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (queue.getQueueDepth() < depth) {
+            assertTrue(System.nanoTime() < deadline, "units did not reach the queue");
+            Thread.sleep(1);
+        }
+    }
+
+    // For units of work, which may only throw SQLException
+    private static void await(CountDownLatch latch) throws SQLException {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new SQLException("Interrupted", e);
+        }
+    }
+
+    private static int insert(Connection conn, int id) throws SQLException {
+        conn.createStatement().executeUpdate("INSERT INTO items (id) VALUES (" + id + ")");
+        return id;
+    }
+
+    // What a separate reader sees, i.e. what has committed
+    private List<Integer> committedIds() throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        try (Connection conn = DriverManager.getConnection(url);
+             ResultSet rs = conn.createStatement().executeQuery("SELECT id FROM items ORDER BY id")) {
+            while (rs.next()) {
+                ids.add(rs.getInt(1));
+            }
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,79 @@
+package org.parking.util;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+// Verification throughput of signed pass tokens, the check a gate makes on every scan
+// instead of a database lookup. Prints single-thread latency and the throughput of
+// several gate threads verifying at once. Run with -Pbenchmarks; PassTokenTest covers
+// rotation, tampering and expiry in the default build.
+@Tag("benchmark")
+class PassTokenBenchmarkTest {
+    private static final String KEYS =
+        "1:pass-benchmark-key-one-0123456789abcdef,2:pass-benchmark-key-two-0123456789abcdef";
+    private static final int TOKENS = 1_000;
+    private static final int WARMUP_ROUNDS = 50;
+    private static final int ROUNDS = 200;
+
+    @Test
+    void verifiesTokensWithoutTheDatabase() throws Exception {
+        PassToken.configure(KEYS, 1, false);
+        long now = System.currentTimeMillis() / 1000;
+        List<String> tokens = new ArrayList<>(TOKENS);
+        for (int i = 0; i < TOKENS; i++) {
+            tokens.add(PassToken.issue("MH12AB" + (1000 + i), PassToken.PassType.MONTHLY, now, now + 86_400));
+        }
+
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            verifyAll(tokens, now);
+        }
+        long start = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            verifyAll(tokens, now);
+        }
+        long elapsed = System.nanoTime() - start;
+        long verifications = (long) ROUNDS * TOKENS;
+        System.out.printf("Pass verify, 1 thread: %d ns/op, %,d verifications/s%n",
+            elapsed / verifications, verifications * 1_000_000_000L / elapsed);
+
+        int threads = Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors()));
+        ExecutorService gates = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            start = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                results.add(gates.submit(() -> {
+                    for (int round = 0; round < ROUNDS; round++) {
+                        verifyAll(tokens, now);
+                    }
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+            elapsed = System.nanoTime() - start;
+        } finally {
+            gates.shutdown();
+            gates.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        verifications = (long) threads * ROUNDS * TOKENS;
+        System.out.printf("Pass verify, %d threads: %,d verifications/s%n",
+            threads, verifications * 1_000_000_000L / elapsed);
+    }
+
+    private static void verifyAll(List<String> tokens, long now) {
+        for (String token : tokens) {
+            PassToken.Pass pass = PassToken.verify(token, now);
+            if (!pass.isValid()) {
+                throw new AssertionError("Pass refused: " + pass.getStatus());
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package org.parking.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PassTokenTest {
+    private static final String KEYS =
+        "1:pass-test-key-one-0123456789abcdef,2:pass-test-key-two-0123456789abcdef";
+
+    @Test
+    void verifiedPassCarriesWhatWasIssued() {
+        long now = System.currentTimeMillis() / 1000;
+        PassToken.configure(KEYS, 1, false);
+        String token = PassToken.issue("MH12AB1234", PassToken.PassType.MONTHLY, now, now + 86_400);
+
+        assertTrue(PassToken.looksLikeToken(token));
+        PassToken.Pass pass = PassToken.verify(token, now);
+        assertTrue(pass.isValid());
+        assertEquals("MH12AB1234", pass.getPlateNumber());
+        assertEquals(PassToken.PassType.MONTHLY, pass.getType());
+        assertEquals(now, pass.getValidFrom());
+        assertEquals(now + 86_400, pass.getValidUntil());
+        assertEquals(1, pass.getKeyId());
+    }
+
+    @Test
+    void keepsVerifyingPassesSignedWithARotatedOutKey() {
+        long now = System.currentTimeMillis() / 1000;
+        PassToken.configure(KEYS, 1, false);
+        String oldPass = PassToken.issue("KA01XY9", PassToken.PassType.STAFF, now, now + 3_600);
+
+        PassToken.configure(KEYS, 2, false);
+        String newPass = PassToken.issue("KA01XY9", PassToken.PassType.STAFF, now, now + 3_600);
+        assertEquals(1, PassToken.verify(oldPass, now).getKeyId());
+        assertEquals(2, PassToken.verify(newPass, now).getKeyId());
+        assertTrue(PassToken.verify(oldPass, now).isValid());
+
+        // Once the old key is dropped from the list its passes stop opening the gate
+        PassToken.configure("2:pass-test-key-two-0123456789abcdef", 2, false);
+        assertEquals(PassToken.Status.UNKNOWN_KEY, PassToken.verify(oldPass, now).getStatus());
+        assertTrue(PassToken.verify(newPass, now).isValid());
+    }
+
+    @Test
+    void rejectsTamperedAndExpiredPasses() {
+        long now = System.currentTimeMillis() / 1000;
+        PassToken.configure(KEYS, 1, false);
+        String pass = PassToken.issue("DL3CAB1234", PassToken.PassType.DAILY, now, now + 60);
+
+        char last = pass.charAt(pass.length() - 1);
+        String tampered = pass.substring(0, pass.length() - 1) + (last == 'A' ? 'B' : 'A');
+        assertEquals(PassToken.Status.BAD_SIGNATURE, PassToken.verify(tampered, now).getStatus());
+        assertEquals(PassToken.Status.EXPIRED, PassToken.verify(pass, now + 61).getStatus());
+        assertEquals(PassToken.Status.MALFORMED, PassToken.verify("P1.short", now).getStatus());
+        assertEquals("DL3CAB1234", PassToken.verify(pass, now).getPlateNumber());
+    }
+}
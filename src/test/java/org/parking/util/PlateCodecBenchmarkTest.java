@@ -0,0 +1,117 @@
+package org.parking.util;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Plate lookups the way the gate path used to make them (toUpperCase().trim() and a
+// String-keyed map) against PlateCodec codes in a LongObjectMap. Prints time and bytes
+// allocated per lookup for both; asserts that the codec path returns the same answers
+// and allocates less, and leaves the timings to the reader. Tagged so a plain build
+// skips it; PlateCodecTest covers the codec itself.
+@Tag("benchmark")
+class PlateCodecBenchmarkTest {
+    private static final int PLATES = 5_000;
+    private static final int REQUESTS = 100_000;
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int ROUNDS = 50;
+
+    @Test
+    void codecLookupsAllocateLessThanStringLookups() {
+        Random random = new Random(42);
+        ConcurrentHashMap<String, Object> byString = new ConcurrentHashMap<>();
+        LongObjectMap<Object> byCode = new LongObjectMap<>(PLATES);
+        List<String> plates = new ArrayList<>(PLATES);
+        for (int i = 0; i < PLATES; i++) {
+            String plate = randomPlate(random);
+            Object session = new Object();
+            byString.put(plate, session);
+            byCode.put(PlateCodec.encode(plate), session);
+            plates.add(plate);
+        }
+        // Fresh strings as a request would bring them, half in lower case, some padded
+        String[] requests = new String[REQUESTS];
+        for (int i = 0; i < REQUESTS; i++) {
+            String plate = plates.get(random.nextInt(PLATES));
+            if (i % 2 == 0) {
+                plate = plate.toLowerCase();
+            }
+            requests[i] = i % 10 == 0 ? " " + plate + " " : new String(plate.toCharArray());
+        }
+
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            stringLookups(byString, requests);
+            codecLookups(byCode, requests);
+        }
+        for (String request : requests) {
+            assertTrue(byString.get(request.toUpperCase().trim()) == byCode.get(PlateCodec.encode(request)));
+        }
+
+        long[] stringCost = measure(() -> stringLookups(byString, requests));
+        long[] codecCost = measure(() -> codecLookups(byCode, requests));
+        long lookups = (long) ROUNDS * REQUESTS;
+        System.out.printf("String lookup: %d ns/op, %d B/op%n", stringCost[0] / lookups, stringCost[1] / lookups);
+        System.out.printf("Codec lookup:  %d ns/op, %d B/op%n", codecCost[0] / lookups, codecCost[1] / lookups);
+        if (stringCost[1] >= 0 && codecCost[1] >= 0) {
+            assertTrue(codecCost[1] < stringCost[1], "codec path should allocate less than the String path");
+        }
+    }
+
+    private static int stringLookups(ConcurrentHashMap<String, Object> byString, String[] requests) {
+        int found = 0;
+        for (String request : requests) {
+            if (byString.get(request.toUpperCase().trim()) != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    private static int codecLookups(LongObjectMap<Object> byCode, String[] requests) {
+        int found = 0;
+        for (String request : requests) {
+            if (byCode.get(PlateCodec.encode(request)) != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    // Nanoseconds and bytes allocated by this thread over ROUNDS runs; bytes is -1 where
+    // the JVM cannot count them
+    private static long[] measure(Runnable lookups) {
+        long bytesBefore = allocatedBytes();
+        long start = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            lookups.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        long bytesAfter = allocatedBytes();
+        return new long[] {elapsed, bytesBefore < 0 ? -1 : bytesAfter - bytesBefore};
+    }
+
+    private static long allocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemorySupported()) {
+            return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private static String randomPlate(Random random) {
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+        int length = 2 + random.nextInt(9);
+        StringBuilder plate = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            plate.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return plate.toString();
+    }
+}
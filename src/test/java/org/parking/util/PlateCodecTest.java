@@ -0,0 +1,61 @@
+package org.parking.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PlateCodecTest {
+    @Test
+    void roundTripsEveryValidPlate() {
+        Random random = new Random(7);
+        for (int i = 0; i < 10_000; i++) {
+            String plate = randomPlate(random);
+            long code = PlateCodec.encode(plate);
+            assertTrue(code != PlateCodec.INVALID);
+            assertEquals(plate, PlateCodec.decode(code));
+            assertEquals(code, PlateCodec.encode(" " + plate.toLowerCase() + " "));
+        }
+        assertTrue(PlateCodec.encode("0A") != PlateCodec.encode("00A"));
+        assertEquals(PlateCodec.INVALID, PlateCodec.encode("MH-12"));
+        assertEquals(PlateCodec.INVALID, PlateCodec.encode("ABCDEFGHIJK"));
+    }
+
+    // A code-keyed map answers exactly as the String-keyed one it replaced, for requests
+    // in either case and with surrounding spaces
+    @Test
+    void codeLookupsMatchStringLookups() {
+        Random random = new Random(42);
+        ConcurrentHashMap<String, Object> byString = new ConcurrentHashMap<>();
+        LongObjectMap<Object> byCode = new LongObjectMap<>(500);
+        List<String> plates = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            String plate = randomPlate(random);
+            Object session = new Object();
+            byString.put(plate, session);
+            byCode.put(PlateCodec.encode(plate), session);
+            plates.add(plate);
+        }
+        for (int i = 0; i < 5_000; i++) {
+            String plate = i % 3 == 0 ? randomPlate(random) : plates.get(random.nextInt(plates.size()));
+            String request = i % 2 == 0 ? " " + plate.toLowerCase() + " " : plate;
+            assertSame(byString.get(request.toUpperCase().trim()), byCode.get(PlateCodec.encode(request)), request);
+        }
+    }
+
+    private static String randomPlate(Random random) {
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+        int length = 2 + random.nextInt(9);
+        StringBuilder plate = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            plate.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return plate.toString();
+    }
+}
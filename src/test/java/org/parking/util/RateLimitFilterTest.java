@@ -0,0 +1,62 @@
+package org.parking.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Only the gate group is limited here, to one request a minute per client
+class RateLimitFilterTest {
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        RateLimiter off = new RateLimiter(0, 0);
+        filter = new RateLimitFilter(new RateLimiter(1, 0), off, off, off);
+    }
+
+    @Test
+    void rejectionCarriesRetryAfter() throws Exception {
+        MockHttpServletResponse first = send("/api/book", "10.0.0.1");
+        assertEquals(200, first.getStatus());
+
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        filter.doFilter(request("/api/book", "10.0.0.1"), second, chain);
+        assertEquals(429, second.getStatus());
+        assertNull(chain.getRequest(), "a rejected request must not reach the controller");
+        String retryAfter = second.getHeader("Retry-After");
+        assertNotNull(retryAfter);
+        int seconds = Integer.parseInt(retryAfter);
+        assertTrue(seconds >= 1 && seconds <= 60, "Retry-After was " + retryAfter);
+        assertEquals("application/json", second.getContentType());
+        assertTrue(second.getContentAsString().contains("Too many requests"));
+    }
+
+    @Test
+    void clientsAndUnlimitedPathsAreNotAffected() throws Exception {
+        assertEquals(200, send("/api/gate/entry", "10.0.0.2").getStatus());
+        assertEquals(429, send("/api/gate/entry", "10.0.0.2").getStatus());
+        assertEquals(200, send("/api/gate/entry", "10.0.0.3").getStatus());
+        assertEquals(200, send("/api/health", "10.0.0.2").getStatus());
+        assertEquals(200, send("/index.html", "10.0.0.2").getStatus());
+    }
+
+    private MockHttpServletResponse send(String path, String address) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(path, address), response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String path, String address) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        request.setRemoteAddr(address);
+        return request;
+    }
+}
@@ -0,0 +1,55 @@
+package org.parking.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// GCRA buckets: a fresh key gets its whole period's budget at once, then is held to the
+// rate. The limits here are low enough that no bucket refills during a test.
+class RateLimiterTest {
+    @Test
+    void allowsAFullBurstThenLimits() {
+        RateLimiter limiter = new RateLimiter(5, 0);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limiter.tryAcquire("ip:10.0.0.1"), "request " + i + " of the burst");
+        }
+        long wait = limiter.tryAcquire("ip:10.0.0.1");
+        // One request is due every 12 seconds
+        assertTrue(wait > 0 && wait <= TimeUnit.SECONDS.toNanos(12), "wait was " + wait);
+        assertEquals(5, limiter.getAllowed());
+        assertEquals(1, limiter.getRejected());
+    }
+
+    @Test
+    void keysHaveTheirOwnBuckets() {
+        RateLimiter limiter = new RateLimiter(1, 0);
+        assertEquals(0, limiter.tryAcquire("user:alice"));
+        assertTrue(limiter.tryAcquire("user:alice") > 0);
+        assertEquals(0, limiter.tryAcquire("user:bob"));
+        assertEquals(2, limiter.size());
+    }
+
+    @Test
+    void hourlyLimitAppliesWithinTheMinuteBudget() {
+        RateLimiter limiter = new RateLimiter(60, 3);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire("ip:10.0.0.2"));
+        }
+        long wait = limiter.tryAcquire("ip:10.0.0.2");
+        assertTrue(wait > TimeUnit.SECONDS.toNanos(60) && wait <= TimeUnit.MINUTES.toNanos(20), "wait was " + wait);
+    }
+
+    @Test
+    void zeroLimitsAreNotEnforced() {
+        RateLimiter limiter = new RateLimiter(0, 0);
+        assertFalse(limiter.isEnabled());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(0, limiter.tryAcquire("ip:10.0.0.3"));
+        }
+        assertEquals(0, limiter.size());
+    }
+}